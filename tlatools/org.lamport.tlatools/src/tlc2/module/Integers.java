@@ -11,6 +11,7 @@ import tlc2.tool.impl.TLARegistry;
 import tlc2.value.IBoolValue;
 import tlc2.value.ValueConstants;
 import tlc2.value.Values;
+import tlc2.value.impl.BigIntValue;
 import tlc2.value.impl.BoolValue;
 import tlc2.value.impl.IntValue;
 import tlc2.value.impl.IntervalValue;
@@ -30,18 +31,33 @@ public class Integers extends UserObj implements ValueConstants
 		// thus implemented by the Java method tlc2.module.Integers.Plus(IntValue,
 		// IntValue) below.
     	//TODO Why does tlc2.module.Naturals define identical mappings?
-        TLARegistry.put("Plus", "+");
-        TLARegistry.put("Minus", "-");
-        TLARegistry.put("Times", "*");
         TLARegistry.put("LT", "<");
         TLARegistry.put("LE", "\\leq");
         TLARegistry.put("GT", ">");
         TLARegistry.put("GEQ", "\\geq");
         TLARegistry.put("DotDot", "..");
-        TLARegistry.put("Neg", "-.");
-        TLARegistry.put("Divide", "\\div");
-        TLARegistry.put("Mod", "%");
-        TLARegistry.put("Expt", "^");
+        if (BigIntValue.ENABLED)
+        {
+            // The Big* variants promote integers that overflow 32 bits to
+            // BigIntValue instead of failing with an overflow.
+            TLARegistry.put("BigPlus", "+");
+            TLARegistry.put("BigMinus", "-");
+            TLARegistry.put("BigTimes", "*");
+            TLARegistry.put("BigNeg", "-.");
+            TLARegistry.put("BigDivide", "\\div");
+            TLARegistry.put("BigMod", "%");
+            TLARegistry.put("BigExpt", "^");
+        }
+        else
+        {
+            TLARegistry.put("Plus", "+");
+            TLARegistry.put("Minus", "-");
+            TLARegistry.put("Times", "*");
+            TLARegistry.put("Neg", "-.");
+            TLARegistry.put("Divide", "\\div");
+            TLARegistry.put("Mod", "%");
+            TLARegistry.put("Expt", "^");
+        }
     }
 
     private static final Value SetInt = new UserValue(new Integers());
@@ -61,78 +77,93 @@ public class Integers extends UserObj implements ValueConstants
         return Naturals.Plus(x, y);
     }
 
+    public static Value BigPlus(Value x, Value y)
+    {
+        return Naturals.BigPlus(x, y);
+    }
+
     public static IntValue Minus(IntValue x, IntValue y)
     {
         return Naturals.Minus(x, y);
     }
 
+    public static Value BigMinus(Value x, Value y)
+    {
+        return Naturals.BigMinus(x, y);
+    }
+
     public static IntValue Times(IntValue x, IntValue y)
     {
         return Naturals.Times(x, y);
     }
 
+    public static Value BigTimes(Value x, Value y)
+    {
+        return Naturals.BigTimes(x, y);
+    }
+
     public static IBoolValue LT(Value x, Value y)
     {
-        if (!(x instanceof IntValue))
+        if (!BigIntValue.isInteger(x))
         {
             throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR_AN, new String[] { "first", "<", "integer",
                     Values.ppr(x.toString()) });
         }
-        if (!(y instanceof IntValue))
+        if (!BigIntValue.isInteger(y))
         {
             throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR_AN, new String[] { "second", "<", "integer",
                     Values.ppr(y.toString()) });
         }
 
-        return (((IntValue) x).val < ((IntValue) y).val) ? BoolValue.ValTrue : BoolValue.ValFalse;
+        return (BigIntValue.compare(x, y) < 0) ? BoolValue.ValTrue : BoolValue.ValFalse;
     }
 
     public static IBoolValue LE(Value x, Value y)
     {
-        if (!(x instanceof IntValue))
+        if (!BigIntValue.isInteger(x))
         {
             throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR_AN, new String[] { "first", "<=", "integer",
                     Values.ppr(x.toString()) });
         }
-        if (!(y instanceof IntValue))
+        if (!BigIntValue.isInteger(y))
         {
             throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR_AN, new String[] { "second", "<=", "integer",
                     Values.ppr(y.toString()) });
         }
 
-        return (((IntValue) x).val <= ((IntValue) y).val) ? BoolValue.ValTrue : BoolValue.ValFalse;
+        return (BigIntValue.compare(x, y) <= 0) ? BoolValue.ValTrue : BoolValue.ValFalse;
     }
 
     public static BoolValue GT(Value x, Value y)
     {
-        if (!(x instanceof IntValue))
+        if (!BigIntValue.isInteger(x))
         {
             throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR_AN, new String[] { "first", ">", "integer",
                     Values.ppr(x.toString()) });
         }
-        if (!(y instanceof IntValue))
+        if (!BigIntValue.isInteger(y))
         {
             throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR_AN, new String[] { "second", ">", "integer",
                     Values.ppr(y.toString()) });
         }
 
-        return (((IntValue) x).val > ((IntValue) y).val) ? BoolValue.ValTrue : BoolValue.ValFalse;
+        return (BigIntValue.compare(x, y) > 0) ? BoolValue.ValTrue : BoolValue.ValFalse;
     }
 
     public static IBoolValue GEQ(Value x, Value y)
     {
-        if (!(x instanceof IntValue))
+        if (!BigIntValue.isInteger(x))
         {
             throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR_AN, new String[] { "first", ">=", "integer",
                     Values.ppr(x.toString()) });
         }
-        if (!(y instanceof IntValue))
+        if (!BigIntValue.isInteger(y))
         {
             throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR_AN, new String[] { "second", ">=", "integer",
                     Values.ppr(y.toString()) });
         }
 
-        return (((IntValue) x).val >= ((IntValue) y).val) ? BoolValue.ValTrue : BoolValue.ValFalse;
+        return (BigIntValue.compare(x, y) >= 0) ? BoolValue.ValTrue : BoolValue.ValFalse;
     }
 
     public static IntervalValue DotDot(IntValue x, IntValue y)
@@ -150,6 +181,20 @@ public class Integers extends UserObj implements ValueConstants
         return IntValue.gen(0 - n);
     }
 
+    public static Value BigNeg(Value x)
+    {
+        if (x instanceof IntValue)
+        {
+            int n = ((IntValue) x).val;
+            if (n == -2147483648)
+            {
+                return BigIntValue.gen(-((long) n));
+            }
+            return IntValue.gen(0 - n);
+        }
+        return BigIntValue.gen(Naturals.toBigInteger(x, "first", "-").negate());
+    }
+
     public static IntValue Divide(IntValue x, IntValue y)
     {
         if (y.val == 0)
@@ -170,6 +215,30 @@ public class Integers extends UserObj implements ValueConstants
         return IntValue.gen(q);
     }
 
+    public static Value BigDivide(Value x, Value y)
+    {
+        if (x instanceof IntValue && y instanceof IntValue)
+        {
+            int n1 = ((IntValue) x).val;
+            int n2 = ((IntValue) y).val;
+            if (n2 == 0)
+            {
+                throw new EvalException(EC.TLC_MODULE_DIVISION_BY_ZERO);
+            }
+            if (n1 == -2147483648 && n2 == -1)
+            {
+                return BigIntValue.gen(2147483648L);
+            }
+            int q = n1 / n2;
+            if ((((n1 < 0) && (n2 > 0)) || ((n1 > 0) && (n2 < 0))) && (q * n2 != n1))
+            {
+                q--;
+            }
+            return IntValue.gen(q);
+        }
+        return Naturals.BigDivide(x, y);
+    }
+
     public static IntValue Mod(IntValue x, IntValue y)
     {
         if (y.val <= 0)
@@ -181,6 +250,11 @@ public class Integers extends UserObj implements ValueConstants
         return IntValue.gen(r < 0 ? (r + y.val) : r);
     }
 
+    public static Value BigMod(Value x, Value y)
+    {
+        return Naturals.BigMod(x, y);
+    }
+
     public static IntValue Expt(IntValue x, IntValue y)
     {
         if (y.val < 0)
@@ -209,6 +283,11 @@ public class Integers extends UserObj implements ValueConstants
         return IntValue.gen((int) res);
     }
 
+    public static Value BigExpt(Value x, Value y)
+    {
+        return Naturals.BigExpt(x, y);
+    }
+
     @Override
     public final int compareTo(Value val)
     {
@@ -231,7 +310,7 @@ public class Integers extends UserObj implements ValueConstants
     @Override
     public final boolean member(Value val)
     {
-        if (val instanceof IntValue)
+        if (val instanceof IntValue || val instanceof BigIntValue)
             return true;
         if (val instanceof ModelValue)
         {
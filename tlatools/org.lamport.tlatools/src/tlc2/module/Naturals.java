@@ -5,12 +5,15 @@
 
 package tlc2.module;
 
+import java.math.BigInteger;
+
 import tlc2.output.EC;
 import tlc2.tool.EvalException;
 import tlc2.tool.impl.TLARegistry;
 import tlc2.value.IBoolValue;
 import tlc2.value.ValueConstants;
 import tlc2.value.Values;
+import tlc2.value.impl.BigIntValue;
 import tlc2.value.impl.BoolValue;
 import tlc2.value.impl.IntValue;
 import tlc2.value.impl.IntervalValue;
@@ -30,17 +33,31 @@ public class Naturals extends UserObj implements ValueConstants
 		// thus implemented by the Java method tlc2.module.Naturals.Plus(IntValue,
    		// IntValue) below.
     	//TODO Why does tlc2.module.Integers define identical mappings?
-        TLARegistry.put("Plus", "+");
-        TLARegistry.put("Minus", "-");
-        TLARegistry.put("Times", "*");
         TLARegistry.put("LT", "<");
         TLARegistry.put("LE", "\\leq");
         TLARegistry.put("GT", ">");
         TLARegistry.put("GEQ", "\\geq");
         TLARegistry.put("DotDot", "..");
-        TLARegistry.put("Divide", "\\div");
-        TLARegistry.put("Mod", "%");
-        TLARegistry.put("Expt", "^");
+        if (BigIntValue.ENABLED)
+        {
+            // The Big* variants promote integers that overflow 32 bits to
+            // BigIntValue instead of failing with an overflow.
+            TLARegistry.put("BigPlus", "+");
+            TLARegistry.put("BigMinus", "-");
+            TLARegistry.put("BigTimes", "*");
+            TLARegistry.put("BigDivide", "\\div");
+            TLARegistry.put("BigMod", "%");
+            TLARegistry.put("BigExpt", "^");
+        }
+        else
+        {
+            TLARegistry.put("Plus", "+");
+            TLARegistry.put("Minus", "-");
+            TLARegistry.put("Times", "*");
+            TLARegistry.put("Divide", "\\div");
+            TLARegistry.put("Mod", "%");
+            TLARegistry.put("Expt", "^");
+        }
     }
 
     private static Value SetNat = new UserValue(new Naturals());
@@ -62,6 +79,22 @@ public class Naturals extends UserObj implements ValueConstants
         return IntValue.gen(res);
     }
 
+    public static Value BigPlus(Value x, Value y)
+    {
+        if (x instanceof IntValue && y instanceof IntValue)
+        {
+            int n1 = ((IntValue) x).val;
+            int n2 = ((IntValue) y).val;
+            int res = n1 + n2;
+            if ((n1 < 0) == (n2 < 0) && (n2 < 0) != (res < 0))
+            {
+                return BigIntValue.gen((long) n1 + n2);
+            }
+            return IntValue.gen(res);
+        }
+        return BigIntValue.gen(toBigInteger(x, "first", "+").add(toBigInteger(y, "second", "+")));
+    }
+
     public static IntValue Minus(IntValue x, IntValue y)
     {
         int n1 = x.val;
@@ -74,6 +107,22 @@ public class Naturals extends UserObj implements ValueConstants
         return IntValue.gen(res);
     }
 
+    public static Value BigMinus(Value x, Value y)
+    {
+        if (x instanceof IntValue && y instanceof IntValue)
+        {
+            int n1 = ((IntValue) x).val;
+            int n2 = ((IntValue) y).val;
+            int res = n1 - n2;
+            if ((n1 < 0) != (n2 < 0) && (n1 < 0) != (res < 0))
+            {
+                return BigIntValue.gen((long) n1 - n2);
+            }
+            return IntValue.gen(res);
+        }
+        return BigIntValue.gen(toBigInteger(x, "first", "-").subtract(toBigInteger(y, "second", "-")));
+    }
+
     public static IntValue Times(IntValue x, IntValue y)
     {
         int n1 = x.val;
@@ -92,70 +141,92 @@ public class Naturals extends UserObj implements ValueConstants
         return IntValue.gen((int) res);
     }
 
+    public static Value BigTimes(Value x, Value y)
+    {
+        if (x instanceof IntValue && y instanceof IntValue)
+        {
+            int n1 = ((IntValue) x).val;
+            int n2 = ((IntValue) y).val;
+            /* The following line was originally
+             *      long res = n1 * n2
+             * which was wrong because in Java, * for ints  multiplication mod
+             * 2^n for some n.  I'm not sure the new code is correct, but it's
+             * at least better.  Modified by LL on 10 Jul 2009.
+             */
+            long res = ((long) n1) * ((long) n2);
+            if (-2147483648 > res || res > 2147483647)
+            {
+                return BigIntValue.gen(res);
+            }
+            return IntValue.gen((int) res);
+        }
+        return BigIntValue.gen(toBigInteger(x, "first", "*").multiply(toBigInteger(y, "second", "*")));
+    }
+
     public static IBoolValue LT(Value x, Value y)
     {
-        if (!(x instanceof IntValue))
+        if (!BigIntValue.isInteger(x))
         {
             throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR_AN, new String[] { "first", "<", "integer",
                     Values.ppr(x.toString()) });
         }
-        if (!(y instanceof IntValue))
+        if (!BigIntValue.isInteger(y))
         {
             throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR_AN, new String[] { "second", "<", "integer",
                     Values.ppr(y.toString()) });
         }
 
-        return (((IntValue) x).val < ((IntValue) y).val) ? BoolValue.ValTrue : BoolValue.ValFalse;
+        return (BigIntValue.compare(x, y) < 0) ? BoolValue.ValTrue : BoolValue.ValFalse;
     }
 
     public static IBoolValue LE(Value x, Value y)
     {
-        if (!(x instanceof IntValue))
+        if (!BigIntValue.isInteger(x))
         {
             throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR_AN, new String[] { "first", "<=", "integer",
                     Values.ppr(x.toString()) });
         }
-        if (!(y instanceof IntValue))
+        if (!BigIntValue.isInteger(y))
         {
             throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR_AN, new String[] { "second", "<=", "integer",
                     Values.ppr(y.toString()) });
         }
 
-        return (((IntValue) x).val <= ((IntValue) y).val) ? BoolValue.ValTrue : BoolValue.ValFalse;
+        return (BigIntValue.compare(x, y) <= 0) ? BoolValue.ValTrue : BoolValue.ValFalse;
     }
 
     public static IBoolValue GT(Value x, Value y)
     {
-        if (!(x instanceof IntValue))
+        if (!BigIntValue.isInteger(x))
         {
             throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR_AN, new String[] { "first", ">", "integer",
                     Values.ppr(x.toString()) });
         }
-        if (!(y instanceof IntValue))
+        if (!BigIntValue.isInteger(y))
         {
             // On 21 May 2012 LL corrected following call, which was reporting the first argument.
             throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR_AN, new String[] { "second", ">", "integer",
                     Values.ppr(y.toString()) });
         }
 
-        return (((IntValue) x).val > ((IntValue) y).val) ? BoolValue.ValTrue : BoolValue.ValFalse;
+        return (BigIntValue.compare(x, y) > 0) ? BoolValue.ValTrue : BoolValue.ValFalse;
     }
 
     public static IBoolValue GEQ(Value x, Value y)
     {
-        if (!(x instanceof IntValue))
+        if (!BigIntValue.isInteger(x))
         {
             throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR_AN, new String[] { "first", ">", "integer",
                     Values.ppr(x.toString()) });
         }
-        if (!(y instanceof IntValue))
+        if (!BigIntValue.isInteger(y))
         {
             // On 21 May 2012 LL corrected following call, which was reporting the first argument.
             throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR_AN, new String[] { "second", ">", "integer",
                     Values.ppr(y.toString()) });
         }
 
-        return (((IntValue) x).val >= ((IntValue) y).val) ? BoolValue.ValTrue : BoolValue.ValFalse;
+        return (BigIntValue.compare(x, y) >= 0) ? BoolValue.ValTrue : BoolValue.ValFalse;
     }
 
     public static IntervalValue DotDot(IntValue x, IntValue y)
@@ -177,6 +248,42 @@ public class Naturals extends UserObj implements ValueConstants
         return IntValue.gen(q);
     }
 
+    public static Value BigDivide(Value x, Value y)
+    {
+        if (x instanceof IntValue && y instanceof IntValue)
+        {
+            int n1 = ((IntValue) x).val;
+            int n2 = ((IntValue) y).val;
+            if (n2 == 0)
+            {
+                throw new EvalException(EC.TLC_MODULE_DIVISION_BY_ZERO);
+            }
+            int q = n1 / n2;
+            if ((q < 0) && (q * n2 != n1))
+                q--;
+            return IntValue.gen(q);
+        }
+        return BigIntValue.gen(floorDiv(toBigInteger(x, "first", "\\div"), toBigInteger(y, "second", "\\div")));
+    }
+
+    /**
+     * @return The quotient of n1 and n2 rounded towards negative infinity (see
+     *         Divide).
+     */
+    static BigInteger floorDiv(BigInteger n1, BigInteger n2)
+    {
+        if (n2.signum() == 0)
+        {
+            throw new EvalException(EC.TLC_MODULE_DIVISION_BY_ZERO);
+        }
+        BigInteger[] qr = n1.divideAndRemainder(n2);
+        if (qr[1].signum() != 0 && (qr[1].signum() != n2.signum()))
+        {
+            return qr[0].subtract(BigInteger.ONE);
+        }
+        return qr[0];
+    }
+
     public static IntValue Mod(IntValue x, IntValue y)
     {
         int n1 = x.val;
@@ -190,6 +297,30 @@ public class Naturals extends UserObj implements ValueConstants
         return IntValue.gen(r < 0 ? (r + n2) : r);
     }
 
+    public static Value BigMod(Value x, Value y)
+    {
+        if (x instanceof IntValue && y instanceof IntValue)
+        {
+            int n1 = ((IntValue) x).val;
+            int n2 = ((IntValue) y).val;
+            if (n2 <= 0)
+            {
+                throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR, new String[] { "second", "%", "positive number",
+                        String.valueOf(n2) });
+            }
+            int r = n1 % n2;
+            return IntValue.gen(r < 0 ? (r + n2) : r);
+        }
+        BigInteger n1 = toBigInteger(x, "first", "%");
+        BigInteger n2 = toBigInteger(y, "second", "%");
+        if (n2.signum() <= 0)
+        {
+            throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR, new String[] { "second", "%", "positive number",
+                    n2.toString() });
+        }
+        return BigIntValue.gen(n1.mod(n2));
+    }
+
     public static IntValue Expt(IntValue x, IntValue y)
     {
         int n1 = x.val;
@@ -219,6 +350,76 @@ public class Naturals extends UserObj implements ValueConstants
         return IntValue.gen((int) res);
     }
 
+    public static Value BigExpt(Value x, Value y)
+    {
+        if (x instanceof IntValue && y instanceof IntValue)
+        {
+            int n1 = ((IntValue) x).val;
+            int n2 = ((IntValue) y).val;
+            if (n2 < 0)
+            {
+                throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR, new String[] { "second", "^", "natural number",
+                        String.valueOf(n2) });
+            }
+            if (n2 == 0)
+            {
+                if (n1 == 0)
+                {
+                    throw new EvalException(EC.TLC_MODULE_NULL_POWER_NULL);
+                }
+                return IntValue.ValOne;
+            }
+            long res = n1;
+            for (int i = 1; i < n2; i++)
+            {
+                res *= n1;
+                if (res < -2147483648 || res > 2147483647)
+                {
+                    return BigIntValue.gen(BigInteger.valueOf(n1).pow(n2));
+                }
+            }
+            return IntValue.gen((int) res);
+        }
+        BigInteger n1 = toBigInteger(x, "first", "^");
+        BigInteger n2 = toBigInteger(y, "second", "^");
+        if (n2.signum() < 0)
+        {
+            throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR, new String[] { "second", "^", "natural number",
+                    n2.toString() });
+        }
+        if (n2.signum() == 0)
+        {
+            if (n1.signum() == 0)
+            {
+                throw new EvalException(EC.TLC_MODULE_NULL_POWER_NULL);
+            }
+            return IntValue.ValOne;
+        }
+        if (n2.bitLength() >= Integer.SIZE)
+        {
+            // Unless n1 is 0, 1, or -1, the power would not fit into memory.
+            if (n1.abs().compareTo(BigInteger.ONE) > 0)
+            {
+                throw new EvalException(EC.TLC_MODULE_OVERFLOW, n1 + "^" + n2);
+            }
+            return IntValue.gen(n1.signum() >= 0 ? n1.signum() : (n2.testBit(0) ? -1 : 1));
+        }
+        return BigIntValue.gen(n1.pow(n2.intValue()));
+    }
+
+    /**
+     * @return The integer val (see BigIntValue#isInteger) as a BigInteger.
+     */
+    static BigInteger toBigInteger(Value val, String position, String op)
+    {
+        if (!BigIntValue.isInteger(val))
+        {
+            throw new EvalException(EC.TLC_MODULE_ARGUMENT_ERROR_AN, new String[] { position, op, "integer",
+                    Values.ppr(val.toString()) });
+        }
+        return BigIntValue.toBigInteger(val);
+    }
+
     @Override
     public final int compareTo(Value val)
     {
@@ -243,6 +444,8 @@ public class Naturals extends UserObj implements ValueConstants
     {
         if (val instanceof IntValue)
             return ((IntValue) val).val >= 0;
+        if (val instanceof BigIntValue)
+            return ((BigIntValue) val).val.signum() >= 0;
         if (val instanceof ModelValue)
             return ((ModelValue) val).modelValueMember(this);
 
@@ -14,12 +14,14 @@ import tlc2.value.ValueConstants;
 import tlc2.value.Values;
 import tlc2.value.impl.Applicable;
 import tlc2.value.impl.BoolValue;
+import tlc2.value.impl.IntTupleValue;
 import tlc2.value.impl.IntValue;
 import tlc2.value.impl.ModelValue;
 import tlc2.value.impl.OpLambdaValue;
 import tlc2.value.impl.OpRcdValue;
 import tlc2.value.impl.StringValue;
 import tlc2.value.impl.TupleValue;
+import tlc2.value.impl.TupleViewValue;
 import tlc2.value.impl.UserObj;
 import tlc2.value.impl.UserValue;
 import tlc2.value.impl.Value;
@@ -61,6 +63,14 @@ public class Sequences extends UserObj implements ValueConstants
         {
             return IntValue.gen(((StringValue) s).length());
         }
+        if (s instanceof IntTupleValue)
+        {
+            return IntValue.gen(((IntTupleValue) s).size());
+        }
+        if (s instanceof TupleViewValue)
+        {
+            return IntValue.gen(((TupleViewValue) s).size());
+        }
 
         TupleValue seq = (TupleValue) s.toTuple();
         if (seq != null)
@@ -81,6 +91,12 @@ public class Sequences extends UserObj implements ValueConstants
     		}
     		return new StringValue(str.substring(0,1));
     	}
+    	if (s instanceof IntTupleValue) {
+    		return IntValue.gen(((IntTupleValue) s).elemAt(0));
+    	}
+    	if (s instanceof TupleViewValue) {
+    		return ((TupleViewValue) s).elemAt(0);
+    	}
     	
         TupleValue seq = (TupleValue) s.toTuple();
         if (seq != null)
@@ -105,6 +121,13 @@ public class Sequences extends UserObj implements ValueConstants
     		}
     		return new StringValue(str.substring(1));
     	}
+    	if (s instanceof IntTupleValue) {
+    		final IntTupleValue seq = (IntTupleValue) s;
+    		return seq.sub(1, seq.size());
+    	}
+    	if (s instanceof TupleViewValue) {
+    		return ((TupleViewValue) s).tail();
+    	}
     	
         TupleValue seq = (TupleValue) s.toTuple();
         if (seq != null)
@@ -113,6 +136,10 @@ public class Sequences extends UserObj implements ValueConstants
             {
                 throw new EvalException(EC.TLC_MODULE_APPLY_EMPTY_SEQ, "Tail");
             }
+            if (TupleViewValue.ENABLED)
+            {
+                return TupleViewValue.tail(seq);
+            }
             int len = seq.size();
             Value[] vals = new Value[len - 1];
             System.arraycopy(seq.elems, 1, vals, 0, vals.length);
@@ -124,6 +151,10 @@ public class Sequences extends UserObj implements ValueConstants
 
     public static Value Cons(Value v, Value s)
     {
+        if (s instanceof IntTupleValue && v instanceof IntValue)
+        {
+            return ((IntTupleValue) s).cons(((IntValue) v).val);
+        }
         TupleValue seq = (TupleValue) s.toTuple();
         if (seq == null)
         {
@@ -151,6 +182,21 @@ public class Sequences extends UserObj implements ValueConstants
             UniqueString u2 = ((StringValue) v).val;
             return new StringValue(u1.concat(u2));
         }
+        if (v instanceof IntValue)
+        {
+            if (s instanceof IntTupleValue)
+            {
+                return ((IntTupleValue) s).append(((IntValue) v).val);
+            }
+            if (IntTupleValue.ENABLED && s instanceof TupleValue && ((TupleValue) s).size() == 0)
+            {
+                return IntTupleValue.of(new Value[] { v }, null);
+            }
+        }
+        if (s instanceof TupleViewValue)
+        {
+            return ((TupleViewValue) s).append(v);
+        }
         
         TupleValue seq = (TupleValue) s.toTuple();
         if (seq == null)
@@ -158,6 +204,10 @@ public class Sequences extends UserObj implements ValueConstants
             throw new EvalException(EC.TLC_MODULE_EVALUATING, new String[] { "Append(v, s)", "sequence",
                     Values.ppr(s.toString()) });
         }
+        if (TupleViewValue.ENABLED)
+        {
+            return TupleViewValue.concat(seq, new Value[] { v });
+        }
         int len = seq.size();
         Value[] values = new Value[len + 1];
         System.arraycopy(seq.elems, 0, values, 0, len);
@@ -178,6 +228,22 @@ public class Sequences extends UserObj implements ValueConstants
             UniqueString u2 = ((StringValue) s2).val;
             return new StringValue(u1.concat(u2));
         }
+        if (s1 instanceof IntTupleValue && s2 instanceof IntTupleValue)
+        {
+            return IntTupleValue.concat((IntTupleValue) s1, (IntTupleValue) s2);
+        }
+        if (s1 instanceof TupleViewValue)
+        {
+            TupleValue seq2 = (TupleValue) s2.toTuple();
+            if (seq2 == null)
+            {
+                throw new EvalException(EC.TLC_MODULE_EVALUATING, new String[] { "t \\o s", "sequence",
+                        Values.ppr(s2.toString()) });
+            }
+            if (seq2.size() == 0)
+                return s1;
+            return ((TupleViewValue) s1).concat(seq2.elems);
+        }
 
         TupleValue seq1 = (TupleValue) s1.toTuple();
         if (seq1 == null)
@@ -197,6 +263,10 @@ public class Sequences extends UserObj implements ValueConstants
             return seq2;
         if (len2 == 0)
             return seq1;
+        if (TupleViewValue.ENABLED)
+        {
+            return TupleViewValue.concat(seq1, seq2.elems);
+        }
         Value[] values = new Value[len1 + len2];
         for (int i = 0; i < len1; i++)
         {
@@ -291,7 +361,10 @@ public class Sequences extends UserObj implements ValueConstants
     		isString = true ;
     	}
     	
-    	if (! isString) {
+    	if (s instanceof IntTupleValue) {
+    		// Validates the arguments below as if s was a TupleValue.
+    		seq = (TupleValue) s.toTuple();
+    	} else if (! isString && !(s instanceof TupleViewValue)) {
           seq = (TupleValue) s.toTuple();
           if (seq == null)
           {
@@ -321,7 +394,7 @@ public class Sequences extends UserObj implements ValueConstants
         	}
         }
         
-        int len = isString ? str.length() : seq.size();
+        int len = isString ? str.length() : s instanceof TupleViewValue ? ((TupleViewValue) s).size() : seq.size();
         int sublen = end - beg + 1;
         if (beg < 1 || beg > len)
         {
@@ -338,6 +411,15 @@ public class Sequences extends UserObj implements ValueConstants
         if (isString) {
         	return new StringValue(str.substring(beg-1,end));
         }
+        if (s instanceof IntTupleValue) {
+        	return ((IntTupleValue) s).sub(beg - 1, end);
+        }
+        if (s instanceof TupleViewValue) {
+        	return ((TupleViewValue) s).sub(beg - 1, end);
+        }
+        if (TupleViewValue.ENABLED) {
+        	return TupleViewValue.sub(seq, beg - 1, end);
+        }
         Value[] elems = new Value[sublen];
         for (int i = 0; i < sublen; i++)
         {
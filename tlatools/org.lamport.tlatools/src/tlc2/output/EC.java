@@ -199,6 +199,11 @@ public interface EC
     public static final int TLC_MODE_SIMU = 2188;
     public static final int TLC_COMPUTING_INIT = 2189;
 	public static final int TLC_COMPUTING_INIT_PROGRESS = 2269;
+    public static final int TLC_CONSTANT_FOLDING = 2781;
+    public static final int TLC_ACTION_INDEX = 2782;
+    public static final int TLC_OP_MEMO = 2783;
+    public static final int TLC_LAZY_VALUE_CACHE = 2784;
+    public static final int TLC_INCREMENTAL_INVARIANTS = 2785;
     public static final int TLC_INIT_GENERATED1 = 2190;
     public static final int TLC_INIT_GENERATED2 = 2191;
     public static final int TLC_INIT_GENERATED3 = 2207;
@@ -215,6 +220,8 @@ public interface EC
     public static final int TLC_STATS = 2199;
     public static final int TLC_STATS_DFID = 2204;
     public static final int TLC_STATS_SIMU = 2210;
+    public static final int TLC_STATS_INVARIANT_SKIPPED = 2779;
+    public static final int TLC_STATS_VALUE_INTERNER = 2780;
     public static final int TLC_PROGRESS_STATS = 2200;
     public static final int TLC_COVERAGE_START = 2201;
     public static final int TLC_COVERAGE_END = 2202;
@@ -253,6 +260,7 @@ public interface EC
     public static final int TLC_COVERAGE_INIT = 2773;
     public static final int TLC_COVERAGE_PROPERTY = 2774;
     public static final int TLC_COVERAGE_END_OVERHEAD = 2777;
+    public static final int TLC_COVERAGE_MEMO = 2778;
     
     // config file errors
     public static final int TLC_CONFIG_VALUE_NOT_ASSIGNED_TO_CONSTANT_PARAM = 2222;
@@ -1005,6 +1005,21 @@ public class MP
         case EC.TLC_COMPUTING_INIT_PROGRESS:
             b.append("Computed %1% initial states...");
             break;
+        case EC.TLC_CONSTANT_FOLDING:
+            b.append("Folded %1% constant subexpressions of the next-state relation.");
+            break;
+        case EC.TLC_ACTION_INDEX:
+            b.append("Indexed %1% of %2% actions by their guards.");
+            break;
+        case EC.TLC_OP_MEMO:
+            b.append("Memoizing the applications of %1% operators.");
+            break;
+        case EC.TLC_LAZY_VALUE_CACHE:
+            b.append("Caching the values of %1% LET definitions.");
+            break;
+        case EC.TLC_INCREMENTAL_INVARIANTS:
+            b.append("Skipping the invariants unaffected by %1% of %2% actions.");
+            break;
         case EC.TLC_INIT_GENERATED1:
 			b.append("Finished computing initial states: %1% distinct state%2% generated at ")
 					.append(now()).append(".");
@@ -1063,6 +1078,12 @@ public class MP
         case EC.TLC_STATS:
             b.append("%1% states generated, %2% distinct states found, %3% states left on queue.");
             break;
+        case EC.TLC_STATS_INVARIANT_SKIPPED:
+            b.append("Skipped %2% evaluations of invariant %1% because the variables it reads were unchanged.");
+            break;
+        case EC.TLC_STATS_VALUE_INTERNER:
+            b.append("Interned the values of new states: %1% hits, %2% misses, %3% canonical values, approx. %4% MB saved.");
+            break;
         case EC.TLC_STATS_DFID:
             b.append("%1% states generated, %2% distinct states found.");
             break;
@@ -1128,6 +1149,9 @@ public class MP
 			b.append(
 					"CostModel lookup failed for expression <%1%>. Reporting costs into <%2%> instead (Safety and Liveness checking is unaffected. Please report a bug.)");
         	break;
+        case EC.TLC_COVERAGE_MEMO:
+            b.append("Memoized %1%: %2% hits, %3% misses");
+            break;
         case EC.TLC_COVERAGE_END:
             b.append("End of statistics.");
             break;
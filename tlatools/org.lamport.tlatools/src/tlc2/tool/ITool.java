@@ -36,6 +36,7 @@ import tla2sany.semantic.OpDefNode;
 import tla2sany.semantic.SemanticNode;
 import tla2sany.semantic.SymbolNode;
 import tlc2.tool.coverage.CostModel;
+import tlc2.tool.impl.IncrementalInvariants;
 import tlc2.tool.impl.ModelConfig;
 import tlc2.util.Context;
 import tlc2.util.ObjLongTable;
@@ -245,4 +246,16 @@ public interface ITool extends TraceApp {
 
 	ModelConfig getModelConfig();
 
+	/**
+	 * Prints the hits and misses of the memoized operator applications and LET
+	 * definitions (if any are memoized at all).
+	 */
+	void reportMemoized();
+
+	/**
+	 * @return The invariants each action leaves unaffected, or null unless
+	 *         IncrementalInvariants.ENABLED.
+	 */
+	IncrementalInvariants getIncrementalInvariants();
+
 }
\ No newline at end of file
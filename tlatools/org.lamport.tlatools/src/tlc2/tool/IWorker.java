@@ -11,6 +11,7 @@ public interface IWorker
 {
 	/**
 	 * @return A worker's id in the range 0 to {@link TLCGlobals#getNumWorkers()} - 1
+	 *         (the threads of {@link ParallelInvariants} follow the workers)
 	 */
 	public int myGetId();
 	
@@ -30,6 +30,7 @@ import tlc2.tool.queue.IStateQueue;
 import tlc2.util.IStateWriter;
 import tlc2.util.SetOfStates;
 import tlc2.util.statistics.BucketStatistics;
+import tlc2.value.impl.ValueInterner;
 import util.Assert;
 import util.DebugPrinter;
 import util.FileUtil;
@@ -462,6 +463,11 @@ public class ModelChecker extends AbstractChecker
 		this.allStateWriter.writeState(curState, succState, !seen, action);
 		if (!seen)
 		{
+			if (ValueInterner.ENABLED) {
+				// Share the values of the new state with equal values of other states
+				// before the state gets enqueued.
+				succState.internValues();
+			}
 			// Write succState to trace only if it satisfies the
 			// model constraints. Do not enqueue it yet, but wait
 		    // for implied actions and invariants to be checked.
@@ -842,6 +848,15 @@ public class ModelChecker extends AbstractChecker
 
         MP.printMessage(EC.TLC_STATS, new String[] { String.valueOf(getStatesGenerated()),
                 String.valueOf(this.theFPSet.size()), String.valueOf(this.theStateQueue.size()) });
+        if (ValueInterner.ENABLED) {
+        	final ValueInterner interner = ValueInterner.getInstance();
+        	MP.printMessage(EC.TLC_STATS_VALUE_INTERNER, String.valueOf(interner.getHits()),
+        			String.valueOf(interner.getMisses()), String.valueOf(interner.size()),
+        			String.valueOf(interner.getBytesSaved() / (1024L * 1024L)));
+        }
+        if (this.tool.getIncrementalInvariants() != null) {
+        	this.tool.getIncrementalInvariants().report();
+        }
         if (success)
         {
             MP.printMessage(EC.TLC_SEARCH_DEPTH, String.valueOf(this.trace.getLevelForReporting()));
@@ -1122,6 +1137,9 @@ public class ModelChecker extends AbstractChecker
 					long fp = curState.fingerPrint();
 					seen = theFPSet.put(fp);
 					if (!seen) {
+						if (ValueInterner.ENABLED) {
+							curState.internValues();
+						}
 						allStateWriter.writeState(curState);
 						((Worker) workers[0]).writeState(curState, fp);
 						theStateQueue.enqueue(curState);
@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import tla2sany.semantic.OpApplNode;
+import tla2sany.semantic.OpArgNode;
+import tla2sany.semantic.SemanticNode;
+import tla2sany.semantic.SymbolNode;
+import tlc2.TLCGlobals;
+import tlc2.util.IdThread;
+import tlc2.value.impl.LazyValue;
+
+/**
+ * Evaluates the invariants and implied actions of the successors of a state in
+ * parallel with the generation of further successors: Worker#addElement
+ * submits the checks of a successor to a bounded executor (shared by all
+ * workers) instead of evaluating them itself. Once all successors of the state
+ * have been generated, the worker joins the checks in the order in which the
+ * successors were generated, and only then enqueues the successors (see
+ * Worker#doNextCheckPending). If a check fails (or cannot be evaluated by the
+ * executor), the worker evaluates the invariants and implied actions of the
+ * successor again itself to report the violation (or error) exactly as it
+ * does without the executor. Thus, a worker reports the same violation as
+ * before, and no other worker explores a successor before its checks
+ * completed.
+ * <p>
+ * If the executor's queue is full, a worker evaluates the checks itself.
+ * Invariants are evaluated by the worker if coverage is enabled or if they
+ * apply TLCGet or TLCSet, whose registers belong to the worker.
+ * <p>
+ * The threads of the executor are IWorkers whose ids follow the ids of the
+ * workers, so that each of them evaluates its own copy of the values in the
+ * semantic graph (see WorkerValue).
+ * <p>
+ * Enable with -Dtlc2.tool.ParallelInvariants.enabled=true (and set the number
+ * of threads of the executor with
+ * -Dtlc2.tool.ParallelInvariants.threads=&lt;#cores&gt;)
+ */
+public final class ParallelInvariants {
+
+	static final boolean ENABLED = Boolean.getBoolean(ParallelInvariants.class.getName() + ".enabled");
+
+	private static final int THREADS = Integer.getInteger(ParallelInvariants.class.getName() + ".threads",
+			Runtime.getRuntime().availableProcessors());
+
+	private static final ExecutorService EXECUTOR = ENABLED ? newExecutor() : null;
+
+	private static ExecutorService newExecutor() {
+		final AtomicInteger id = new AtomicInteger();
+		return new ThreadPoolExecutor(THREADS, THREADS, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(THREADS * 64), r -> {
+					final int k = id.getAndIncrement();
+					final Thread t = new Checker(r, "TLC Invariant Checker " + k, TLCGlobals.getNumWorkers() + k);
+					t.setDaemon(true);
+					return t;
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	/**
+	 * @return The number of threads that check invariants in addition to the
+	 *         workers, i.e. the number of ids beyond those of the workers.
+	 */
+	public static int getNumThreads() {
+		return ENABLED ? THREADS : 0;
+	}
+
+	private static final class Checker extends IdThread implements IWorker {
+		Checker(final Runnable runnable, final String name, final int id) {
+			super(runnable, name, id);
+		}
+	}
+
+	private static final Set<String> REGISTERS = new HashSet<>(Arrays.asList("TLCGet", "TLCSet"));
+
+	/**
+	 * @return true iff the invariants or implied actions (transitively) apply
+	 *         TLCGet or TLCSet, which have to be evaluated by the worker that
+	 *         generated the successor.
+	 */
+	static boolean appliesRegisters(final ITool tool) {
+		final Set<SemanticNode> visited = new HashSet<>();
+		for (final Action action : tool.getInvariants()) {
+			if (appliesRegisters(tool.getId(), action, visited)) {
+				return true;
+			}
+		}
+		for (final Action action : tool.getImpliedActions()) {
+			if (appliesRegisters(tool.getId(), action, visited)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean appliesRegisters(final int toolId, final Action action, final Set<SemanticNode> visited) {
+		if (appliesRegisters(toolId, action.pred, visited)) {
+			return true;
+		}
+		return action.con.lookupName(name -> {
+			final Object val = name == null ? null : action.con.lookup(name);
+			return val instanceof LazyValue && appliesRegisters(toolId, ((LazyValue) val).expr, visited);
+		}) != null;
+	}
+
+	private static boolean appliesRegisters(final int toolId, final SemanticNode node, final Set<SemanticNode> visited) {
+		if (node == null || !visited.add(node)) {
+			return false;
+		}
+		SymbolNode opNode = null;
+		if (node instanceof OpApplNode) {
+			opNode = ((OpApplNode) node).getOperator();
+		} else if (node instanceof OpArgNode) {
+			opNode = ((OpArgNode) node).getOp();
+		}
+		if (opNode != null) {
+			// The name of an operator of an instantiated module is prefixed with the
+			// name of the instance (I!TLCGet).
+			final String name = opNode.getName().toString();
+			if (REGISTERS.contains(name.substring(name.lastIndexOf('!') + 1))) {
+				return true;
+			}
+			// The definition of opNode or the definition substituted for it by the
+			// config file.
+			final Object subst = opNode.getToolObject(toolId);
+			if (appliesRegisters(toolId, opNode, visited)
+					|| (subst instanceof SemanticNode && appliesRegisters(toolId, (SemanticNode) subst, visited))) {
+				return true;
+			}
+		}
+		final SemanticNode[] children = node.getChildren();
+		if (children != null) {
+			for (final SemanticNode child : children) {
+				if (appliesRegisters(toolId, child, visited)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A successor whose invariants (iff unseen) and implied actions are being
+	 * checked.
+	 */
+	static final class Pending {
+		final TLCState succState;
+		/**
+		 * The invariants (by index) to be skipped, or null.
+		 */
+		final boolean[] unaffected;
+		final boolean unseen;
+		/**
+		 * True iff succState is to be enqueued once the checks completed.
+		 */
+		final boolean enqueue;
+		private final Future<Boolean> valid;
+
+		private Pending(final TLCState succState, final boolean[] unaffected, final boolean unseen,
+				final boolean enqueue, final Future<Boolean> valid) {
+			this.succState = succState;
+			this.unaffected = unaffected;
+			this.unseen = unseen;
+			this.enqueue = enqueue;
+			this.valid = valid;
+		}
+
+		/**
+		 * @return true iff the invariants and implied actions hold, false if they
+		 *         do not or if they could not be evaluated.
+		 */
+		boolean isValid() {
+			try {
+				return this.valid.get();
+			} catch (ExecutionException e) {
+				return false;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+	}
+
+	private final ITool tool;
+
+	private final List<Pending> pending = new ArrayList<>();
+
+	ParallelInvariants(final ITool tool) {
+		this.tool = tool;
+	}
+
+	/**
+	 * @return true iff the checks of succState have to be submitted, i.e. it has
+	 *         invariants or implied actions to be checked.
+	 */
+	boolean isRequired(final boolean unseen) {
+		return (unseen && this.tool.getInvariants().length > 0) || this.tool.getImpliedActions().length > 0;
+	}
+
+	void submit(final TLCState curState, final TLCState succState, final boolean[] unaffected,
+			final boolean unseen, final boolean enqueue) {
+		final Future<Boolean> valid = EXECUTOR.submit(() -> isValid(curState, succState, unaffected, unseen));
+		this.pending.add(new Pending(succState, unaffected, unseen, enqueue, valid));
+	}
+
+	private boolean isValid(final TLCState curState, final TLCState succState, final boolean[] unaffected,
+			final boolean unseen) {
+		// Seed RandomElement & co. with curState as the worker does.
+		final TLCState state = IdThread.resetCurrentState();
+		IdThread.setCurrentState(curState);
+		try {
+			if (unseen) {
+				final Action[] invariants = this.tool.getInvariants();
+				for (int k = 0; k < invariants.length; k++) {
+					if (unaffected != null && unaffected[k]) {
+						this.tool.getIncrementalInvariants().skipped(k);
+					} else if (!this.tool.isValid(invariants[k], succState)) {
+						return false;
+					}
+				}
+			}
+			for (final Action implied : this.tool.getImpliedActions()) {
+				if (!this.tool.isValid(implied, curState, succState)) {
+					return false;
+				}
+			}
+			return true;
+		} catch (RuntimeException e) {
+			// Leave it to the worker to report the error.
+			return false;
+		} finally {
+			// Restore the current state of the worker if the executor's queue was full.
+			IdThread.setCurrentState(state);
+		}
+	}
+
+	/**
+	 * @return The pending checks in the order of their submission, which are
+	 *         thereby no longer pending.
+	 */
+	List<Pending> drain() {
+		if (this.pending.isEmpty()) {
+			return this.pending;
+		}
+		final List<Pending> res = new ArrayList<>(this.pending);
+		this.pending.clear();
+		return res;
+	}
+}
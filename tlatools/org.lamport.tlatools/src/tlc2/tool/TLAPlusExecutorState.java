@@ -222,6 +222,18 @@ public final class TLAPlusExecutorState extends TLCState {
 			IValue[] minVals = this.values;
 			if (perms != null) {
 				IValue[] vals = new IValue[sz];
+				// A permutation that maps all model values of a variable's value onto
+				// themselves leaves the value unchanged. Thus, the value neither has to be
+				// permuted nor compared to its minimum. Furthermore, two permutations that
+				// agree on the model values of a variable's value permute it into the same
+				// value; lastPerms and lastVals allow us to reuse the previous outcome when
+				// subsequent perms only differ in other symmetry sets.
+				final long[] masks = new long[sz];
+				for (int j = 0; j < sz; j++) {
+					masks[j] = this.values[j].getModelValueMask();
+				}
+				final IMVPerm[] lastPerms = new IMVPerm[sz];
+				final IValue[] lastVals = new IValue[sz];
 				// The following for loop converges to the smallest state ss under symmetry by
 				// looping over all permutations applying each. If the outcome turns out to be
 				// lexicographically smaller than the currently smallest, it replaces the
@@ -232,13 +244,21 @@ public final class TLAPlusExecutorState extends TLCState {
 					// For each value in values succinctly permute the current value
 					// and compare it to its corresponding minValue in minVals.
 					for (int j = 0; j < sz; j++) {
-						vals[j] = this.values[j].permute(perms[i]);
+						if (perms[i].isIdentityOn(masks[j])) {
+							vals[j] = this.values[j];
+						} else if (lastPerms[j] != null && perms[i].agreesOn(lastPerms[j], masks[j])) {
+							vals[j] = lastVals[j];
+						} else {
+							vals[j] = this.values[j].permute(perms[i]);
+							lastPerms[j] = perms[i];
+							lastVals[j] = vals[j];
+						}
 						if (cmp == 0) {
 							// Only compare unless an earlier compare has found a
 							// difference already (if a difference has been found
 							// earlier, still permute the remaining values of the
 							// state to fully permute all state values).
-							cmp = vals[j].compareTo(minVals[j]);
+							cmp = vals[j] == minVals[j] ? 0 : vals[j].compareTo(minVals[j]);
 							if (cmp > 0) {
 								// When cmp evaluates to >0, all subsequent
 								// applications of perms[i] for the remaining values
@@ -79,6 +79,24 @@ public abstract class TLCState implements Cloneable, Serializable {
   public abstract boolean allAssigned();
   public abstract Set<OpDeclNode> getUnassigned();
   public abstract TLCState createEmpty();
+
+  /**
+   * Replaces the values of this state with their canonical instances (see
+   * tlc2.value.impl.ValueInterner) to share them with other states. Must only
+   * be called after fingerPrint has normalized the values.
+   */
+  public void internValues() {
+	  // no-op by default
+  }
+  
+  /**
+   * Tells this state that it will no longer be used (not even read) by whoever
+   * released it, which allows a copy of it to reuse its resources (see
+   * TLCStateMut#COW).
+   */
+  public void release() {
+	  // no-op by default
+  }
   
   /** 
    * Returns a mapping of variable names to their assigned values in this state.
@@ -22,6 +22,7 @@ import tlc2.value.IValue;
 import tlc2.value.IValueInputStream;
 import tlc2.value.IValueOutputStream;
 import tlc2.value.Values;
+import tlc2.value.impl.ValueInterner;
 import util.UniqueString;
 import util.WrongInvocationException;
 
@@ -34,7 +35,37 @@ import util.WrongInvocationException;
  * The viewMap was added by Rajeev Joshi.
  */
 public final class TLCStateMut extends TLCState implements Cloneable, Serializable {
+  /**
+   * Copy-on-write: Tool#getNextStates hands a successor state to its
+   * INextStateFunctor and continues with a copy of it, which, without
+   * copy-on-write, duplicates the values array for every generated successor.
+   * With copy-on-write, the copy shares the values array with the original
+   * until either of them is modified first. A functor that does not retain the
+   * successor (e.g. Worker because the successor has been seen before) releases
+   * it (see TLCState#release), in which case the copy takes over the values
+   * array and modifies it in place. Thus, the values array is only duplicated
+   * for the successors that are actually retained.
+   * <p>
+   * Enable with -Dtlc2.tool.TLCStateMut.cow=true
+   */
+  public static final boolean COW = Boolean.getBoolean(TLCStateMut.class.getName() + ".cow");
+
+  /**
+   * The states (at most two) sharing the values array of a copy-on-write copy.
+   */
+  private static final class Share {
+	  private int count = 2;
+  }
+
   private IValue values[];
+  /**
+   * Non-null iff this state (possibly) shares its values array with another one.
+   */
+  private transient Share share;
+  /**
+   * True iff this state has been released, i.e. only its copies will be used.
+   */
+  private transient boolean released;
   private static ITool mytool = null;
 
   /**
@@ -100,6 +131,7 @@ public final class TLCStateMut extends TLCState implements Cloneable, Serializab
   public final TLCState bind(UniqueString name, IValue value) {
 	  // Note, tla2sany.semantic.OpApplNode.toString(Value) relies on this ordering.
     int loc = name.getVarLoc();
+    if (this.share != null) { this.unshare(); }
     this.values[loc] = value;
     return this;
   }
@@ -110,10 +142,28 @@ public final class TLCStateMut extends TLCState implements Cloneable, Serializab
   
   public final TLCState unbind(UniqueString name) {
     int loc = name.getVarLoc();
+    if (this.share != null) { this.unshare(); }
     this.values[loc] = null;
     return this;
   }
 
+  /**
+   * Gives this state its own values array unless the state sharing it has been
+   * modified (thus no longer shares it) already.
+   */
+  private final void unshare() {
+    if (this.share.count > 1) {
+      this.values = this.values.clone();
+    }
+    this.share.count--;
+    this.share = null;
+  }
+
+  @Override
+  public final void release() {
+    this.released = true;
+  }
+
   public final IValue lookup(UniqueString var) {
     int loc = var.getVarLoc();
     if (loc < 0) return null;
@@ -125,6 +175,23 @@ public final class TLCStateMut extends TLCState implements Cloneable, Serializab
   }
 
   public final TLCState copy() {
+    if (COW) {
+      final TLCStateMut copy = new TLCStateMut(this.values);
+      if (this.released) {
+        // Nobody but the copy will use this state again, thus hand over its
+        // values array (and its share if any).
+        copy.share = this.share;
+        this.share = null;
+        return copy;
+      }
+      if (this.share != null) {
+        // Still shares its values array with another state.
+        this.unshare();
+        copy.values = this.values;
+      }
+      this.share = copy.share = new Share();
+      return copy;
+    }
     int len = this.values.length;
     IValue[] vals = new IValue[len];
     for (int i = 0; i < len; i++) {
@@ -203,6 +270,18 @@ public final class TLCStateMut extends TLCState implements Cloneable, Serializab
 		IValue[] minVals = this.values;
 		if (perms != null) {
 			IValue[] vals = new IValue[sz];
+			// A permutation that maps all model values of a variable's value onto
+			// themselves leaves the value unchanged. Thus, the value neither has to be
+			// permuted nor compared to its minimum. Furthermore, two permutations that
+			// agree on the model values of a variable's value permute it into the same
+			// value; lastPerms and lastVals allow us to reuse the previous outcome when
+			// subsequent perms only differ in other symmetry sets.
+			final long[] masks = new long[sz];
+			for (int j = 0; j < sz; j++) {
+				masks[j] = this.values[j].getModelValueMask();
+			}
+			final IMVPerm[] lastPerms = new IMVPerm[sz];
+			final IValue[] lastVals = new IValue[sz];
 			// The following for loop converges to the smallest state ss under symmetry by
 			// looping over all permutations applying each. If the outcome turns out to be
 			// lexicographically smaller than the currently smallest, it replaces the
@@ -213,13 +292,21 @@ public final class TLCStateMut extends TLCState implements Cloneable, Serializab
 				// For each value in values succinctly permute the current value
 				// and compare it to its corresponding minValue in minVals.
 				for (int j = 0; j < sz; j++) {
-					vals[j] = this.values[j].permute(perms[i]);
+					if (perms[i].isIdentityOn(masks[j])) {
+						vals[j] = this.values[j];
+					} else if (lastPerms[j] != null && perms[i].agreesOn(lastPerms[j], masks[j])) {
+						vals[j] = lastVals[j];
+					} else {
+						vals[j] = this.values[j].permute(perms[i]);
+						lastPerms[j] = perms[i];
+						lastVals[j] = vals[j];
+					}
 					if (cmp == 0) {
 						// Only compare unless an earlier compare has found a
 						// difference already (if a difference has been found
 						// earlier, still permute the remaining values of the
 						// state to fully permute all state values).
-						cmp = vals[j].compareTo(minVals[j]);
+						cmp = vals[j] == minVals[j] ? 0 : vals[j].compareTo(minVals[j]);
 						if (cmp > 0) {
 							// When cmp evaluates to >0, all subsequent
 							// applications of perms[i] for the remaining values
@@ -270,6 +357,16 @@ public final class TLCStateMut extends TLCState implements Cloneable, Serializab
 		return fp;
 	}
 
+  @Override
+  public final void internValues() {
+    // Replaces values with equal ones, which does not have to be kept from a
+    // state sharing the values array.
+    final ValueInterner interner = ValueInterner.getInstance();
+    for (int i = 0; i < this.values.length; i++) {
+      this.values[i] = interner.intern(this.values[i]);
+    }
+  }
+
   public final boolean allAssigned() {
     int len = this.values.length;    
     for (int i = 0; i < len; i++) {
@@ -297,6 +394,7 @@ public final class TLCStateMut extends TLCState implements Cloneable, Serializab
 
   public final void read(IValueInputStream vis) throws IOException {
     super.read(vis);
+    if (this.share != null) { this.unshare(); }
     int len = this.values.length;
     for (int i = 0; i < len; i++) {
       this.values[i] = vis.read();
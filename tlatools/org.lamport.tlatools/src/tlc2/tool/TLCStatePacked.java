@@ -0,0 +1,588 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.TreeSet;
+
+import tla2sany.semantic.ASTConstants;
+import tla2sany.semantic.ExprOrOpArgNode;
+import tla2sany.semantic.OpApplNode;
+import tla2sany.semantic.OpDeclNode;
+import tla2sany.semantic.OpDefNode;
+import tla2sany.semantic.SemanticNode;
+import tla2sany.semantic.SymbolNode;
+import tlc2.module.Integers;
+import tlc2.module.Naturals;
+import tlc2.util.Context;
+import tlc2.util.FP64;
+import tlc2.value.IValue;
+import tlc2.value.IValueInputStream;
+import tlc2.value.IValueOutputStream;
+import tlc2.value.ValueConstants;
+import tlc2.value.Values;
+import tlc2.value.impl.BoolValue;
+import tlc2.value.impl.IntValue;
+import tlc2.value.impl.IntervalValue;
+import tlc2.value.impl.ModelValue;
+import tlc2.value.impl.SetEnumValue;
+import tlc2.value.impl.UserValue;
+import tlc2.value.impl.Value;
+import tlc2.value.impl.ValueInterner;
+import util.UniqueString;
+import util.WrongInvocationException;
+
+/**
+ * An alternative to {@link TLCStateMut} that stores the values of scalar
+ * variables - integers, Booleans, and model values - unboxed in a packed
+ * long[] (two 32-bit lanes per long) instead of as references to
+ * {@link IntValue}, {@link BoolValue}, and {@link ModelValue} instances. Only
+ * the variables with composite values are stored in an IValue[]. Values are
+ * boxed on demand by {@link #lookup(UniqueString)}.
+ * <p>
+ * The layout of a state (which variable is stored where) is fixed for a run of
+ * TLC and inferred from the spec's invariants by {@link #setup(ITool)}: A
+ * variable x is a scalar variable if an invariant has a (top-level) conjunct
+ * x \in S where S is a constant-level subset of Int or BOOLEAN or a set of model
+ * values (the usual TypeOK). Since TLC checks the invariant only after it has
+ * generated a state, a state may still violate the inferred type. A value that
+ * does not fit its variable's lane is thus kept boxed in an overflow array.
+ * <p>
+ * Fingerprints, equality and the serialized form are identical to those of
+ * TLCStateMut. Symmetry reduction and views are not supported, i.e. TLC falls
+ * back to TLCStateMut if either is defined.
+ * <p>
+ * Enable with -Dtlc2.tool.TLCStatePacked.enabled=true
+ */
+public final class TLCStatePacked extends TLCState implements ValueConstants {
+
+	private static final long serialVersionUID = -3260473628411958143L;
+
+	public static final boolean ENABLED = Boolean.getBoolean(TLCStatePacked.class.getName() + ".enabled");
+
+	static final byte REF = 0;
+	static final byte INT = 1;
+	static final byte BOOL = 2;
+	static final byte MODEL = 3;
+
+	/**
+	 * The kind of each variable (indexed by UniqueString#getVarLoc()).
+	 */
+	private static byte[] kinds;
+	/**
+	 * For REF variables the index into refs, for scalar variables the index of
+	 * the variable's 32-bit lane in prims.
+	 */
+	private static int[] slots;
+	private static int numRefs;
+	private static int numLanes;
+
+	private final long[] prims;
+	private final IValue[] refs;
+	/**
+	 * Bit i is set iff lane i has been assigned (lanes can't represent null).
+	 */
+	private long assigned;
+	/**
+	 * Lazily allocated if a scalar variable is bound to a value that can't be
+	 * stored in its lane, i.e. a state that violates the inferred type.
+	 */
+	private IValue[] boxed;
+
+	private TLCStatePacked(final long[] prims, final IValue[] refs, final long assigned, final IValue[] boxed) {
+		this.prims = prims;
+		this.refs = refs;
+		this.assigned = assigned;
+		this.boxed = boxed;
+	}
+
+	private TLCStatePacked() {
+		this(new long[(numLanes + 1) / 2], new IValue[numRefs], 0L, null);
+	}
+
+	/**
+	 * Infers the layout from tool's invariants and - iff at least one variable is
+	 * scalar - replaces TLCState.Empty with an empty TLCStatePacked.
+	 *
+	 * @return true iff TLC will use TLCStatePacked.
+	 */
+	public static boolean setup(final ITool tool) {
+		if (!(TLCState.Empty instanceof TLCStateMut) || tool.getSymmetryPerms() != null
+				|| tool.getViewSpec() != null) {
+			return false;
+		}
+		final byte[] layout = new byte[vars.length];
+		final Action[] invariants = tool.getInvariants();
+		for (int i = 0; i < invariants.length; i++) {
+			inferKinds(tool, invariants[i].pred, layout);
+		}
+		return setVariables(vars, layout);
+	}
+
+	static boolean setVariables(final OpDeclNode[] variables, final byte[] layout) {
+		final byte[] k = new byte[variables.length];
+		final int[] s = new int[variables.length];
+		int lanes = 0;
+		int rs = 0;
+		for (int i = 0; i < variables.length; i++) {
+			// The assigned bit-mask limits the number of lanes to 64.
+			if (layout[i] != REF && lanes < Long.SIZE) {
+				k[i] = layout[i];
+				s[i] = lanes++;
+			} else {
+				k[i] = REF;
+				s[i] = rs++;
+			}
+		}
+		if (lanes == 0) {
+			return false;
+		}
+		vars = variables;
+		kinds = k;
+		slots = s;
+		numLanes = lanes;
+		numRefs = rs;
+		Empty = new TLCStatePacked();
+		return true;
+	}
+
+	private static void inferKinds(final ITool tool, final SemanticNode expr, final byte[] layout) {
+		if (!(expr instanceof OpApplNode)) {
+			return;
+		}
+		final OpApplNode appl = (OpApplNode) expr;
+		final SymbolNode opNode = appl.getOperator();
+		final ExprOrOpArgNode[] args = appl.getArgs();
+		final int opcode = BuiltInOPs.getOpCode(opNode.getName());
+		if (opcode == ToolGlobals.OPCODE_cl || opcode == ToolGlobals.OPCODE_land) {
+			for (int i = 0; i < args.length; i++) {
+				inferKinds(tool, args[i], layout);
+			}
+		} else if (opcode == ToolGlobals.OPCODE_in) {
+			if (!(args[0] instanceof OpApplNode) || args[1].getLevel() != 0) {
+				return;
+			}
+			final SymbolNode var = ((OpApplNode) args[0]).getOperator();
+			if (var.getKind() != ASTConstants.VariableDeclKind) {
+				return;
+			}
+			final int loc = var.getName().getVarLoc();
+			if (loc < 0 || layout[loc] != REF) {
+				return;
+			}
+			try {
+				layout[loc] = kindOf(tool.eval(args[1], Context.Empty, TLCState.Empty));
+			} catch (RuntimeException e) {
+				// Not evaluable up-front, leave it a reference.
+			}
+		} else if (opcode == 0 && opNode instanceof OpDefNode && args.length == 0) {
+			// TypeOK == TypeOK1 /\ TypeOK2
+			final OpDefNode def = (OpDefNode) opNode;
+			if (def.getKind() == ASTConstants.UserDefinedOpKind && !def.getInRecursive()) {
+				inferKinds(tool, def.getBody(), layout);
+			}
+		}
+	}
+
+	private static byte kindOf(final IValue set) {
+		if (set instanceof IntervalValue) {
+			return INT;
+		}
+		if (set instanceof UserValue) {
+			final Object obj = ((UserValue) set).userObj;
+			return (obj instanceof Naturals || obj instanceof Integers) ? INT : REF;
+		}
+		if (set instanceof SetEnumValue) {
+			final SetEnumValue sev = (SetEnumValue) set;
+			final int sz = sev.elems.size();
+			if (sz == 0) {
+				return REF;
+			}
+			byte kind = REF;
+			for (int i = 0; i < sz; i++) {
+				final byte k = kindOfElem(sev.elems.elementAt(i));
+				if (k == REF || (kind != REF && k != kind)) {
+					return REF;
+				}
+				kind = k;
+			}
+			return kind;
+		}
+		return REF;
+	}
+
+	private static byte kindOfElem(final Value v) {
+		if (v instanceof IntValue) {
+			return INT;
+		} else if (v instanceof BoolValue) {
+			return BOOL;
+		} else if (v instanceof ModelValue) {
+			return MODEL;
+		}
+		return REF;
+	}
+
+	/**
+	 * @return The 32-bit representation of value in a lane of the given kind or
+	 *         Long.MIN_VALUE if the value doesn't fit into such a lane.
+	 */
+	private static long pack(final byte kind, final IValue value) {
+		switch (kind) {
+		case INT:
+			return value instanceof IntValue ? ((IntValue) value).val : Long.MIN_VALUE;
+		case BOOL:
+			return value instanceof BoolValue ? (((BoolValue) value).val ? 1 : 0) : Long.MIN_VALUE;
+		case MODEL:
+			if (value instanceof ModelValue) {
+				final ModelValue mv = (ModelValue) value;
+				if (ModelValue.mvs != null && mv.index < ModelValue.mvs.length && ModelValue.mvs[mv.index] == mv) {
+					return mv.index;
+				}
+			}
+			return Long.MIN_VALUE;
+		default:
+			return Long.MIN_VALUE;
+		}
+	}
+
+	private static IValue unpack(final byte kind, final int bits) {
+		switch (kind) {
+		case INT:
+			return IntValue.gen(bits);
+		case BOOL:
+			return bits != 0 ? BoolValue.ValTrue : BoolValue.ValFalse;
+		default:
+			return ModelValue.mvs[bits];
+		}
+	}
+
+	private final int getLane(final int lane) {
+		return (int) (this.prims[lane >>> 1] >>> ((lane & 1) << 5));
+	}
+
+	private final void setLane(final int lane, final int bits) {
+		final int shift = (lane & 1) << 5;
+		final int idx = lane >>> 1;
+		this.prims[idx] = (this.prims[idx] & ~(0xFFFFFFFFL << shift)) | ((bits & 0xFFFFFFFFL) << shift);
+	}
+
+	@Override
+	public final TLCState bind(final UniqueString name, final IValue value) {
+		final int loc = name.getVarLoc();
+		if (kinds[loc] == REF) {
+			this.refs[slots[loc]] = value;
+			return this;
+		}
+		final int lane = slots[loc];
+		final long bits = pack(kinds[loc], value);
+		if (bits == Long.MIN_VALUE) {
+			if (this.boxed == null) {
+				this.boxed = new IValue[kinds.length];
+			}
+			this.boxed[loc] = value;
+			this.assigned &= ~(1L << lane);
+		} else {
+			if (this.boxed != null) {
+				this.boxed[loc] = null;
+			}
+			setLane(lane, (int) bits);
+			this.assigned |= 1L << lane;
+		}
+		return this;
+	}
+
+	@Override
+	public final TLCState bind(final SymbolNode id, final IValue value) {
+		throw new WrongInvocationException("TLCStatePacked.bind: This is a TLC bug.");
+	}
+
+	@Override
+	public final TLCState unbind(final UniqueString name) {
+		final int loc = name.getVarLoc();
+		if (kinds[loc] == REF) {
+			this.refs[slots[loc]] = null;
+		} else {
+			this.assigned &= ~(1L << slots[loc]);
+			if (this.boxed != null) {
+				this.boxed[loc] = null;
+			}
+		}
+		return this;
+	}
+
+	@Override
+	public final IValue lookup(final UniqueString var) {
+		final int loc = var.getVarLoc();
+		if (loc < 0) {
+			return null;
+		}
+		return lookup(loc);
+	}
+
+	private final IValue lookup(final int loc) {
+		final byte kind = kinds[loc];
+		if (kind == REF) {
+			return this.refs[slots[loc]];
+		}
+		final int lane = slots[loc];
+		if ((this.assigned & (1L << lane)) != 0) {
+			return unpack(kind, getLane(lane));
+		}
+		return this.boxed != null ? this.boxed[loc] : null;
+	}
+
+	@Override
+	public final boolean containsKey(final UniqueString var) {
+		return this.lookup(var) != null;
+	}
+
+	@Override
+	public final TLCState copy() {
+		return new TLCStatePacked(this.prims.clone(), this.refs.clone(), this.assigned,
+				this.boxed == null ? null : this.boxed.clone());
+	}
+
+	@Override
+	public final TLCState deepCopy() {
+		final IValue[] rs = new IValue[this.refs.length];
+		for (int i = 0; i < rs.length; i++) {
+			if (this.refs[i] != null) {
+				rs[i] = this.refs[i].deepCopy();
+			}
+		}
+		IValue[] bs = null;
+		if (this.boxed != null) {
+			bs = new IValue[this.boxed.length];
+			for (int i = 0; i < bs.length; i++) {
+				if (this.boxed[i] != null) {
+					bs[i] = this.boxed[i].deepCopy();
+				}
+			}
+		}
+		return new TLCStatePacked(this.prims.clone(), rs, this.assigned, bs);
+	}
+
+	@Override
+	public final StateVec addToVec(final StateVec states) {
+		return states.addElement(this.copy());
+	}
+
+	@Override
+	public final void deepNormalize() {
+		for (int i = 0; i < this.refs.length; i++) {
+			if (this.refs[i] != null) {
+				this.refs[i].deepNormalize();
+			}
+		}
+		if (this.boxed != null) {
+			for (int i = 0; i < this.boxed.length; i++) {
+				if (this.boxed[i] != null) {
+					this.boxed[i].deepNormalize();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Identical to the fingerprint of TLCStateMut with the same values (see
+	 * IntValue#fingerPrint, BoolValue#fingerPrint, and ModelValue#fingerPrint), but
+	 * scalars are fingerprinted without boxing them.
+	 */
+	@Override
+	public final long fingerPrint() {
+		long fp = FP64.New();
+		for (int loc = 0; loc < kinds.length; loc++) {
+			final byte kind = kinds[loc];
+			if (kind == REF) {
+				fp = this.refs[slots[loc]].fingerPrint(fp);
+				continue;
+			}
+			final int lane = slots[loc];
+			if ((this.assigned & (1L << lane)) == 0) {
+				fp = this.boxed[loc].fingerPrint(fp);
+				continue;
+			}
+			final int bits = getLane(lane);
+			switch (kind) {
+			case INT:
+				fp = FP64.Extend(FP64.Extend(fp, INTVALUE), bits);
+				break;
+			case BOOL:
+				fp = FP64.Extend(FP64.Extend(fp, BOOLVALUE), bits != 0 ? 't' : 'f');
+				break;
+			default:
+				fp = ModelValue.mvs[bits].fingerPrint(fp);
+			}
+		}
+		// Normalize the values of the overflow array too, because they are about to
+		// be shared via the state queue (see TLCStateMut#fingerPrint).
+		if (this.boxed != null) {
+			for (int i = 0; i < this.boxed.length; i++) {
+				if (this.boxed[i] != null) {
+					this.boxed[i].deepNormalize();
+				}
+			}
+		}
+		return fp;
+	}
+
+	@Override
+	public final void internValues() {
+		// Only the composite values are worth interning.
+		final ValueInterner interner = ValueInterner.getInstance();
+		for (int i = 0; i < this.refs.length; i++) {
+			this.refs[i] = interner.intern(this.refs[i]);
+		}
+	}
+
+	@Override
+	public final boolean allAssigned() {
+		for (int loc = 0; loc < kinds.length; loc++) {
+			if (lookup(loc) == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public final Set<OpDeclNode> getUnassigned() {
+		// Return sorted set (lexicographical).
+		final Set<OpDeclNode> unassignedVars = new TreeSet<OpDeclNode>(new Comparator<OpDeclNode>() {
+			@Override
+			public int compare(OpDeclNode o1, OpDeclNode o2) {
+				return o1.getName().toString().compareTo(o2.getName().toString());
+			}
+		});
+		for (int loc = 0; loc < kinds.length; loc++) {
+			if (lookup(loc) == null) {
+				unassignedVars.add(vars[loc]);
+			}
+		}
+		return unassignedVars;
+	}
+
+	@Override
+	public final TLCState createEmpty() {
+		return new TLCStatePacked();
+	}
+
+	@Override
+	public final boolean equals(final Object obj) {
+		if (obj instanceof TLCStatePacked) {
+			final TLCStatePacked state = (TLCStatePacked) obj;
+			for (int loc = 0; loc < kinds.length; loc++) {
+				final IValue v1 = this.lookup(loc);
+				final IValue v2 = state.lookup(loc);
+				if (v1 == null) {
+					if (v2 != null) {
+						return false;
+					}
+				} else if (v2 == null || !v1.equals(v2)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Consistent with equals because equal values have equal hash codes (see
+	 * Value#hashCode).
+	 */
+	@Override
+	public final int hashCode() {
+		int h = 1;
+		for (int loc = 0; loc < kinds.length; loc++) {
+			final IValue v = this.lookup(loc);
+			h = 31 * h + (v == null ? 0 : v.hashCode());
+		}
+		return h;
+	}
+
+	@Override
+	public final void read(final IValueInputStream vis) throws IOException {
+		super.read(vis);
+		for (int loc = 0; loc < vars.length; loc++) {
+			this.bind(vars[loc].getName(), vis.read());
+		}
+	}
+
+	@Override
+	public final void write(final IValueOutputStream vos) throws IOException {
+		super.write(vos);
+		for (int loc = 0; loc < vars.length; loc++) {
+			this.lookup(loc).write(vos);
+		}
+	}
+
+	/* Returns a string representation of this state.  */
+	@Override
+	public final String toString() {
+		final StringBuffer result = new StringBuffer();
+		final int vlen = vars.length;
+		if (vlen == 1) {
+			final UniqueString key = vars[0].getName();
+			result.append(key.toString());
+			result.append(" = ");
+			result.append(Values.ppr(this.lookup(key)));
+			result.append("\n");
+		} else {
+			for (int i = 0; i < vlen; i++) {
+				final UniqueString key = vars[i].getName();
+				result.append("/\\ ");
+				result.append(key.toString());
+				result.append(" = ");
+				result.append(Values.ppr(this.lookup(key)));
+				result.append("\n");
+			}
+		}
+		return result.toString();
+	}
+
+	/* Returns a string representation of this state.  */
+	@Override
+	public final String toString(final TLCState lastState) {
+		final StringBuffer result = new StringBuffer();
+		final int vlen = vars.length;
+		for (int i = 0; i < vlen; i++) {
+			final UniqueString key = vars[i].getName();
+			final IValue val = this.lookup(key);
+			final IValue lstateVal = lastState.lookup(key);
+			if (!lstateVal.equals(val)) {
+				if (vlen > 1) {
+					result.append("/\\ ");
+				}
+				result.append(key.toString());
+				result.append(" = " + Values.ppr(val) + "\n");
+			}
+		}
+		return result.toString();
+	}
+}
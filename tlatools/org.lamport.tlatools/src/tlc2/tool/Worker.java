@@ -15,6 +15,7 @@ import tlc2.output.EC;
 import tlc2.output.MP;
 import tlc2.tool.fp.FPSet;
 import tlc2.tool.impl.FastTool;
+import tlc2.tool.impl.IncrementalInvariants;
 import tlc2.tool.queue.IStateQueue;
 import tlc2.util.BufferedRandomAccessFile;
 import tlc2.util.IStateWriter;
@@ -22,6 +23,7 @@ import tlc2.util.IdThread;
 import tlc2.util.SetOfStates;
 import tlc2.util.statistics.FixedSizedBucketStatistics;
 import tlc2.util.statistics.IBucketStatistics;
+import tlc2.value.impl.ValueInterner;
 import util.Assert.TLCRuntimeException;
 import util.FileUtil;
 import util.WrongInvocationException;
@@ -46,6 +48,18 @@ public final class Worker extends IdThread implements IWorker, INextStateFunctor
 	private final BufferedRandomAccessFile raf;
 	private final boolean checkDeadlock;
 
+	/**
+	 * Non-null iff invariants and implied actions are checked in parallel.
+	 */
+	private final ParallelInvariants parallelInvariants;
+
+	/**
+	 * Non-null iff invariants unaffected by an action are skipped. Not when TLC
+	 * continues after a violation, because the predecessor might then violate an
+	 * invariant.
+	 */
+	private final IncrementalInvariants incrementalInvariants;
+
 	private long lastPtr;
 	private long statesGenerated;
 	private int unseenSuccessorStates = 0;
@@ -68,6 +82,9 @@ public final class Worker extends IdThread implements IWorker, INextStateFunctor
 
 		this.filename = metadir + FileUtil.separator + specFile + "-" + myGetId();
 		this.raf = new BufferedRandomAccessFile(filename + TLCTrace.EXT, "rw");
+		this.parallelInvariants = ParallelInvariants.ENABLED && !coverage
+				&& !ParallelInvariants.appliesRegisters(this.tool) ? new ParallelInvariants(this.tool) : null;
+		this.incrementalInvariants = TLCGlobals.continuation ? null : this.tool.getIncrementalInvariants();
 	}
 
 	/**
@@ -103,6 +120,10 @@ public final class Worker extends IdThread implements IWorker, INextStateFunctor
 					this.tlc.doNextFailed(curState, null, e);
 				}
 				
+				if (this.parallelInvariants != null) {
+					this.doNextCheckPending(curState);
+				}
+				
 				if (this.checkDeadlock && preNext == this.statesGenerated) {
 					// A deadlock is defined as a state without (seen or unseen) successor
 					// states. In other words, evaluating the next-state relation for a state
@@ -347,9 +368,19 @@ public final class Worker extends IdThread implements IWorker, INextStateFunctor
 				unseen = !isSeenState(curState, succState, action);
 			}
 			
+			final boolean[] unaffected = this.incrementalInvariants == null ? null
+					: this.incrementalInvariants.getUnaffected(action);
+			
+			if (this.parallelInvariants != null && this.parallelInvariants.isRequired(unseen)) {
+				// Invariants and implied actions are checked (and succState enqueued) by
+				// doNextCheckPending.
+				this.parallelInvariants.submit(curState, succState, unaffected, unseen, inModel && unseen);
+				return this;
+			}
+			
 			// Check if succState violates any invariant:
 			if (unseen) {
-				if (this.doNextCheckInvariants(curState, succState)) {
+				if (this.doNextCheckInvariants(curState, succState, unaffected)) {
 					throw new InvariantViolatedException();
 				}
 			}
@@ -365,6 +396,10 @@ public final class Worker extends IdThread implements IWorker, INextStateFunctor
 				// nor implied actions are violated. It is thus eligible
 				// for further processing by other workers.
 				this.squeue.sEnqueue(succState);
+			} else if (!this.checkLiveness) {
+				// Neither the queue nor the liveness checker retain succState, thus
+				// Tool#getNextStates may reuse it (see TLCStateMut#COW).
+				succState.release();
 			}
 			return this;
 		} catch (Exception e) {
@@ -372,6 +407,32 @@ public final class Worker extends IdThread implements IWorker, INextStateFunctor
 		}
 	}
 
+	/**
+	 * Joins the checks of curState's successors submitted by addElement in the
+	 * order of the successors, and enqueues the successors that pass them.
+	 */
+	private final void doNextCheckPending(final TLCState curState) {
+		try {
+			for (final ParallelInvariants.Pending pending : this.parallelInvariants.drain()) {
+				final TLCState succState = pending.succState;
+				if (!pending.isValid()) {
+					// Evaluate the checks again to report the violation (or error).
+					if (pending.unseen && this.doNextCheckInvariants(curState, succState, pending.unaffected)) {
+						throw new InvariantViolatedException();
+					}
+					if (this.doNextCheckImplied(curState, succState)) {
+						throw new InvariantViolatedException();
+					}
+				}
+				if (pending.enqueue) {
+					this.squeue.sEnqueue(succState);
+				}
+			}
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	private final boolean isSeenState(final TLCState curState, final TLCState succState, final Action action)
 			throws IOException {
 		final long fp = succState.fingerPrint();
@@ -379,6 +440,11 @@ public final class Worker extends IdThread implements IWorker, INextStateFunctor
 		// Write out succState when needed:
 		this.allStateWriter.writeState(curState, succState, !seen, action);
 		if (!seen) {
+			if (ValueInterner.ENABLED) {
+				// Share the values of the new state with equal values of other states
+				// before the state gets enqueued.
+				succState.internValues();
+			}
 			// Write succState to trace only if it satisfies the
 			// model constraints. Do not enqueue it yet, but wait
 			// for implied actions and invariants to be checked.
@@ -398,12 +464,23 @@ public final class Worker extends IdThread implements IWorker, INextStateFunctor
 		return seen;
 	}
 
-	private final boolean doNextCheckInvariants(final TLCState curState, final TLCState succState) throws IOException, WorkerException, Exception {
+	/**
+	 * @param unaffected The invariants (by index) that the action generating
+	 *                   succState leaves unaffected, or null.
+	 * @see IncrementalInvariants
+	 */
+	private final boolean doNextCheckInvariants(final TLCState curState, final TLCState succState,
+			final boolean[] unaffected) throws IOException, WorkerException, Exception {
         int k = 0;
 		try
         {
 			for (k = 0; k < this.tool.getInvariants().length; k++)
             {
+				if (unaffected != null && unaffected[k]) {
+					// Holds in curState and thus in succState.
+					this.incrementalInvariants.skipped(k);
+					continue;
+				}
                 if (!tool.isValid(this.tool.getInvariants()[k], succState))
                 {
                     // We get here because of invariant violation:
@@ -451,6 +451,8 @@ public class CostModelCreator extends ExplorerVisitor {
     			impliedActions.cm.report();
     		}
         }
+
+        tool.reportMemoized();
        
 		// Notify users about the performance overhead related to coverage collection
 		// after N minutes of model checking. The assumption is that a user has little
@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import tla2sany.semantic.ExprOrOpArgNode;
+import tla2sany.semantic.LabelNode;
+import tla2sany.semantic.OpApplNode;
+import tla2sany.semantic.SemanticNode;
+import tla2sany.semantic.SymbolNode;
+import tlc2.tool.Action;
+import tlc2.tool.BuiltInOPs;
+import tlc2.tool.TLCState;
+import tlc2.tool.ToolGlobals;
+import tlc2.value.impl.FcnRcdValue;
+import tlc2.value.impl.Value;
+import util.UniqueString;
+
+/**
+ * Indexes the actions of the next-state relation by their guards: The first
+ * conjunct of most actions, and of every action of a PlusCal spec, is a cheap
+ * state-level guard such as <code>pc[self] = "Lbl"</code> (or
+ * <code>pc = "Lbl"</code> for a uniprocess algorithm), which is false for all
+ * but a few actions in any given state. ActionIndex determines the actions
+ * whose first conjunct has the form <code>v = c</code> or
+ * <code>v[k] = c</code>, with v a variable and k and c constant in the context
+ * of the action, and groups them by v and k. Given a state, a worker then
+ * only evaluates the actions whose guard holds in the state (and the actions
+ * without such a guard), instead of all actions.
+ * <p>
+ * The actions are still evaluated in their original order. An action is
+ * evaluated (as before) if its guard cannot be checked by the index, e.g.
+ * because k is not in the domain of v, which Tool#getNextStates then reports as
+ * an error.
+ * <p>
+ * Enable with -Dtlc2.tool.impl.ActionIndex.enabled=true
+ */
+final class ActionIndex implements ToolGlobals {
+
+	static final boolean ENABLED = Boolean.getBoolean(ActionIndex.class.getName() + ".enabled");
+
+	private static final int[] NONE = new int[0];
+
+	/**
+	 * The actions with the same guarded variable v and key k.
+	 */
+	private static final class Group {
+		private final UniqueString var;
+		/**
+		 * null iff the guard is v = c.
+		 */
+		private final Value key;
+		private final Map<Value, int[]> byValue = new HashMap<>();
+		/**
+		 * The class of all c, or null if they are of different classes.
+		 */
+		private Class<?> valueClass;
+		private int[] all = NONE;
+
+		Group(final UniqueString var, final Value key, final Value val) {
+			this.var = var;
+			this.key = key;
+			this.valueClass = val.getClass();
+		}
+
+		boolean matches(final UniqueString var, final Value key) {
+			if (this.var != var) {
+				return false;
+			}
+			if (this.key == null || key == null) {
+				return this.key == key;
+			}
+			return this.key.getClass() == key.getClass() && this.key.equals(key);
+		}
+
+		void add(final Value val, final int action) {
+			if (val.getClass() != this.valueClass) {
+				this.valueClass = null;
+			}
+			this.byValue.put(val, append(this.byValue.getOrDefault(val, NONE), action));
+			this.all = append(this.all, action);
+		}
+
+		/**
+		 * @return The actions of this group whose guard might hold in state.
+		 */
+		int[] candidates(final TLCState state) {
+			try {
+				Value val = (Value) state.lookup(this.var);
+				if (val != null && this.key != null) {
+					val = val instanceof FcnRcdValue ? ((FcnRcdValue) val).select(this.key) : null;
+				}
+				if (val != null && val.getClass() == this.valueClass) {
+					return this.byValue.getOrDefault(val, NONE);
+				}
+			} catch (RuntimeException e) {
+				// Fall through.
+			}
+			// Let Tool#getNextStates evaluate the guards (and report an error if necessary).
+			return this.all;
+		}
+	}
+
+	private final Group[] groups;
+	private final int[] unguarded;
+	private final int size;
+
+	ActionIndex(final Tool tool, final Action[] actions) {
+		final List<Group> groups = new ArrayList<>();
+		int[] unguarded = NONE;
+		LOOP: for (int i = 0; i < actions.length; i++) {
+			final Action action = actions[i];
+			final OpApplNode guard = guardOf(action.pred);
+			if (guard != null) {
+				try {
+					final UniqueString var = variableOf(tool, guard.getArgs()[0], action);
+					final ExprOrOpArgNode rhs = guard.getArgs()[1];
+					if (var != null && rhs.getLevel() == 0) {
+						final Value key = keyOf(tool, guard.getArgs()[0], action);
+						final Value val = (Value) tool.eval(rhs, action.con, TLCState.Empty);
+						val.deepNormalize();
+						for (final Group group : groups) {
+							if (group.matches(var, key)) {
+								group.add(val, i);
+								continue LOOP;
+							}
+						}
+						final Group group = new Group(var, key, val);
+						group.add(val, i);
+						groups.add(group);
+						continue LOOP;
+					}
+				} catch (RuntimeException e) {
+					// Leave the action to Tool#getNextStates.
+				}
+			}
+			unguarded = append(unguarded, i);
+		}
+		this.groups = groups.toArray(new Group[groups.size()]);
+		this.unguarded = unguarded;
+		this.size = actions.length;
+	}
+
+	/**
+	 * @return The number of actions indexed by their guards.
+	 */
+	int getIndexed() {
+		return this.size - this.unguarded.length;
+	}
+
+	/**
+	 * @return The (ascending) indices of the actions whose guard might hold in
+	 *         state.
+	 */
+	int[] candidates(final TLCState state) {
+		final int[] res = new int[this.size];
+		System.arraycopy(this.unguarded, 0, res, 0, this.unguarded.length);
+		int len = this.unguarded.length;
+		for (int i = 0; i < this.groups.length; i++) {
+			final int[] actions = this.groups[i].candidates(state);
+			System.arraycopy(actions, 0, res, len, actions.length);
+			len += actions.length;
+		}
+		Arrays.sort(res, 0, len);
+		return len == res.length ? res : Arrays.copyOf(res, len);
+	}
+
+	/**
+	 * @return The first conjunct of pred iff it is an equality of level 1.
+	 */
+	private static OpApplNode guardOf(SemanticNode pred) {
+		while (true) {
+			if (pred instanceof LabelNode) {
+				pred = ((LabelNode) pred).getBody();
+			} else if (pred instanceof OpApplNode) {
+				final OpApplNode appl = (OpApplNode) pred;
+				final int opcode = BuiltInOPs.getOpCode(appl.getOperator().getName());
+				if (opcode == OPCODE_cl || opcode == OPCODE_land) {
+					pred = appl.getArgs()[0];
+				} else if (opcode == OPCODE_eq && appl.getLevel() == 1) {
+					return appl;
+				} else {
+					return null;
+				}
+			} else {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * @return The name of the variable v of v or v[k], or null.
+	 */
+	private static UniqueString variableOf(final Tool tool, ExprOrOpArgNode lhs, final Action action) {
+		if (!(lhs instanceof OpApplNode)) {
+			return null;
+		}
+		OpApplNode appl = (OpApplNode) lhs;
+		if (BuiltInOPs.getOpCode(appl.getOperator().getName()) == OPCODE_fa) {
+			if (!(appl.getArgs()[0] instanceof OpApplNode) || appl.getArgs()[1].getLevel() != 0) {
+				return null;
+			}
+			appl = (OpApplNode) appl.getArgs()[0];
+		}
+		final SymbolNode opNode = appl.getOperator();
+		if (opNode.getKind() == VariableDeclKind && appl.getArgs().length == 0
+				&& tool.lookup(opNode, action.con, false) == opNode) {
+			// Not substituted (INSTANCE).
+			return opNode.getName();
+		}
+		return null;
+	}
+
+	/**
+	 * @return The value of k of v[k], or null for v.
+	 */
+	private static Value keyOf(final Tool tool, final ExprOrOpArgNode lhs, final Action action) {
+		final OpApplNode appl = (OpApplNode) lhs;
+		if (BuiltInOPs.getOpCode(appl.getOperator().getName()) != OPCODE_fa) {
+			return null;
+		}
+		final Value key = (Value) tool.eval(appl.getArgs()[1], action.con, TLCState.Empty);
+		key.deepNormalize();
+		return key;
+	}
+
+	private static int[] append(final int[] arr, final int i) {
+		final int[] res = Arrays.copyOf(arr, arr.length + 1);
+		res[arr.length] = i;
+		return res;
+	}
+}
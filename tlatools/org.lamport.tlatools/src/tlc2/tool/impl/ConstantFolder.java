@@ -0,0 +1,340 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import tla2sany.semantic.ExprNode;
+import tla2sany.semantic.ExprOrOpArgNode;
+import tla2sany.semantic.FormalParamNode;
+import tla2sany.semantic.LabelNode;
+import tla2sany.semantic.LetInNode;
+import tla2sany.semantic.ModuleNode;
+import tla2sany.semantic.OpApplNode;
+import tla2sany.semantic.OpArgNode;
+import tla2sany.semantic.OpDeclNode;
+import tla2sany.semantic.OpDefNode;
+import tla2sany.semantic.OpDefOrDeclNode;
+import tla2sany.semantic.SemanticNode;
+import tla2sany.semantic.SymbolNode;
+import tlc2.tool.Action;
+import tlc2.tool.BuiltInOPs;
+import tlc2.tool.ToolGlobals;
+import tlc2.value.impl.OpValue;
+
+/**
+ * Partially evaluates the next-state relation ahead of model checking:
+ * SpecProcessor precomputes the constant-level (zero-arity) definitions, but
+ * constant-level subexpressions nested in actions, such as
+ * <code>[p \in Procs |-> 0]</code> or <code>SUBSET Servers</code>, are
+ * re-evaluated by Tool#eval for every state. ConstantFolder evaluates every
+ * maximal subexpression of level 0 (LevelNode#getLevel) once and attaches the
+ * resulting value to its OpApplNode, which FastTool#evalAppl then returns
+ * instead of evaluating the node (CallStackTool still evaluates it to report
+ * the nested expressions of an error).
+ * <p>
+ * A subexpression is only folded if its value does not depend on the context it
+ * is evaluated in, i.e. it does not refer to identifiers bound outside of it
+ * (bound variables, operator parameters, LET definitions, @) and it does not
+ * (transitively) apply an operator with side effects (Print, TLCSet, ...) or a
+ * non-deterministic one (RandomElement, JavaTime, ...). Definitions in
+ * instantiated modules with parameters are not folded, because the
+ * substitutions are part of the context. A subexpression whose evaluation fails
+ * (e.g. CHOOSE without a witness in a branch that is never taken) is evaluated
+ * by Tool#eval as before.
+ * <p>
+ * Enable with -Dtlc2.tool.impl.ConstantFolder.enabled=true
+ */
+final class ConstantFolder implements ToolGlobals {
+
+	static final boolean ENABLED = Boolean.getBoolean(ConstantFolder.class.getName() + ".enabled");
+
+	/**
+	 * The (Java) overrides of these standard modules are pure functions of their
+	 * arguments except for the operators in IMPURE.
+	 */
+	static final Set<String> PURE_MODULES = new HashSet<>(
+			Arrays.asList("Naturals", "Integers", "Sequences", "FiniteSets", "Bags", "TLC"));
+
+	static final Set<String> IMPURE = new HashSet<>(
+			Arrays.asList("Print", "PrintT", "Assert", "JavaTime", "TLCGet", "TLCSet", "RandomElement"));
+
+	private final Tool tool;
+	private final int toolId;
+
+	private final Set<SemanticNode> visited = new HashSet<>();
+
+	/**
+	 * The operators defined by the LET expressions traversed so far. Their bodies
+	 * may refer to the bound identifiers of the enclosing expression.
+	 */
+	private final Set<SymbolNode> letDefs = new HashSet<>();
+
+	/**
+	 * Definitions known to be pure and closed (true) or not (false).
+	 */
+	private final Map<SymbolNode, Boolean> pure = new HashMap<>();
+
+	private int folded = 0;
+
+	ConstantFolder(final Tool tool) {
+		this.tool = tool;
+		this.toolId = tool.getId();
+	}
+
+	/**
+	 * @return The number of folded subexpressions.
+	 */
+	int fold(final Action[] actions) {
+		for (final Action action : actions) {
+			if (action.con.lookupName(s -> s instanceof OpDeclNode) != null) {
+				// The action is part of an instantiated module whose constants (or
+				// variables) are substituted in its context.
+				continue;
+			}
+			if (action.pred instanceof OpApplNode) {
+				// The predicate of an action may be the body of a definition.
+				foldAppl((OpApplNode) action.pred, false);
+			} else {
+				fold(action.pred);
+			}
+		}
+		return this.folded;
+	}
+
+	private void fold(final SemanticNode expr) {
+		switch (expr.getKind()) {
+		case LabelKind:
+			fold(((LabelNode) expr).getBody());
+			return;
+		case LetInKind: {
+			final LetInNode expr1 = (LetInNode) expr;
+			for (final OpDefNode let : expr1.getLets()) {
+				this.letDefs.add(let);
+				foldBody(let);
+			}
+			fold(expr1.getBody());
+			return;
+		}
+		case OpApplKind:
+			foldAppl((OpApplNode) expr, true);
+			return;
+		default:
+			// SubstInKind, APSubstInKind: Substitutions are part of the context.
+			return;
+		}
+	}
+
+	private void foldAppl(final OpApplNode expr, final boolean foldable) {
+		if (!this.visited.add(expr)) {
+			return;
+		}
+		if (foldable && isFoldable(expr)) {
+			try {
+				expr.setToolObject(this.toolId, WorkerValue.demux(this.tool, expr));
+				this.folded++;
+				return;
+			} catch (RuntimeException e) {
+				// Leave it to Tool#eval to evaluate (and report the error) at runtime.
+			}
+		}
+		final SymbolNode opNode = expr.getOperator();
+		final int opcode = BuiltInOPs.getOpCode(opNode.getName());
+		for (final ExprOrOpArgNode arg : expr.getArgs()) {
+			if (arg != null) {
+				fold(arg);
+			}
+		}
+		for (final ExprNode bnd : expr.getBdedQuantBounds()) {
+			fold(bnd);
+		}
+		if (opcode == 0 && opNode instanceof OpDefNode && !this.letDefs.contains(opNode)) {
+			foldBody((OpDefNode) opNode);
+		}
+	}
+
+	private void foldBody(final OpDefNode opDef) {
+		final ExprNode body = opDef.getBody();
+		if (!this.visited.add(opDef) || opDef.getToolObject(this.toolId) != null
+				|| body.getToolObject(this.toolId) != null || isParameterized(opDef)) {
+			// Visited, precomputed by SpecProcessor, or overridden.
+			return;
+		}
+		if (body instanceof OpApplNode) {
+			// Tool#lookup would mistake a value attached to the body of a definition
+			// for the value of the definition (see SymbolNodeValueLookupProvider#lookup).
+			foldAppl((OpApplNode) body, false);
+		} else {
+			fold(body);
+		}
+	}
+
+	private boolean isFoldable(final OpApplNode expr) {
+		if (expr.getLevel() != 0 || expr.getToolObject(this.toolId) != null) {
+			return false;
+		}
+		if (expr.getArgs().length == 0 && expr.getBdedQuantBounds().length == 0) {
+			// A reference to a constant or definition, which Tool#lookup already
+			// resolves to its (precomputed) value.
+			return false;
+		}
+		final int opcode = BuiltInOPs.getOpCode(expr.getOperator().getName());
+		if (opcode == OPCODE_pair || opcode == OPCODE_seq) {
+			// The constituents of e.g. a record constructor or an EXCEPT, which
+			// Tool#evalAppl evaluates directly.
+			return false;
+		}
+		final Set<SymbolNode> defs = new HashSet<>();
+		if (isClosed(expr, new HashSet<>(), defs)) {
+			// The definitions applied by expr are pure too.
+			for (final SymbolNode def : defs) {
+				this.pure.put(def, Boolean.TRUE);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @param bound The identifiers bound within the expression.
+	 * @param defs  The definitions (being) checked by this invocation.
+	 * @return true iff the value of expr only depends on the identifiers in bound.
+	 */
+	private boolean isClosed(final SemanticNode expr, final Set<SymbolNode> bound, final Set<SymbolNode> defs) {
+		switch (expr.getKind()) {
+		case NumeralKind:
+		case StringKind:
+			return true;
+		case LabelKind:
+			return isClosed(((LabelNode) expr).getBody(), bound, defs);
+		case OpArgKind:
+			return isClosed(((OpArgNode) expr).getOp(), bound, defs);
+		case OpApplKind: {
+			final OpApplNode expr1 = (OpApplNode) expr;
+			final Set<SymbolNode> bound1 = new HashSet<>(bound);
+			bound1.addAll(Arrays.asList(expr1.getUnbdedQuantSymbols() == null ? new FormalParamNode[0]
+					: expr1.getUnbdedQuantSymbols()));
+			final FormalParamNode[][] lists = expr1.getBdedQuantSymbolLists();
+			if (lists != null) {
+				for (final FormalParamNode[] list : lists) {
+					bound1.addAll(Arrays.asList(list));
+				}
+			}
+			for (final ExprNode bnd : expr1.getBdedQuantBounds()) {
+				if (!isClosed(bnd, bound1, defs)) {
+					return false;
+				}
+			}
+			for (final ExprOrOpArgNode arg : expr1.getArgs()) {
+				if (arg != null && !isClosed(arg, bound1, defs)) {
+					return false;
+				}
+			}
+			return isClosed(expr1.getOperator(), bound1, defs);
+		}
+		default:
+			// AtNodeKind, DecimalKind, LetInKind, SubstInKind, APSubstInKind, ...
+			return false;
+		}
+	}
+
+	private boolean isClosed(final SymbolNode opNode, final Set<SymbolNode> bound, final Set<SymbolNode> defs) {
+		switch (opNode.getKind()) {
+		case BuiltInKind:
+			return true;
+		case FormalParamKind:
+			return bound.contains(opNode);
+		case ConstantDeclKind:
+		case UserDefinedOpKind:
+			return isPure(opNode, defs);
+		default:
+			return false;
+		}
+	}
+
+	private boolean isPure(final SymbolNode opNode, final Set<SymbolNode> defs) {
+		final Boolean known = this.pure.get(opNode);
+		if (known != null) {
+			return known;
+		}
+		if (!defs.add(opNode)) {
+			// A recursive definition, whose body is being checked.
+			return true;
+		}
+		final boolean result = isPure0(opNode, defs);
+		if (!result) {
+			this.pure.put(opNode, Boolean.FALSE);
+		}
+		return result;
+	}
+
+	private boolean isPure0(final SymbolNode opNode, final Set<SymbolNode> defs) {
+		if (IMPURE.contains(opNode.getName().toString()) || SpecProcessor.isVetoed(opNode.getName())
+				|| this.letDefs.contains(opNode)) {
+			return false;
+		}
+		Object val = opNode.getToolObject(this.toolId);
+		if (val == null && opNode instanceof OpDefNode) {
+			// Overridden (see SymbolNodeValueLookupProvider#lookup).
+			val = ((OpDefNode) opNode).getBody().getToolObject(this.toolId);
+		}
+		if (val instanceof OpValue) {
+			// A Java override, whose purity is only known for the standard modules.
+			final ModuleNode module = ((OpDefOrDeclNode) opNode).getOriginallyDefinedInModuleNode();
+			return module != null && PURE_MODULES.contains(module.getName().toString());
+		}
+		if (val instanceof OpDefNode) {
+			// Substituted in the model (Op <- Def).
+			return isPure((OpDefNode) val, defs);
+		}
+		if (val != null) {
+			// A value precomputed by SpecProcessor or defined in the model.
+			return true;
+		}
+		if (!(opNode instanceof OpDefNode)) {
+			// A constant without a value, e.g. one of an instantiated module.
+			return false;
+		}
+		final OpDefNode opDef = (OpDefNode) opNode;
+		if (isParameterized(opDef)) {
+			return false;
+		}
+		return isClosed(opDef.getBody(), new HashSet<>(Arrays.asList(opDef.getParams())), defs);
+	}
+
+	/**
+	 * @see SpecProcessor#processConstantDefns(ModuleNode)
+	 */
+	static boolean isParameterized(final OpDefNode opDef) {
+		final ModuleNode moduleNode = opDef.getOriginallyDefinedInModuleNode();
+		return moduleNode != null && moduleNode.isInstantiated()
+				&& (moduleNode.getConstantDecls().length > 0 || moduleNode.getVariableDecls().length > 0);
+	}
+}
@@ -46,7 +46,7 @@ public final class ContextEnumerator implements IContextEnumerator {
           }
           else {
               SymbolNode[] varList = (SymbolNode[])this.vars[i];
-              Value argVal = this.currentElems[i];
+              Value argVal = TupleValue.toElems(this.currentElems[i]);
               if (!(argVal instanceof TupleValue)) {
                   Assert.fail(EC.TLC_ARGUMENT_MISMATCH, varList[0].toString());
               }
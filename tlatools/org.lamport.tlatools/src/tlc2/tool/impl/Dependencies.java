@@ -0,0 +1,341 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.impl;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import tla2sany.semantic.ExprNode;
+import tla2sany.semantic.ExprOrOpArgNode;
+import tla2sany.semantic.FormalParamNode;
+import tla2sany.semantic.LabelNode;
+import tla2sany.semantic.LetInNode;
+import tla2sany.semantic.ModuleNode;
+import tla2sany.semantic.OpApplNode;
+import tla2sany.semantic.OpArgNode;
+import tla2sany.semantic.OpDefNode;
+import tla2sany.semantic.OpDefOrDeclNode;
+import tla2sany.semantic.SemanticNode;
+import tla2sany.semantic.SymbolNode;
+import tlc2.tool.BuiltInOPs;
+import tlc2.tool.ToolGlobals;
+import tlc2.value.impl.OpValue;
+import util.UniqueString;
+
+/**
+ * Determines what the value of an expression depends on: the identifiers bound
+ * outside of it (bound variables, operator parameters) and the (unprimed) state
+ * variables it (transitively) reads. The value of an expression does not
+ * depend on anything else if it does not (transitively) apply an operator with
+ * side effects (Print, TLCSet, ...) or a non-deterministic one (RandomElement,
+ * JavaTime, ...), see ConstantFolder, and does not refer to the substitutions
+ * of an instantiated module with parameters or to ENABLED.
+ * <p>
+ * Conversely, Dependencies determines the variables that an action might
+ * change.
+ */
+final class Dependencies implements ToolGlobals {
+
+	private final int toolId;
+
+	/**
+	 * The variables of the root module (the variables of other modules are
+	 * substituted in the context).
+	 */
+	private final Set<SymbolNode> variables;
+
+	/**
+	 * The definitions at the top level of a module as opposed to the definitions
+	 * in a LET or LAMBDA, which may refer to the identifiers bound by the
+	 * enclosing expression.
+	 */
+	private final Set<SymbolNode> topLevel = new HashSet<>();
+
+	/**
+	 * Top-level definitions known to not be pure and closed.
+	 */
+	private final Set<SymbolNode> impure = new HashSet<>();
+
+	Dependencies(final Tool tool) {
+		this.toolId = tool.getId();
+		this.variables = new HashSet<>(Arrays.asList(tool.getRootModule().getVariableDecls()));
+		for (final ModuleNode module : tool.getSpecProcessor().getModuleTbl().getModuleNodes()) {
+			this.topLevel.addAll(Arrays.asList(module.getOpDefs()));
+		}
+	}
+
+	/**
+	 * @param bound The identifiers bound within the expression.
+	 * @param defs  The definitions (being) checked by this invocation.
+	 * @param free  The identifiers bound outside of the expression, or null if
+	 *              the expression may not refer to any.
+	 * @param vars  The variables read by the expression.
+	 * @return true iff the value of expr only depends on the identifiers in bound
+	 *         and free and the variables in vars.
+	 */
+	boolean isClosed(final SemanticNode expr, final Set<SymbolNode> bound, final Set<SymbolNode> defs,
+			final Set<SymbolNode> free, final Set<UniqueString> vars) {
+		switch (expr.getKind()) {
+		case NumeralKind:
+		case DecimalKind:
+		case StringKind:
+		case AtNodeKind:
+			// @ refers to an EXCEPT within the expression.
+			return true;
+		case LabelKind:
+			return isClosed(((LabelNode) expr).getBody(), bound, defs, free, vars);
+		case OpArgKind:
+			return isClosed(((OpArgNode) expr).getOp(), bound, defs, free, vars);
+		case LetInKind: {
+			final LetInNode expr1 = (LetInNode) expr;
+			final Set<SymbolNode> bound1 = new HashSet<>(bound);
+			bound1.addAll(Arrays.asList(expr1.getLets()));
+			for (final OpDefNode let : expr1.getLets()) {
+				final Set<SymbolNode> bound2 = new HashSet<>(bound1);
+				bound2.addAll(Arrays.asList(let.getParams()));
+				if (!isClosed(let.getBody(), bound2, defs, free, vars)) {
+					return false;
+				}
+			}
+			return isClosed(expr1.getBody(), bound1, defs, free, vars);
+		}
+		case OpApplKind: {
+			final OpApplNode expr1 = (OpApplNode) expr;
+			if (BuiltInOPs.getOpCode(expr1.getOperator().getName()) == OPCODE_enabled) {
+				return false;
+			}
+			final Set<SymbolNode> bound1 = new HashSet<>(bound);
+			bound1.addAll(Arrays.asList(expr1.getUnbdedQuantSymbols() == null ? new FormalParamNode[0]
+					: expr1.getUnbdedQuantSymbols()));
+			final FormalParamNode[][] lists = expr1.getBdedQuantSymbolLists();
+			if (lists != null) {
+				for (final FormalParamNode[] list : lists) {
+					bound1.addAll(Arrays.asList(list));
+				}
+			}
+			for (final ExprNode bnd : expr1.getBdedQuantBounds()) {
+				if (!isClosed(bnd, bound1, defs, free, vars)) {
+					return false;
+				}
+			}
+			for (final ExprOrOpArgNode arg : expr1.getArgs()) {
+				if (arg != null && !isClosed(arg, bound1, defs, free, vars)) {
+					return false;
+				}
+			}
+			return isClosed(expr1.getOperator(), bound1, defs, free, vars);
+		}
+		default:
+			// SubstInKind, APSubstInKind, ...
+			return false;
+		}
+	}
+
+	private boolean isClosed(final SymbolNode opNode, final Set<SymbolNode> bound, final Set<SymbolNode> defs,
+			final Set<SymbolNode> free, final Set<UniqueString> vars) {
+		switch (opNode.getKind()) {
+		case BuiltInKind:
+			return true;
+		case FormalParamKind:
+			if (bound.contains(opNode) || free == null) {
+				return bound.contains(opNode);
+			}
+			free.add(opNode);
+			return true;
+		case VariableDeclKind:
+			vars.add(opNode.getName());
+			return this.variables.contains(opNode);
+		case ConstantDeclKind:
+			return isPure(opNode, defs, vars);
+		case UserDefinedOpKind:
+			if (bound.contains(opNode)) {
+				return true;
+			}
+			if (!this.topLevel.contains(opNode)) {
+				// A LET or LAMBDA defined outside of the expression, whose body may refer to
+				// the identifiers bound outside of it.
+				if (!defs.add(opNode)) {
+					return true;
+				}
+				final OpDefNode opDef = (OpDefNode) opNode;
+				final Set<SymbolNode> bound1 = new HashSet<>(bound);
+				bound1.addAll(Arrays.asList(opDef.getParams()));
+				return isClosed(opDef.getBody(), bound1, defs, free, vars);
+			}
+			return isPure(opNode, defs, vars);
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Collects the variables that expr (transitively) primes outside of
+	 * UNCHANGED, i.e. the variables that the action expr might change.
+	 * 
+	 * @param primed        true iff expr occurs in a primed expression.
+	 * @param visited       The definitions visited (unprimed) by this invocation.
+	 * @param visitedPrimed The definitions visited (primed) by this invocation.
+	 * @param changed       The variables primed by expr.
+	 * @return false if the variables cannot be determined, e.g. because expr
+	 *         primes an operator parameter, which might be a variable, or refers
+	 *         to the substitutions of an instantiated module.
+	 */
+	boolean collectPrimed(final SemanticNode expr, final boolean primed, final Set<SymbolNode> visited,
+			final Set<SymbolNode> visitedPrimed, final Set<UniqueString> changed) {
+		switch (expr.getKind()) {
+		case NumeralKind:
+		case DecimalKind:
+		case StringKind:
+		case AtNodeKind:
+			return true;
+		case LabelKind:
+			return collectPrimed(((LabelNode) expr).getBody(), primed, visited, visitedPrimed, changed);
+		case OpArgKind:
+			return collectPrimed(((OpArgNode) expr).getOp(), primed, visited, visitedPrimed, changed);
+		case LetInKind: {
+			final LetInNode expr1 = (LetInNode) expr;
+			// The LET definitions are collected where they are applied.
+			return collectPrimed(expr1.getBody(), primed, visited, visitedPrimed, changed);
+		}
+		case OpApplKind: {
+			final OpApplNode expr1 = (OpApplNode) expr;
+			final int opcode = BuiltInOPs.getOpCode(expr1.getOperator().getName());
+			if (opcode == OPCODE_unchanged || opcode == OPCODE_enabled) {
+				// UNCHANGED v does not change v, and ENABLED does not change anything.
+				return true;
+			}
+			final boolean primed1 = primed || opcode == OPCODE_prime;
+			for (final ExprNode bnd : expr1.getBdedQuantBounds()) {
+				if (!collectPrimed(bnd, primed1, visited, visitedPrimed, changed)) {
+					return false;
+				}
+			}
+			for (final ExprOrOpArgNode arg : expr1.getArgs()) {
+				if (arg != null && !collectPrimed(arg, primed1, visited, visitedPrimed, changed)) {
+					return false;
+				}
+			}
+			return collectPrimed(expr1.getOperator(), primed1, visited, visitedPrimed, changed);
+		}
+		default:
+			// SubstInKind, APSubstInKind, ...
+			return false;
+		}
+	}
+
+	private boolean collectPrimed(final SymbolNode opNode, final boolean primed, final Set<SymbolNode> visited,
+			final Set<SymbolNode> visitedPrimed, final Set<UniqueString> changed) {
+		switch (opNode.getKind()) {
+		case BuiltInKind:
+			return true;
+		case FormalParamKind:
+			// The argument of the parameter has been collected where the operator is
+			// applied, unless the parameter is primed.
+			return !primed;
+		case VariableDeclKind:
+			if (primed) {
+				changed.add(opNode.getName());
+				return this.variables.contains(opNode);
+			}
+			return true;
+		case ConstantDeclKind:
+		case UserDefinedOpKind: {
+			if (!(primed ? visitedPrimed : visited).add(opNode)) {
+				return true;
+			}
+			Object val = opNode.getToolObject(this.toolId);
+			if (val == null && opNode instanceof OpDefNode) {
+				val = ((OpDefNode) opNode).getBody().getToolObject(this.toolId);
+			}
+			if (val instanceof OpDefNode) {
+				// Substituted in the model (Op <- Def).
+				return collectPrimed((OpDefNode) val, primed, visited, visitedPrimed, changed);
+			}
+			if (val != null || !(opNode instanceof OpDefNode)) {
+				// A value, a Java override, or a constant.
+				return true;
+			}
+			return collectPrimed(((OpDefNode) opNode).getBody(), primed, visited, visitedPrimed, changed);
+		}
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * @return true iff the top-level definition or constant opNode is pure and its
+	 *         value only depends on its arguments and the variables in vars.
+	 */
+	private boolean isPure(final SymbolNode opNode, final Set<SymbolNode> defs, final Set<UniqueString> vars) {
+		if (this.impure.contains(opNode)) {
+			return false;
+		}
+		if (!defs.add(opNode)) {
+			// Checked by this invocation already, or a recursive definition whose body is
+			// being checked.
+			return true;
+		}
+		if (!isPure0(opNode, defs, vars)) {
+			this.impure.add(opNode);
+			return false;
+		}
+		return true;
+	}
+
+	private boolean isPure0(final SymbolNode opNode, final Set<SymbolNode> defs, final Set<UniqueString> vars) {
+		if (ConstantFolder.IMPURE.contains(opNode.getName().toString()) || SpecProcessor.isVetoed(opNode.getName())) {
+			return false;
+		}
+		Object val = opNode.getToolObject(this.toolId);
+		if (val == null && opNode instanceof OpDefNode) {
+			// Overridden (see SymbolNodeValueLookupProvider#lookup).
+			val = ((OpDefNode) opNode).getBody().getToolObject(this.toolId);
+		}
+		if (val instanceof OpValue) {
+			// A Java override, whose purity is only known for the standard modules.
+			final ModuleNode module = ((OpDefOrDeclNode) opNode).getOriginallyDefinedInModuleNode();
+			return module != null && ConstantFolder.PURE_MODULES.contains(module.getName().toString());
+		}
+		if (val instanceof OpDefNode) {
+			// Substituted in the model (Op <- Def).
+			return isPure((OpDefNode) val, defs, vars);
+		}
+		if (val != null) {
+			// A value precomputed by SpecProcessor or defined in the model.
+			return true;
+		}
+		if (!(opNode instanceof OpDefNode)) {
+			// A constant without a value, e.g. one of an instantiated module.
+			return false;
+		}
+		final OpDefNode opDef = (OpDefNode) opNode;
+		if (ConstantFolder.isParameterized(opDef)) {
+			return false;
+		}
+		return isClosed(opDef.getBody(), new HashSet<>(Arrays.asList(opDef.getParams())), defs, null, vars);
+	}
+}
@@ -0,0 +1,653 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.impl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import tla2sany.semantic.ExprOrOpArgNode;
+import tla2sany.semantic.FormalParamNode;
+import tla2sany.semantic.LabelNode;
+import tla2sany.semantic.OpApplNode;
+import tla2sany.semantic.OpDefNode;
+import tla2sany.semantic.SemanticNode;
+import tla2sany.semantic.SymbolNode;
+import tlc2.tool.BuiltInOPs;
+import tlc2.tool.EvalControl;
+import tlc2.tool.TLCState;
+import tlc2.tool.ToolGlobals;
+import tlc2.tool.coverage.CostModel;
+import tlc2.util.Context;
+import tlc2.value.impl.Applicable;
+import tlc2.value.impl.BoolValue;
+import tlc2.value.impl.Enumerable;
+import tlc2.value.impl.FcnLambdaValue;
+import tlc2.value.impl.FcnRcdValue;
+import tlc2.value.impl.IntTupleValue;
+import tlc2.value.impl.LazyValue;
+import tlc2.value.impl.MethodValue;
+import tlc2.value.impl.OpValue;
+import tlc2.value.impl.RecordValue;
+import tlc2.value.impl.TupleValue;
+import tlc2.value.impl.TupleViewValue;
+import tlc2.value.impl.Value;
+import tlc2.value.impl.ValueEnumeration;
+import util.UniqueString;
+
+/**
+ * Compiles state-level predicates (invariants and state constraints) into a
+ * tree of specialized CompiledExpr objects ahead of model checking. Compared to
+ * Tool#eval, the compiled form resolves operator definitions, constants,
+ * variables and overridden (Java) operators once instead of on every
+ * evaluation, inlines the bodies of zero-arity definitions, and replaces the
+ * switch over the built-in opcodes and the OpApplNode traversal by direct
+ * (virtual) calls that the JIT can profile per node.
+ * <p>
+ * Every construct that is not supported below is evaluated by Tool#eval
+ * (Interpreted), i.e. compilation never changes the semantics. If a compiled
+ * node encounters an unexpected value (an error), it re-evaluates its node with
+ * Tool#eval to report exactly the error the interpreter would report. The
+ * ModelChecker then re-evaluates with the CallStackTool as usual.
+ * <p>
+ * Enable with -Dtlc2.tool.impl.ExprCompiler.enabled=true
+ */
+final class ExprCompiler implements ToolGlobals {
+
+	static final boolean ENABLED = Boolean.getBoolean(ExprCompiler.class.getName() + ".enabled");
+
+	private final Tool tool;
+	private final int toolId;
+	
+	/**
+	 * The bound variables of the compiled quantifiers in scope. The index of a
+	 * variable is its slot in the Frame at runtime.
+	 */
+	private final List<SymbolNode> bound = new ArrayList<>();
+
+	/**
+	 * The size of the frames, i.e. the maximum nesting depth of the compiled
+	 * quantifiers.
+	 */
+	private int slots = 0;
+
+	/**
+	 * The definitions being inlined, to not inline (recursive) definitions into
+	 * themselves.
+	 */
+	private final Set<OpDefNode> inlining = new HashSet<>();
+
+	ExprCompiler(final Tool tool) {
+		this.tool = tool;
+		this.toolId = tool.getId();
+	}
+
+	CompiledExpr compile(final SemanticNode expr, final Context c) {
+		return compile(expr, c, EvalControl.Clear);
+	}
+
+	/**
+	 * @param control EvalControl.KeepLazy for the function of a function
+	 *                application (see Tool#evalAppl), EvalControl.Clear
+	 *                otherwise.
+	 */
+	private CompiledExpr compile(final SemanticNode expr, final Context c, final int control) {
+		switch (expr.getKind()) {
+		case LabelKind:
+			return compile(((LabelNode) expr).getBody(), c, control);
+		case OpApplKind:
+			return compileAppl((OpApplNode) expr, c, control);
+		case NumeralKind:
+		case DecimalKind:
+		case StringKind: {
+			final Object val = expr.getToolObject(this.toolId);
+			if (val instanceof Value && !(val instanceof WorkerValue)) {
+				return new Constant(expr, (Value) val);
+			}
+			return new Interpreted(expr, control);
+		}
+		default:
+			return new Interpreted(expr, control);
+		}
+	}
+
+	private CompiledExpr compileAppl(final OpApplNode expr, final Context c, final int control) {
+		final Object folded = expr.getToolObject(this.toolId);
+		if (folded instanceof Value && !(folded instanceof OpValue)) {
+			// See ConstantFolder.
+			return new Constant(expr, (Value) folded);
+		}
+		final ExprOrOpArgNode[] args = expr.getArgs();
+		final SymbolNode opNode = expr.getOperator();
+		final int opcode = BuiltInOPs.getOpCode(opNode.getName());
+
+		if (opcode == 0) {
+			return compileUserDefined(expr, opNode, args, c, control);
+		}
+
+		switch (opcode) {
+		case OPCODE_cl: // ConjList
+		case OPCODE_dl: // DisjList
+			return new JunctionList(expr, opcode == OPCODE_cl, compileAll(args, c));
+		case OPCODE_land:
+			return new Junction(expr, Junction.AND, compile(args[0], c), compile(args[1], c));
+		case OPCODE_lor:
+			return new Junction(expr, Junction.OR, compile(args[0], c), compile(args[1], c));
+		case OPCODE_implies:
+			return new Junction(expr, Junction.IMPLIES, compile(args[0], c), compile(args[1], c));
+		case OPCODE_lnot:
+			return new Not(expr, compile(args[0], c));
+		case OPCODE_eq:
+		case OPCODE_noteq:
+			return new Equals(expr, opcode == OPCODE_eq, compile(args[0], c), compile(args[1], c));
+		case OPCODE_in:
+		case OPCODE_notin:
+			return new Member(expr, opcode == OPCODE_in, compile(args[0], c), compile(args[1], c));
+		case OPCODE_ite: // IfThenElse
+			return new IfThenElse(expr, compile(args[0], c), compile(args[1], c), compile(args[2], c));
+		case OPCODE_be: // BoundedExists
+		case OPCODE_bf: // BoundedForall
+			return compileQuantifier(expr, opcode == OPCODE_bf, args, c);
+		case OPCODE_fa: // FcnApply
+			if (args.length == 2) {
+				return new FcnApply(expr, compile(args[0], c, EvalControl.KeepLazy), compile(args[1], c));
+			}
+			return new Interpreted(expr, control);
+		case OPCODE_rs: // RcdSelect
+			final Object field = args[1].getToolObject(this.toolId);
+			if (field instanceof Value && !(field instanceof WorkerValue)) {
+				return new RcdSelect(expr, compile(args[0], c), (Value) field);
+			}
+			return new Interpreted(expr, control);
+		default:
+			return new Interpreted(expr, control);
+		}
+	}
+
+	private CompiledExpr compileUserDefined(final OpApplNode expr, final SymbolNode opNode,
+			final ExprOrOpArgNode[] args, final Context c, final int control) {
+		if (this.bound.contains(opNode)) {
+			return args.length == 0 ? new BoundVar(expr, this.bound.indexOf(opNode)) : new Interpreted(expr, control);
+		}
+		if (opNode.getToolObject(this.toolId) instanceof WorkerValue) {
+			// A per-worker value cannot be resolved ahead of time.
+			return new Interpreted(expr, control);
+		}
+		final Object val = this.tool.lookup(opNode, c, false);
+
+		if (val == opNode && opNode.getKind() == VariableDeclKind && args.length == 0) {
+			return new StateVar(expr, opNode.getName());
+		}
+		if (val instanceof OpDefNode) {
+			final OpDefNode opDef = (OpDefNode) val;
+			if (BuiltInOPs.getOpCode(opDef.getName()) == 0 && args.length == 0 && opDef.getArity() == 0
+					&& !this.inlining.contains(opDef)) {
+				this.inlining.add(opDef);
+				try {
+					// Tool evaluates the body in the (unchanged) context of the application.
+					return compile(opDef.getBody(), c, control);
+				} finally {
+					this.inlining.remove(opDef);
+				}
+			}
+			return new Interpreted(expr, control);
+		}
+		if (val instanceof MethodValue) {
+			return new MethodCall(expr, (MethodValue) val, compileAll(args, c));
+		}
+		if (val instanceof Value && !(val instanceof OpValue) && !(val instanceof LazyValue) && args.length == 0) {
+			return new Constant(expr, (Value) val);
+		}
+		return new Interpreted(expr, control);
+	}
+
+	private CompiledExpr compileQuantifier(final OpApplNode expr, final boolean isForall,
+			final ExprOrOpArgNode[] args, final Context c) {
+		final FormalParamNode[][] formals = expr.getBdedQuantSymbolLists();
+		if (formals.length != 1 || formals[0].length != 1 || expr.isBdedQuantATuple()[0]) {
+			// Multiple bounds and tuples are left to the ContextEnumerator.
+			return new Interpreted(expr, EvalControl.Clear);
+		}
+		final FormalParamNode var = formals[0][0];
+		if (this.bound.contains(var)) {
+			return new Interpreted(expr, EvalControl.Clear);
+		}
+		final CompiledExpr domain = compile(expr.getBdedQuantBounds()[0], c);
+		final int slot = this.bound.size();
+		this.bound.add(var);
+		this.slots = Math.max(this.slots, this.bound.size());
+		final CompiledExpr body;
+		try {
+			body = compile(args[0], c);
+		} finally {
+			this.bound.remove(slot);
+		}
+		// The quantifier itself is evaluated in the enclosing scope (see CompiledExpr#scope).
+		return new Quantifier(expr, isForall, slot, domain, body);
+	}
+
+	private CompiledExpr[] compileAll(final ExprOrOpArgNode[] args, final Context c) {
+		final CompiledExpr[] res = new CompiledExpr[args.length];
+		for (int i = 0; i < args.length; i++) {
+			res[i] = compile(args[i], c);
+		}
+		return res;
+	}
+
+	// ---------------------------------------------------------------- //
+
+	/**
+	 * The compiled form of an expression. eval returns what Tool#eval(expr, c, s0,
+	 * TLCState.Empty, EvalControl.Clear, CostModel.DO_NOT_RECORD) returns.
+	 */
+	abstract class CompiledExpr {
+
+		protected final SemanticNode expr;
+
+		/**
+		 * The bound variables in scope of expr, in the order of their slots.
+		 */
+		private final SymbolNode[] scope;
+
+		CompiledExpr(final SemanticNode expr) {
+			this.expr = expr;
+			this.scope = bound.toArray(new SymbolNode[bound.size()]);
+		}
+
+		/**
+		 * Evaluates this (top-level) expression in the context c.
+		 */
+		final Value eval(final Context c, final TLCState s0) {
+			return eval(new Frame(c, slots), s0);
+		}
+
+		abstract Value eval(Frame f, TLCState s0);
+
+		/**
+		 * @return The context in which Tool#eval evaluates expr.
+		 */
+		protected final Context context(final Frame f) {
+			return f.toContext(this.scope);
+		}
+
+		/**
+		 * Evaluates expr with the interpreter, which is how compiled nodes report
+		 * errors (interpret is expected to throw).
+		 */
+		protected final Value interpret(final Frame f, final TLCState s0) {
+			return tool.eval(this.expr, context(f), s0, TLCState.Empty, EvalControl.Clear, CostModel.DO_NOT_RECORD);
+		}
+	}
+
+	/**
+	 * The values of the bound variables of the compiled quantifiers, indexed by the
+	 * slots assigned at compile time, which replaces the linear Context#lookup of a
+	 * bound variable by an array access. Interpreted subexpressions get the
+	 * equivalent Context.
+	 */
+	static final class Frame {
+		private final Context con;
+		private final Value[] values;
+
+		/**
+		 * The Context of the slots [0, depth), which is valid until one of them is
+		 * re-bound.
+		 */
+		private Context cached;
+		private int depth = -1;
+
+		Frame(final Context con, final int size) {
+			this.con = con;
+			this.values = new Value[size];
+		}
+
+		Value lookup(final int slot) {
+			return this.values[slot];
+		}
+
+		void bind(final int slot, final Value val) {
+			this.values[slot] = val;
+			if (slot < this.depth) {
+				this.depth = -1;
+			}
+		}
+
+		Context toContext(final SymbolNode[] scope) {
+			if (scope.length == 0) {
+				return this.con;
+			}
+			if (this.depth != scope.length) {
+				Context c = this.con;
+				for (int i = 0; i < scope.length; i++) {
+					c = c.cons(scope[i], this.values[i]);
+				}
+				this.cached = c;
+				this.depth = scope.length;
+			}
+			return this.cached;
+		}
+	}
+
+	private final class Interpreted extends CompiledExpr {
+		private final int control;
+
+		Interpreted(final SemanticNode expr, final int control) {
+			super(expr);
+			this.control = control;
+		}
+
+		@Override
+		Value eval(final Frame f, final TLCState s0) {
+			return tool.eval(this.expr, context(f), s0, TLCState.Empty, this.control, CostModel.DO_NOT_RECORD);
+		}
+	}
+
+	private final class Constant extends CompiledExpr {
+		private final Value val;
+
+		Constant(final SemanticNode expr, final Value val) {
+			super(expr);
+			this.val = val;
+		}
+
+		@Override
+		Value eval(final Frame f, final TLCState s0) {
+			return this.val;
+		}
+	}
+
+	private final class StateVar extends CompiledExpr {
+		private final UniqueString name;
+
+		StateVar(final SemanticNode expr, final UniqueString name) {
+			super(expr);
+			this.name = name;
+		}
+
+		@Override
+		Value eval(final Frame f, final TLCState s0) {
+			final Value val = (Value) s0.lookup(this.name);
+			return val != null ? val : interpret(f, s0);
+		}
+	}
+
+	private final class BoundVar extends CompiledExpr {
+		private final int slot;
+
+		BoundVar(final SemanticNode expr, final int slot) {
+			super(expr);
+			this.slot = slot;
+		}
+
+		@Override
+		Value eval(final Frame f, final TLCState s0) {
+			return f.lookup(this.slot);
+		}
+	}
+
+	private final class MethodCall extends CompiledExpr {
+		private final MethodValue op;
+		private final CompiledExpr[] args;
+
+		MethodCall(final SemanticNode expr, final MethodValue op, final CompiledExpr[] args) {
+			super(expr);
+			this.op = op;
+			this.args = args;
+		}
+
+		@Override
+		Value eval(final Frame f, final TLCState s0) {
+			final Value[] argVals = new Value[this.args.length];
+			for (int i = 0; i < argVals.length; i++) {
+				argVals[i] = this.args[i].eval(f, s0);
+			}
+			return this.op.apply(argVals, EvalControl.Clear);
+		}
+	}
+
+	private final class JunctionList extends CompiledExpr {
+		private final boolean isConj;
+		private final CompiledExpr[] args;
+
+		JunctionList(final SemanticNode expr, final boolean isConj, final CompiledExpr[] args) {
+			super(expr);
+			this.isConj = isConj;
+			this.args = args;
+		}
+
+		@Override
+		Value eval(final Frame f, final TLCState s0) {
+			for (int i = 0; i < this.args.length; i++) {
+				final Value val = this.args[i].eval(f, s0);
+				if (!(val instanceof BoolValue)) {
+					return interpret(f, s0);
+				}
+				if (((BoolValue) val).val != this.isConj) {
+					return val;
+				}
+			}
+			return this.isConj ? BoolValue.ValTrue : BoolValue.ValFalse;
+		}
+	}
+
+	private final class Junction extends CompiledExpr {
+		static final int AND = 0;
+		static final int OR = 1;
+		static final int IMPLIES = 2;
+
+		private final int kind;
+		private final CompiledExpr lhs;
+		private final CompiledExpr rhs;
+
+		Junction(final SemanticNode expr, final int kind, final CompiledExpr lhs, final CompiledExpr rhs) {
+			super(expr);
+			this.kind = kind;
+			this.lhs = lhs;
+			this.rhs = rhs;
+		}
+
+		@Override
+		Value eval(final Frame f, final TLCState s0) {
+			final Value val1 = this.lhs.eval(f, s0);
+			if (!(val1 instanceof BoolValue)) {
+				return interpret(f, s0);
+			}
+			final boolean b1 = ((BoolValue) val1).val;
+			if (this.kind == AND ? !b1 : (this.kind == OR ? b1 : !b1)) {
+				// Short-circuit: FALSE /\ Q, TRUE \/ Q, FALSE => Q
+				return this.kind == AND ? BoolValue.ValFalse : BoolValue.ValTrue;
+			}
+			final Value val2 = this.rhs.eval(f, s0);
+			if (!(val2 instanceof BoolValue)) {
+				return interpret(f, s0);
+			}
+			return val2;
+		}
+	}
+
+	private final class Not extends CompiledExpr {
+		private final CompiledExpr arg;
+
+		Not(final SemanticNode expr, final CompiledExpr arg) {
+			super(expr);
+			this.arg = arg;
+		}
+
+		@Override
+		Value eval(final Frame f, final TLCState s0) {
+			final Value val = this.arg.eval(f, s0);
+			if (!(val instanceof BoolValue)) {
+				return interpret(f, s0);
+			}
+			return ((BoolValue) val).val ? BoolValue.ValFalse : BoolValue.ValTrue;
+		}
+	}
+
+	private final class Equals extends CompiledExpr {
+		private final boolean isEq;
+		private final CompiledExpr lhs;
+		private final CompiledExpr rhs;
+
+		Equals(final SemanticNode expr, final boolean isEq, final CompiledExpr lhs, final CompiledExpr rhs) {
+			super(expr);
+			this.isEq = isEq;
+			this.lhs = lhs;
+			this.rhs = rhs;
+		}
+
+		@Override
+		Value eval(final Frame f, final TLCState s0) {
+			final Value val1 = this.lhs.eval(f, s0);
+			final Value val2 = this.rhs.eval(f, s0);
+			return val1.equals(val2) == this.isEq ? BoolValue.ValTrue : BoolValue.ValFalse;
+		}
+	}
+
+	private final class Member extends CompiledExpr {
+		private final boolean isIn;
+		private final CompiledExpr elem;
+		private final CompiledExpr set;
+
+		Member(final SemanticNode expr, final boolean isIn, final CompiledExpr elem, final CompiledExpr set) {
+			super(expr);
+			this.isIn = isIn;
+			this.elem = elem;
+			this.set = set;
+		}
+
+		@Override
+		Value eval(final Frame f, final TLCState s0) {
+			final Value val1 = this.elem.eval(f, s0);
+			final Value val2 = this.set.eval(f, s0);
+			return val2.member(val1) == this.isIn ? BoolValue.ValTrue : BoolValue.ValFalse;
+		}
+	}
+
+	private final class IfThenElse extends CompiledExpr {
+		private final CompiledExpr cond;
+		private final CompiledExpr thenExpr;
+		private final CompiledExpr elseExpr;
+
+		IfThenElse(final SemanticNode expr, final CompiledExpr cond, final CompiledExpr thenExpr,
+				final CompiledExpr elseExpr) {
+			super(expr);
+			this.cond = cond;
+			this.thenExpr = thenExpr;
+			this.elseExpr = elseExpr;
+		}
+
+		@Override
+		Value eval(final Frame f, final TLCState s0) {
+			final Value val = this.cond.eval(f, s0);
+			if (!(val instanceof BoolValue)) {
+				return interpret(f, s0);
+			}
+			return ((BoolValue) val).val ? this.thenExpr.eval(f, s0) : this.elseExpr.eval(f, s0);
+		}
+	}
+
+	private final class Quantifier extends CompiledExpr {
+		private final boolean isForall;
+		private final int slot;
+		private final CompiledExpr domain;
+		private final CompiledExpr body;
+
+		Quantifier(final SemanticNode expr, final boolean isForall, final int slot,
+				final CompiledExpr domain, final CompiledExpr body) {
+			super(expr);
+			this.isForall = isForall;
+			this.slot = slot;
+			this.domain = domain;
+			this.body = body;
+		}
+
+		@Override
+		Value eval(final Frame f, final TLCState s0) {
+			final Value set = this.domain.eval(f, s0);
+			if (!(set instanceof Enumerable)) {
+				return interpret(f, s0);
+			}
+			final ValueEnumeration elems = ((Enumerable) set).elements();
+			Value elem;
+			while ((elem = elems.nextElement()) != null) {
+				f.bind(this.slot, elem);
+				final Value val = this.body.eval(f, s0);
+				if (!(val instanceof BoolValue)) {
+					return interpret(f, s0);
+				}
+				if (((BoolValue) val).val != this.isForall) {
+					return val;
+				}
+			}
+			return this.isForall ? BoolValue.ValTrue : BoolValue.ValFalse;
+		}
+	}
+
+	private final class FcnApply extends CompiledExpr {
+		private final CompiledExpr fcn;
+		private final CompiledExpr arg;
+
+		FcnApply(final SemanticNode expr, final CompiledExpr fcn, final CompiledExpr arg) {
+			super(expr);
+			this.fcn = fcn;
+			this.arg = arg;
+		}
+
+		@Override
+		Value eval(final Frame f, final TLCState s0) {
+			final Value fval = this.fcn.eval(f, s0);
+			if (fval instanceof FcnRcdValue || fval instanceof FcnLambdaValue || fval instanceof TupleValue
+					|| fval instanceof IntTupleValue || fval instanceof TupleViewValue || fval instanceof RecordValue) {
+				return ((Applicable) fval).apply(this.arg.eval(f, s0), EvalControl.Clear);
+			}
+			return interpret(f, s0);
+		}
+	}
+
+	private final class RcdSelect extends CompiledExpr {
+		private final CompiledExpr rcd;
+		private final Value field;
+
+		RcdSelect(final SemanticNode expr, final CompiledExpr rcd, final Value field) {
+			super(expr);
+			this.rcd = rcd;
+			this.field = field;
+		}
+
+		@Override
+		Value eval(final Frame f, final TLCState s0) {
+			final Value rval = this.rcd.eval(f, s0);
+			if (rval instanceof RecordValue) {
+				final Value result = ((RecordValue) rval).select(this.field);
+				if (result != null) {
+					return result;
+				}
+			}
+			return interpret(f, s0);
+		}
+	}
+}
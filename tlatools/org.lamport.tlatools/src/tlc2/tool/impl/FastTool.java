@@ -25,30 +25,98 @@
  ******************************************************************************/
 package tlc2.tool.impl;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import tla2sany.semantic.ExprNode;
 import tla2sany.semantic.OpApplNode;
 import tla2sany.semantic.SemanticNode;
+import tlc2.output.EC;
 import tlc2.tool.Action;
+import tlc2.tool.EvalException;
 import tlc2.tool.IActionItemList;
 import tlc2.tool.INextStateFunctor;
 import tlc2.tool.TLCState;
 import tlc2.tool.coverage.CostModel;
 import tlc2.util.Context;
+import tlc2.tool.impl.ExprCompiler.CompiledExpr;
 import tlc2.util.ExpectInlined;
+import tlc2.value.impl.BoolValue;
+import tlc2.value.impl.OpValue;
 import tlc2.value.impl.Value;
+import util.Assert;
 import util.FilenameToStream;
 
 public final class FastTool extends Tool {
 
+	// Non-null iff the invariants and state constraints have been compiled (see
+	// ExprCompiler).
+	private Map<Action, CompiledExpr> compiledInvariants;
+	private CompiledExpr[] compiledConstraints;
+
 	public FastTool(String mainFile, String configFile) {
 		super(mainFile, configFile);
+		compile();
 	}
 
 	public FastTool(String mainFile, String configFile, FilenameToStream resolver) {
 		super(mainFile, configFile, resolver);
+		compile();
 	}
 
 	public FastTool(String specDir, String specFile, String configFile, FilenameToStream fts) {
 		super(specDir, specFile, configFile, fts);
+		compile();
+	}
+
+	private final void compile() {
+		if (!ExprCompiler.ENABLED || coverage) {
+			// Compiled expressions do not record coverage.
+			return;
+		}
+		final ExprCompiler compiler = new ExprCompiler(this);
+
+		final Action[] invariants = getInvariants();
+		this.compiledInvariants = new IdentityHashMap<>(invariants.length);
+		for (final Action inv : invariants) {
+			this.compiledInvariants.put(inv, compiler.compile(inv.pred, inv.con));
+		}
+
+		final ExprNode[] constraints = getModelConstraints();
+		this.compiledConstraints = new CompiledExpr[constraints.length];
+		for (int i = 0; i < constraints.length; i++) {
+			this.compiledConstraints[i] = compiler.compile(constraints[i], Context.Empty);
+		}
+	}
+
+	@Override
+	public final boolean isValid(final Action act, final TLCState state) {
+		final CompiledExpr compiled = this.compiledInvariants != null ? this.compiledInvariants.get(act) : null;
+		if (compiled == null) {
+			return super.isValid(act, state);
+		}
+		final Value val = compiled.eval(act.con, state);
+		if (!(val instanceof BoolValue)) {
+			Assert.fail(EC.TLC_EXPECTED_VALUE, new String[] { "boolean", act.pred.toString() });
+		}
+		return ((BoolValue) val).val;
+	}
+
+	@Override
+	public final boolean isInModel(final TLCState state) throws EvalException {
+		if (this.compiledConstraints == null) {
+			return super.isInModel(state);
+		}
+		for (int i = 0; i < this.compiledConstraints.length; i++) {
+			final Value val = this.compiledConstraints[i].eval(Context.Empty, state);
+			if (!(val instanceof BoolValue)) {
+				Assert.fail(EC.TLC_EXPECTED_VALUE, new String[] { "boolean", this.compiledConstraints[i].expr.toString() });
+			}
+			if (!((BoolValue) val).val) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	// The methods below are supposed to be inlined during execution for performance
@@ -87,6 +155,14 @@ public final class FastTool extends Tool {
 	@Override
 	protected final Value evalAppl(final OpApplNode expr, final Context c, final TLCState s0, final TLCState s1,
 			final int control, final CostModel cm) {
+		if (ConstantFolder.ENABLED) {
+			// CallStackTool ignores the folded values to report the nested expressions of
+			// an error.
+			final Object folded = expr.getToolObject(toolId);
+			if (folded != null && !(folded instanceof OpValue)) {
+				return (Value) WorkerValue.mux(folded);
+			}
+		}
 		return evalApplImpl(expr, c, s0, s1, control, cm);
 	}
 
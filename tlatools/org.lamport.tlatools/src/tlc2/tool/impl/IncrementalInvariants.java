@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import tla2sany.semantic.SymbolNode;
+import tlc2.output.EC;
+import tlc2.output.MP;
+import tlc2.tool.Action;
+import tlc2.value.impl.LazyValue;
+import util.UniqueString;
+
+/**
+ * Skips the invariants that an action leaves unaffected: An invariant is
+ * re-evaluated for every new state even if the action that generated the state
+ * did not change any of the variables the invariant reads. Given that the
+ * invariants hold in the predecessor (it has been checked before its
+ * successors are generated), such an invariant also holds in the successor.
+ * IncrementalInvariants determines for each action of the next-state relation
+ * the variables it might change (the variables it primes outside of UNCHANGED),
+ * and for each invariant the variables it reads (see Dependencies). An
+ * invariant is unaffected by an action if the two are disjoint.
+ * <p>
+ * An invariant is never skipped if it is not pure (e.g. it applies TLCGet or
+ * RandomElement), and no invariant is skipped for an action whose changed
+ * variables cannot be determined (e.g. an action of an instantiated module).
+ * Worker does not skip invariants when TLC continues after a violation, in
+ * which case the predecessor might violate an invariant. The number of
+ * evaluations skipped of each invariant is reported after model checking.
+ * <p>
+ * Enable with -Dtlc2.tool.impl.IncrementalInvariants.enabled=true
+ */
+public final class IncrementalInvariants {
+
+	public static final boolean ENABLED = Boolean.getBoolean(IncrementalInvariants.class.getName() + ".enabled");
+
+	private final String[] names;
+
+	/**
+	 * Maps an action to the invariants it does not affect (by index), if any.
+	 */
+	private final Map<Action, boolean[]> unaffected = new IdentityHashMap<>();
+
+	private final LongAdder[] skipped;
+
+	IncrementalInvariants(final Tool tool, final Dependencies dependencies, final Action[] actions) {
+		final Action[] invariants = tool.getInvariants();
+		this.names = tool.getInvNames();
+		this.skipped = new LongAdder[invariants.length];
+
+		// The variables read by each invariant, or null if its value might depend on
+		// anything else.
+		final List<Set<UniqueString>> reads = new ArrayList<>(invariants.length);
+		for (int k = 0; k < invariants.length; k++) {
+			this.skipped[k] = new LongAdder();
+			final Set<UniqueString> vars = new HashSet<>();
+			reads.add(dependencies.isClosed(invariants[k].pred, Collections.emptySet(), new HashSet<>(), null, vars)
+					? vars
+					: null);
+		}
+
+		for (final Action action : actions) {
+			final Set<UniqueString> changed = changedBy(dependencies, action);
+			if (changed == null) {
+				continue;
+			}
+			final boolean[] mask = new boolean[invariants.length];
+			boolean any = false;
+			for (int k = 0; k < invariants.length; k++) {
+				if (reads.get(k) != null && Collections.disjoint(reads.get(k), changed)) {
+					mask[k] = any = true;
+				}
+			}
+			if (any) {
+				this.unaffected.put(action, mask);
+			}
+		}
+	}
+
+	/**
+	 * @return The variables that action might change, or null if they cannot be
+	 *         determined.
+	 */
+	private static Set<UniqueString> changedBy(final Dependencies dependencies, final Action action) {
+		final Set<SymbolNode> visited = new HashSet<>();
+		final Set<SymbolNode> visitedPrimed = new HashSet<>();
+		final Set<UniqueString> changed = new HashSet<>();
+		if (!dependencies.collectPrimed(action.pred, false, visited, visitedPrimed, changed)) {
+			return null;
+		}
+		// The expressions bound to the parameters of the operators applied by the
+		// next-state relation (see Tool#getActions).
+		final SymbolNode undetermined = action.con.lookupName(name -> {
+			final Object val = name == null ? null : action.con.lookup(name);
+			return val instanceof LazyValue
+					&& !dependencies.collectPrimed(((LazyValue) val).expr, false, visited, visitedPrimed, changed);
+		});
+		return undetermined == null ? changed : null;
+	}
+
+	/**
+	 * @return The number of actions that leave at least one invariant unaffected.
+	 */
+	int getActions() {
+		return this.unaffected.size();
+	}
+
+	/**
+	 * @return The invariants (by index) that action does not affect, or null if
+	 *         it affects all of them.
+	 */
+	public boolean[] getUnaffected(final Action action) {
+		return this.unaffected.get(action);
+	}
+
+	/**
+	 * Records that the evaluation of the k-th invariant has been skipped.
+	 */
+	public void skipped(final int k) {
+		this.skipped[k].increment();
+	}
+
+	/**
+	 * Prints the number of skipped evaluations of each invariant.
+	 */
+	public void report() {
+		for (int k = 0; k < this.names.length; k++) {
+			MP.printMessage(EC.TLC_STATS_INVARIANT_SKIPPED,
+					new String[] { this.names[k], String.valueOf(this.skipped[k].sum()) });
+		}
+	}
+}
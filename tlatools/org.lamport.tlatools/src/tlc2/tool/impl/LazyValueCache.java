@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import tla2sany.semantic.LetInNode;
+import tla2sany.semantic.ModuleNode;
+import tla2sany.semantic.OpDefNode;
+import tla2sany.semantic.SemanticNode;
+import tla2sany.semantic.SymbolNode;
+import tlc2.tool.EvalControl;
+import tlc2.tool.TLCState;
+import tlc2.tool.coverage.CostModel;
+import tlc2.util.Context;
+import tlc2.value.impl.Value;
+import util.UniqueString;
+
+/**
+ * Caches the values of LET definitions across states: A LazyValue caches the
+ * value of a (zero-arity) LET definition only for the evaluation of the LET
+ * expression, and Tool#getNextStates evaluates a LET definition for every
+ * reference. Thus, a definition such as
+ * <code>LET q == Head(queue[self]) IN ...</code> is evaluated again for every
+ * successor of a state and for every state, even if queue and self have not
+ * changed.
+ * <p>
+ * LazyValueCache determines (see Dependencies) for every LET definition of
+ * constant or state level the identifiers bound outside of it (e.g. self) and
+ * the variables its value depends on. The value of a definition is then cached
+ * keyed by the definition and the fingerprints of these identifiers and
+ * variables, and reused across the successors of a state and across states
+ * that agree on these variables. A definition whose value depends on an
+ * operator argument or another LET definition that has not been evaluated
+ * (yet) is evaluated as before. Definitions are only cached when evaluated with
+ * EvalControl.Clear, i.e. not while generating initial states or evaluating
+ * ENABLED. Errors are never cached.
+ * <p>
+ * Each worker has its own cache that holds at most SIZE values, evicting the
+ * least recently used one. The hits and misses of each definition are reported
+ * as part of the cost model (coverage) output.
+ * <p>
+ * Enable with -Dtlc2.tool.impl.LazyValueCache.enabled=true (and set the size
+ * of each worker's cache with -Dtlc2.tool.impl.LazyValueCache.size=65536)
+ */
+final class LazyValueCache {
+
+	static final boolean ENABLED = Boolean.getBoolean(LazyValueCache.class.getName() + ".enabled");
+
+	private static final int SIZE = Integer.getInteger(LazyValueCache.class.getName() + ".size", 1 << 16);
+
+	/**
+	 * The cached LET definitions keyed by their bodies.
+	 */
+	private final Map<SemanticNode, OpMemo.Info> infos = new HashMap<>();
+
+	private final ThreadLocal<Map<OpMemo.Key, Value>> caches = ThreadLocal.withInitial(() -> OpMemo.newCache(SIZE));
+
+	LazyValueCache(final Tool tool, final Dependencies dependencies) {
+		final Set<SemanticNode> visited = new HashSet<>();
+		for (final ModuleNode module : tool.getSpecProcessor().getModuleTbl().getModuleNodes()) {
+			for (final OpDefNode opDef : module.getOpDefs()) {
+				collect(opDef.getBody(), dependencies, visited);
+			}
+		}
+	}
+
+	private void collect(final SemanticNode expr, final Dependencies dependencies, final Set<SemanticNode> visited) {
+		if (expr == null || !visited.add(expr)) {
+			return;
+		}
+		if (expr instanceof LetInNode) {
+			for (final OpDefNode let : ((LetInNode) expr).getLets()) {
+				if (let.getArity() == 0 && let.getBody().getLevel() <= 1) {
+					final Set<SymbolNode> free = new LinkedHashSet<>();
+					final Set<UniqueString> vars = new LinkedHashSet<>();
+					if (dependencies.isClosed(let.getBody(), new HashSet<>(), new HashSet<>(Arrays.asList(let)), free,
+							vars)) {
+						this.infos.put(let.getBody(), new OpMemo.Info(let, free.toArray(OpMemo.NO_SYMBOLS),
+								vars.toArray(OpMemo.NO_VARS)));
+					}
+				}
+			}
+		}
+		final SemanticNode[] children = expr.getChildren();
+		if (children != null) {
+			for (final SemanticNode child : children) {
+				collect(child, dependencies, visited);
+			}
+		}
+	}
+
+	/**
+	 * @return The number of cached LET definitions.
+	 */
+	int getCached() {
+		return this.infos.size();
+	}
+
+	/**
+	 * @return The value of expr, which is reused if expr is the body of a cached
+	 *         LET definition.
+	 */
+	Value eval(final Tool tool, final SemanticNode expr, final Context con, final TLCState s0, final TLCState s1,
+			final int control, final CostModel cm) {
+		final OpMemo.Info info = control == EvalControl.Clear ? this.infos.get(expr) : null;
+		if (info == null) {
+			return tool.eval(expr, con, s0, s1, control, cm);
+		}
+		final OpMemo.Key key = OpMemo.keyOf(info, OpMemo.NO_VALUES, con, s0);
+		final Map<OpMemo.Key, Value> cache = this.caches.get();
+		if (key != null) {
+			final Value res = cache.get(key);
+			if (res != null) {
+				info.hit();
+				return res;
+			}
+		}
+		info.miss();
+		final Value res = tool.eval(expr, con, s0, s1, control, cm);
+		if (key != null) {
+			cache.put(key, res);
+		}
+		return res;
+	}
+
+	/**
+	 * Prints the hits and misses of the cached LET definitions that have been
+	 * evaluated.
+	 */
+	void report() {
+		OpMemo.report(this.infos.values());
+	}
+}
@@ -0,0 +1,319 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import tla2sany.semantic.ExprOrOpArgNode;
+import tla2sany.semantic.FormalParamNode;
+import tla2sany.semantic.ModuleNode;
+import tla2sany.semantic.OpDefNode;
+import tla2sany.semantic.SymbolNode;
+import tlc2.output.EC;
+import tlc2.output.MP;
+import tlc2.tool.EvalControl;
+import tlc2.tool.TLCState;
+import tlc2.tool.coverage.CostModel;
+import tlc2.util.Context;
+import tlc2.util.FP64;
+import tlc2.value.IValue;
+import tlc2.value.impl.LazyValue;
+import tlc2.value.impl.UndefValue;
+import tlc2.value.impl.Value;
+import util.UniqueString;
+
+/**
+ * Memoizes the applications of pure operators: Tool#evalAppl evaluates the
+ * body of a (recursive) operator such as <code>Max(S)</code>,
+ * <code>Sum(f, S)</code> or <code>Reachable(G, n)</code> again for every
+ * application, even if it has been applied to the same arguments in a previous
+ * state. OpMemo caches the value of an application keyed by the operator and
+ * the fingerprints of its arguments and, for a state-level operator, of the
+ * variables its body (transitively) reads.
+ * <p>
+ * An operator definition is memoized if it is defined at the top level of a
+ * module (not in a LET or an instantiated module with parameters), has
+ * parameters that are not operators, its body is of constant or state level
+ * (no primed variables and no ENABLED), refers to no identifiers other than its
+ * parameters, the identifiers bound in it, constants, variables and
+ * definitions of the same kind, and it does not (transitively) apply an
+ * operator with side effects (Print, TLCSet, ...) or a non-deterministic one
+ * (RandomElement, JavaTime, ...), see Dependencies.
+ * <p>
+ * The arguments of a memoized application are evaluated eagerly instead of
+ * lazily, thus an argument is evaluated even if the body does not use it. If
+ * an argument cannot be evaluated, the application is evaluated by
+ * Tool#evalAppl as before. Applications are only memoized when evaluated with
+ * EvalControl.Clear, i.e. not while generating initial states or evaluating
+ * ENABLED. Errors are never memoized.
+ * <p>
+ * Each worker has its own cache that holds at most SIZE applications, evicting
+ * the least recently used one. The hits and misses of each operator are
+ * reported as part of the cost model (coverage) output.
+ * <p>
+ * Enable with -Dtlc2.tool.impl.OpMemo.enabled=true (and set the size of each
+ * worker's cache with -Dtlc2.tool.impl.OpMemo.size=65536)
+ */
+final class OpMemo {
+
+	static final boolean ENABLED = Boolean.getBoolean(OpMemo.class.getName() + ".enabled");
+
+	private static final int SIZE = Integer.getInteger(OpMemo.class.getName() + ".size", 1 << 16);
+
+	static final UniqueString[] NO_VARS = new UniqueString[0];
+
+	static final SymbolNode[] NO_SYMBOLS = new SymbolNode[0];
+
+	static final Value[] NO_VALUES = new Value[0];
+
+	/**
+	 * What the value of a memoized expression depends on.
+	 */
+	static final class Info {
+		private final OpDefNode opDef;
+		/**
+		 * The identifiers bound outside of opDef, whose values opDef's body depends
+		 * on (only for the definitions in a LET).
+		 */
+		private final SymbolNode[] free;
+		/**
+		 * The variables read by opDef's body.
+		 */
+		private final UniqueString[] vars;
+		private final LongAdder hits = new LongAdder();
+		private final LongAdder misses = new LongAdder();
+
+		Info(final OpDefNode opDef, final SymbolNode[] free, final UniqueString[] vars) {
+			this.opDef = opDef;
+			this.free = free;
+			this.vars = vars;
+		}
+
+		void hit() {
+			this.hits.increment();
+		}
+
+		void miss() {
+			this.misses.increment();
+		}
+	}
+
+	static final class Key {
+		private final OpDefNode opDef;
+		private final long fp;
+
+		private Key(final OpDefNode opDef, final long fp) {
+			this.opDef = opDef;
+			this.fp = fp;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (this.fp ^ (this.fp >>> 32));
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return this.opDef == other.opDef && this.fp == other.fp;
+		}
+	}
+
+	private final int toolId;
+
+	private final Map<OpDefNode, Info> infos = new HashMap<>();
+
+	private final ThreadLocal<Map<Key, Value>> caches = ThreadLocal.withInitial(() -> newCache(SIZE));
+
+	/**
+	 * @return A cache that evicts the least recently used entry once it holds more
+	 *         than size entries.
+	 */
+	static Map<Key, Value> newCache(final int size) {
+		return new LinkedHashMap<Key, Value>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Key, Value> eldest) {
+				return size() > size;
+			}
+		};
+	}
+
+	OpMemo(final Tool tool, final Dependencies dependencies) {
+		this.toolId = tool.getId();
+		for (final ModuleNode module : tool.getSpecProcessor().getModuleTbl().getModuleNodes()) {
+			for (final OpDefNode opDef : module.getOpDefs()) {
+				if (isMemoizable(opDef)) {
+					final Set<UniqueString> vars = new LinkedHashSet<>();
+					if (dependencies.isClosed(opDef.getBody(), new HashSet<>(Arrays.asList(opDef.getParams())),
+							new HashSet<>(Arrays.asList(opDef)), null, vars)) {
+						this.infos.put(opDef, new Info(opDef, NO_SYMBOLS, vars.toArray(NO_VARS)));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The number of memoized operator definitions.
+	 */
+	int getMemoized() {
+		return this.infos.size();
+	}
+
+	/**
+	 * @return The value of the application of opDef to args, or null if opDef is
+	 *         not memoized or an argument cannot be evaluated eagerly.
+	 */
+	Value eval(final Tool tool, final OpDefNode opDef, final ExprOrOpArgNode[] args, final Context c,
+			final TLCState s0, final TLCState s1, final CostModel cm) {
+		final Info info = this.infos.get(opDef);
+		if (info == null) {
+			return null;
+		}
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].getLevel() > 1) {
+				return null;
+			}
+		}
+		final FormalParamNode[] formals = opDef.getParams();
+		final Value[] vals = new Value[args.length];
+		Context c1 = c;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				vals[i] = tool.eval(args[i], c, s0, s1, EvalControl.Clear, cm);
+				c1 = c1.cons(formals[i], vals[i]);
+			}
+		} catch (RuntimeException e) {
+			// Let Tool#evalAppl evaluate the arguments lazily (and report the error if necessary).
+			return null;
+		}
+
+		final Key key = keyOf(info, vals, c, s0);
+		final Map<Key, Value> cache = this.caches.get();
+		if (key != null) {
+			final Value res = cache.get(key);
+			if (res != null) {
+				info.hit();
+				return res;
+			}
+		}
+		info.miss();
+		final Value res = tool.eval(opDef.getBody(), c1, s0, s1, EvalControl.Clear, cm);
+		if (key != null) {
+			cache.put(key, res);
+		}
+		return res;
+	}
+
+	/**
+	 * @return The key of the application of info's definition to vals in context
+	 *         con and state s0, or null if it cannot be fingerprinted (e.g. an
+	 *         infinite set), or con or s0 lack an identifier or variable its body
+	 *         depends on.
+	 */
+	static Key keyOf(final Info info, final Value[] vals, final Context con, final TLCState s0) {
+		try {
+			long fp = FP64.New();
+			for (int i = 0; i < vals.length; i++) {
+				fp = vals[i].fingerPrint(fp);
+			}
+			for (int i = 0; i < info.free.length; i++) {
+				Object val = con.lookup(info.free[i]);
+				if (val instanceof LazyValue) {
+					// An operator argument or LET definition, which is only evaluated on demand.
+					val = ((LazyValue) val).getValue();
+				}
+				if (!(val instanceof Value) || val == UndefValue.ValUndef) {
+					return null;
+				}
+				fp = ((Value) val).fingerPrint(fp);
+			}
+			for (int i = 0; i < info.vars.length; i++) {
+				final IValue val = s0.lookup(info.vars[i]);
+				if (val == null) {
+					return null;
+				}
+				fp = val.fingerPrint(fp);
+			}
+			return new Key(info.opDef, fp);
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Prints the hits and misses of the memoized operators that have been applied.
+	 */
+	void report() {
+		report(this.infos.values());
+	}
+
+	static void report(final Collection<Info> infos) {
+		final List<Info> applied = new ArrayList<>();
+		for (final Info info : infos) {
+			if (info.hits.sum() + info.misses.sum() > 0) {
+				applied.add(info);
+			}
+		}
+		applied.sort((i1, i2) -> i1.opDef.getLocation().compareTo(i2.opDef.getLocation()));
+		for (final Info info : applied) {
+			MP.printMessage(EC.TLC_COVERAGE_MEMO,
+					new String[] { String.format("<%s %s>", info.opDef.getName(), info.opDef.getLocation()),
+							String.valueOf(info.hits.sum()), String.valueOf(info.misses.sum()) });
+		}
+	}
+
+	private boolean isMemoizable(final OpDefNode opDef) {
+		if (opDef.getArity() <= 0 || opDef.getBody() == null || opDef.getBody().getLevel() > 1
+				|| opDef.getToolObject(this.toolId) != null || opDef.getBody().getToolObject(this.toolId) != null
+				|| ConstantFolder.isParameterized(opDef)) {
+			// A constant definition, an overridden operator, or one of an instantiated
+			// module whose substitutions are part of the context.
+			return false;
+		}
+		for (final FormalParamNode param : opDef.getParams()) {
+			if (param.getArity() > 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -82,6 +82,7 @@ import tlc2.util.Vect;
 import tlc2.value.IBoolValue;
 import tlc2.value.IValue;
 import tlc2.value.ValueConstants;
+import tlc2.value.impl.BigIntValue;
 import tlc2.value.impl.BoolValue;
 import tlc2.value.impl.CallableValue;
 import tlc2.value.impl.EvaluatingValue;
@@ -301,7 +302,7 @@ public class SpecProcessor implements ValueConstants, ToolGlobals {
 	private static final Set<String> vetos = new HashSet<String>(
 			Arrays.asList(System.getProperty(LAZY_CONSTANT_OPERATORS, "")));
 
-	private boolean isVetoed(final UniqueString us) {
+	static boolean isVetoed(final UniqueString us) {
 		return vetos.contains(us.toString());
 	}
 
@@ -1590,13 +1591,16 @@ public class SpecProcessor implements ValueConstants, ToolGlobals {
 
         case NumeralKind: {
             NumeralNode expr1 = (NumeralNode) expr;
-            IntValue val = IntValue.gen(expr1.val());
+            Value val = IntValue.gen(expr1.val());
             // LL added this test on 20 Jul 2011; otherwise
             // TLC treats a number bigger than MAX_VALUE 
             // (2^31-1 or 2,147,483,647) as if it equals 0.
             if (expr1.bigVal() != null) {
-            	Assert.fail(EC.TLC_INTEGER_TOO_BIG, expr1.toString());
-                return;
+            	if (!BigIntValue.ENABLED) {
+            		Assert.fail(EC.TLC_INTEGER_TOO_BIG, expr1.toString());
+            		return;
+            	}
+            	val = BigIntValue.gen(expr1.bigVal());
             }
             expr1.setToolObject(toolId, val);
             return;
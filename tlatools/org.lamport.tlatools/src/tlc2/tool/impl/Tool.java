@@ -45,6 +45,7 @@ import tlc2.tool.TLCState;
 import tlc2.tool.TLCStateFun;
 import tlc2.tool.TLCStateInfo;
 import tlc2.tool.TLCStateMut;
+import tlc2.tool.TLCStatePacked;
 import tlc2.tool.ToolGlobals;
 import tlc2.tool.coverage.CostModel;
 import tlc2.util.Context;
@@ -63,6 +64,7 @@ import tlc2.value.impl.EvaluatingValue;
 import tlc2.value.impl.FcnLambdaValue;
 import tlc2.value.impl.FcnParams;
 import tlc2.value.impl.FcnRcdValue;
+import tlc2.value.impl.IntTupleValue;
 import tlc2.value.impl.LazyValue;
 import tlc2.value.impl.MVPerm;
 import tlc2.value.impl.MVPerms;
@@ -83,6 +85,7 @@ import tlc2.value.impl.SetPredValue;
 import tlc2.value.impl.StringValue;
 import tlc2.value.impl.SubsetValue;
 import tlc2.value.impl.TupleValue;
+import tlc2.value.impl.TupleViewValue;
 import tlc2.value.impl.UnionValue;
 import tlc2.value.impl.Value;
 import tlc2.value.impl.ValueEnumeration;
@@ -109,6 +112,10 @@ public abstract class Tool
   public static final Value[] EmptyArgs = new Value[0];
 
   protected final Action[] actions;     // the list of TLA actions.
+  private final ActionIndex actionIndex; // null unless ActionIndex.ENABLED
+  private final OpMemo opMemo; // null unless OpMemo.ENABLED
+  private final LazyValueCache lazyValueCache; // null unless LazyValueCache.ENABLED
+  private final IncrementalInvariants incrementalInvariants; // null unless IncrementalInvariants.ENABLED
   private Vect<Action> actionVec = new Vect<>(10);
 
   /**
@@ -133,6 +140,10 @@ public abstract class Tool
 
       // Initialize state.
       TLCStateMut.setTool(this);
+      if (TLCStatePacked.ENABLED) {
+    	  // Replaces TLCState.Empty iff the invariants define the type of a scalar variable.
+    	  TLCStatePacked.setup(this);
+      }
       
 		Action next = this.getNextStateSpec();
 		if (next == null) {
@@ -145,12 +156,51 @@ public abstract class Tool
 				this.actions[i] = (Action) this.actionVec.elementAt(i);
 			}
 		}
+		if (ConstantFolder.ENABLED && !coverage) {
+			// Folded subexpressions do not record coverage.
+			final int folded = new ConstantFolder(this).fold(this.actions);
+			MP.printMessage(EC.TLC_CONSTANT_FOLDING, String.valueOf(folded));
+		}
+		if (ActionIndex.ENABLED && !coverage) {
+			// Skipped actions would not be recorded by coverage.
+			this.actionIndex = new ActionIndex(this, this.actions);
+			MP.printMessage(EC.TLC_ACTION_INDEX, String.valueOf(this.actionIndex.getIndexed()),
+					String.valueOf(this.actions.length));
+		} else {
+			this.actionIndex = null;
+		}
+		final Dependencies dependencies = OpMemo.ENABLED || LazyValueCache.ENABLED
+				|| IncrementalInvariants.ENABLED ? new Dependencies(this) : null;
+		if (OpMemo.ENABLED) {
+			this.opMemo = new OpMemo(this, dependencies);
+			MP.printMessage(EC.TLC_OP_MEMO, String.valueOf(this.opMemo.getMemoized()));
+		} else {
+			this.opMemo = null;
+		}
+		if (LazyValueCache.ENABLED) {
+			this.lazyValueCache = new LazyValueCache(this, dependencies);
+			MP.printMessage(EC.TLC_LAZY_VALUE_CACHE, String.valueOf(this.lazyValueCache.getCached()));
+		} else {
+			this.lazyValueCache = null;
+		}
+		if (IncrementalInvariants.ENABLED && !coverage) {
+			// Skipped invariants would not be recorded by coverage.
+			this.incrementalInvariants = new IncrementalInvariants(this, dependencies, this.actions);
+			MP.printMessage(EC.TLC_INCREMENTAL_INVARIANTS, new String[] {
+					String.valueOf(this.incrementalInvariants.getActions()), String.valueOf(this.actions.length) });
+		} else {
+			this.incrementalInvariants = null;
+		}
   }
 
   Tool(Tool other) {
 	  super(other);
 	  this.actions = other.actions;
 	  this.actionVec = other.actionVec;
+	  this.actionIndex = other.actionIndex;
+	  this.opMemo = other.opMemo;
+	  this.lazyValueCache = other.lazyValueCache;
+	  this.incrementalInvariants = other.incrementalInvariants;
   }
 
 	/**
@@ -166,6 +216,21 @@ public abstract class Tool
     return this.actions;
   }
 
+  @Override
+  public final void reportMemoized() {
+	  if (this.opMemo != null) {
+		  this.opMemo.report();
+	  }
+	  if (this.lazyValueCache != null) {
+		  this.lazyValueCache.report();
+	  }
+  }
+
+  @Override
+  public final IncrementalInvariants getIncrementalInvariants() {
+	  return this.incrementalInvariants;
+  }
+
 	private final void getActions(final Action next) {
 		this.getActions(next.pred, next.con, next.getOpDef(), next.cm);
 	}
@@ -767,6 +832,16 @@ public abstract class Tool
   
   @Override
   public final boolean getNextStates(final INextStateFunctor functor, final TLCState state) {
+	  if (actionIndex != null) {
+		  // Only the actions whose guards might hold in state.
+		  final int[] candidates = actionIndex.candidates(state);
+		  for (int i = 0; i < candidates.length; i++) {
+			  final Action action = actions[candidates[i]];
+			  this.getNextStates(action, action.pred, ActionItemList.Empty, action.con, state, TLCState.Empty.createEmpty(),
+					  functor, action.cm);
+		  }
+		  return false;
+	  }
 	  for (int i = 0; i < actions.length; i++) {
 			final Action action = actions[i];
 			this.getNextStates(action, action.pred, ActionItemList.Empty, action.con, state, TLCState.Empty.createEmpty(),
@@ -1342,6 +1417,12 @@ public abstract class Tool
   		ExprOrOpArgNode[] args, int alen, CostModel cm, CostModel cmNested) {
   	// a tuple:
   	if (alen != 0) {
+  	  if (!coverage) {
+  	    final SymbolNode[] vars = this.getVars(args, c);
+  	    if (vars != null) {
+  	      return processUnchangedImplVars(action, args, acts, s0, s1, nss, vars, cm);
+  	    }
+  	  }
   	  ActionItemList acts1 = acts;
   	  for (int i = alen-1; i > 0; i--) {
   	    acts1 = (ActionItemList) acts1.cons(args[i], c, cmNested, IActionItemList.UNCHANGED);
@@ -1351,6 +1432,54 @@ public abstract class Tool
   	return this.getNextStates(action, acts, s0, s1, nss, cm);
   }
   
+  /**
+   * @return The state variables denoted by args, or null if an element of args
+   *         is not a state variable.
+   */
+  private final SymbolNode[] getVars(final ExprOrOpArgNode[] args, final Context c) {
+	  final SymbolNode[] vars = new SymbolNode[args.length];
+	  for (int i = 0; i < args.length; i++) {
+		  vars[i] = this.getVar(args[i], c, false, toolId);
+		  if (vars[i] == null) {
+			  return null;
+		  }
+	  }
+	  return vars;
+  }
+
+  /**
+   * UNCHANGED &lt;&lt;v1, ..., vn&gt;&gt; of state variables: Instead of processing
+   * the UNCHANGED of each variable as a separate action item, which recurses into
+   * getNextStates once per variable, bind the unassigned variables in s1 to
+   * their values in s0 in one go.
+   */
+  @ExpectInlined
+  private final TLCState processUnchangedImplVars(final Action action, final ExprOrOpArgNode[] args, final ActionItemList acts,
+		  final TLCState s0, final TLCState s1, final INextStateFunctor nss, final SymbolNode[] vars, final CostModel cm) {
+	  final UniqueString[] bound = new UniqueString[vars.length];
+	  int len = 0;
+	  for (int i = 0; i < vars.length; i++) {
+		  final UniqueString varName = vars[i].getName();
+		  final IValue val0 = s0.lookup(varName);
+		  final IValue val1 = s1.lookup(varName);
+		  if (val1 == null) {
+			  s1.bind(varName, val0);
+			  bound[len++] = varName;
+		  } else if (!val0.equals(val1)) {
+			  MP.printWarning(EC.TLC_UNCHANGED_VARIABLE_CHANGED, new String[]{varName.toString(), args[i].toString()});
+			  for (int j = 0; j < len; j++) {
+				  s1.unbind(bound[j]);
+			  }
+			  return s1;
+		  }
+	  }
+	  final TLCState resState = this.getNextStates0(action, acts, s0, s1, nss, cm);
+	  for (int j = 0; j < len; j++) {
+		  resState.unbind(bound[j]);
+	  }
+	  return resState;
+  }
+
   @ExpectInlined
   private final TLCState processUnchangedImplVar(final Action action, SemanticNode expr, ActionItemList acts, TLCState s0, TLCState s1, INextStateFunctor nss,
   		SymbolNode var, final CostModel cm) {
@@ -1541,7 +1670,9 @@ public abstract class Tool
 				} else {
 					val = lv.getValue();
 					if (val == null) {
-						final Value res = this.eval(lv.expr, lv.con, s0, s1, control, lv.getCostModel());
+						final Value res = this.lazyValueCache == null
+								? this.eval(lv.expr, lv.con, s0, s1, control, lv.getCostModel())
+								: this.lazyValueCache.eval(this, lv.expr, lv.con, s0, s1, control, lv.getCostModel());
 						// This check has been suggested by Yuan Yu on 01/15/2018:
 						//
 						// If init-states are being generated, level has to be <= ConstantLevel for
@@ -1638,8 +1769,18 @@ public abstract class Tool
             OpDefNode opDef = (OpDefNode)val;
             opcode = BuiltInOPs.getOpCode(opDef.getName());
             if (opcode == 0) {
-              Context c1 = this.getOpContext(opDef, args, c, true, cm, toolId);
-              res = this.eval(opDef.getBody(), c1, s0, s1, control, cm);
+              if (this.opMemo != null && control == EvalControl.Clear) {
+                res = this.opMemo.eval(this, opDef, args, c, s0, s1, cm);
+              }
+              if (res == null) {
+                Context c1 = this.getOpContext(opDef, args, c, true, cm, toolId);
+                if (this.lazyValueCache != null && args.length == 0) {
+                  // A LET definition referenced by Tool#getNextStates (which does not bind it to a LazyValue).
+                  res = this.lazyValueCache.eval(this, opDef.getBody(), c1, s0, s1, control, cm);
+                } else {
+                  res = this.eval(opDef.getBody(), c1, s0, s1, control, cm);
+                }
+              }
             }
           }
           else if (val instanceof Value) {
@@ -1908,6 +2049,8 @@ public abstract class Tool
               result = fcn.apply(argVal, control);
             }
             else if ((fval instanceof TupleValue) ||
+                     (fval instanceof IntTupleValue) ||
+                     (fval instanceof TupleViewValue) ||
                      (fval instanceof RecordValue)) {
               Applicable fcn = (Applicable)fval;
               if (args.length != 2) {
@@ -2052,7 +2195,7 @@ public abstract class Tool
               if (isTuple) {
                 while ((elem = enumSet.nextElement()) != null) {
                   Context c1 = c;
-                  Value[] tuple = ((TupleValue)elem).elems;
+                  Value[] tuple = ((TupleValue)TupleValue.toElems(elem)).elems;
                   for (int i = 0; i < bvars.length; i++) {
                     c1 = c1.cons(bvars[i], tuple[i]);
                   }
@@ -2096,7 +2239,7 @@ public abstract class Tool
             for (int i = 0; i < alen; i++) {
               vals[i] = this.eval(args[i], c, s0, s1, control, cm);
             }
-            return setSource(expr, new TupleValue(vals, cm));
+            return setSource(expr, IntTupleValue.of(vals, cm));
           }
         case OPCODE_uc:     // UnboundedChoose
           {
@@ -2419,7 +2562,7 @@ public abstract class Tool
 
   /* This method determines if a state satisfies the model constraints. */
   @Override
-  public final boolean isInModel(TLCState state) throws EvalException {
+  public boolean isInModel(TLCState state) throws EvalException {
     ExprNode[] constrs = this.getModelConstraints();
     for (int i = 0; i < constrs.length; i++) {
       IValue bval = this.eval(constrs[i], Context.Empty, state, CostModel.DO_NOT_RECORD);
@@ -3079,7 +3222,7 @@ public abstract class Tool
 
   /* Returns true iff the predicate is valid in the state. */
   @Override
-  public final boolean isValid(Action act, TLCState state) {
+  public boolean isValid(Action act, TLCState state) {
     return this.isValid(act, state, TLCState.Empty);
   }
 
@@ -25,10 +25,12 @@
  ******************************************************************************/
 package tlc2.tool.impl;
 
+import tla2sany.semantic.ExprNode;
 import tla2sany.semantic.OpDefNode;
 import tla2sany.semantic.SemanticNode;
 import tlc2.TLCGlobals;
 import tlc2.tool.IWorker;
+import tlc2.tool.ParallelInvariants;
 import tlc2.tool.TLCState;
 import tlc2.tool.coverage.CostModel;
 import tlc2.util.Context;
@@ -114,17 +116,23 @@ public class WorkerValue {
     }
     
     public static Object demux(final OpDefEvaluator spec, final SemanticNode sn, final OpDefNode opDef) {
-    	final IValue defVal = spec.eval(opDef.getBody(), Context.Empty, TLCState.Empty, CostModel.DO_NOT_RECORD);
+    	return demux(spec, opDef.getBody());
+    }
+    
+    public static Object demux(final OpDefEvaluator spec, final ExprNode expr) {
+    	final IValue defVal = spec.eval(expr, Context.Empty, TLCState.Empty, CostModel.DO_NOT_RECORD);
     	defVal.deepNormalize();
     	
-    	if (defVal.mutates() && TLCGlobals.getNumWorkers() > 1) {
-    		final IValue[] values = new IValue[TLCGlobals.getNumWorkers()];
+    	// The threads of ParallelInvariants evaluate invariants concurrently to the workers.
+    	final int copies = TLCGlobals.getNumWorkers() + ParallelInvariants.getNumThreads();
+    	if (defVal.mutates() && copies > 1) {
+    		final IValue[] values = new IValue[copies];
     		values[0] = defVal;
 
     		for (int i = 1; i < values.length; i++) {
     			// Ideally, we could invoke IValue#deepCopy here instead of evaluating opDef again.  However,
     			// IValue#deepCopy doesn't create copies for most values.
-    			values[i] = spec.eval(opDef.getBody(), Context.Empty, TLCState.Empty, CostModel.DO_NOT_RECORD);
+    			values[i] = spec.eval(expr, Context.Empty, TLCState.Empty, CostModel.DO_NOT_RECORD);
     			values[i].deepNormalize();
     		}
     		
@@ -37,22 +37,29 @@ public abstract class ByteArrayQueue implements IStateQueue {
 	 * done.
 	 */
 	private Object mu = new Object();
+
+	/**
+	 * Each thread serializes states into its own buffer which is reused across
+	 * states. Only the copy of the buffer that goes into the queue is allocated.
+	 */
+	private static final ThreadLocal<DiskByteArrayQueue.ByteValueOutputStream> buffers = ThreadLocal
+			.withInitial(DiskByteArrayQueue.ByteValueOutputStream::new);
+
+	/**
+	 * The strings read from this queue (see
+	 * {@link DiskByteArrayQueue.StringDictionary}).
+	 */
+	private final DiskByteArrayQueue.StringDictionary strings = new DiskByteArrayQueue.StringDictionary();
 	
 	
 	private final byte[] toBytes(final TLCState state) {
-		try {
-			final DiskByteArrayQueue.ByteValueOutputStream vos = new DiskByteArrayQueue.ByteValueOutputStream();
-			state.write(vos);
-			return vos.toByteArray();
-		} catch (IOException notExpectedToHappen) {
-			// With ByteArrayOutputStream
-			notExpectedToHappen.printStackTrace();
-		}
-		return null;
+		return toBytes(state, buffers.get());
 	}
 	
 	private final byte[] toBytes(final TLCState state, final DiskByteArrayQueue.ByteValueOutputStream vos) {
 		try {
+			// Discard what a previous, failed write might have left behind.
+			vos.reset();
 			state.write(vos);
 			return vos.toByteArray();
 		} catch (IOException notExpectedToHappen) {
@@ -65,7 +72,7 @@ public abstract class ByteArrayQueue implements IStateQueue {
 	private final TLCState toState(final byte[] bytes) {
 		try {
 			final TLCState state = TLCState.Empty.createEmpty();
-			state.read(new DiskByteArrayQueue.ByteValueInputStream(bytes));
+			state.read(new DiskByteArrayQueue.ByteValueInputStream(bytes, this.strings));
 			return state;
 		} catch (IOException notExpectedToHappen) {
 			// With ByteValueInputStream
@@ -159,7 +166,7 @@ public abstract class ByteArrayQueue implements IStateQueue {
 			return;
 		}
 		
-		final DiskByteArrayQueue.ByteValueOutputStream vos = new DiskByteArrayQueue.ByteValueOutputStream();
+		final DiskByteArrayQueue.ByteValueOutputStream vos = buffers.get();
 		final byte[][] bytes = new byte[n][];
 		for (int i = 0; i < stateVec.size(); i++) {
 			final TLCState state = stateVec.elementAt(i);
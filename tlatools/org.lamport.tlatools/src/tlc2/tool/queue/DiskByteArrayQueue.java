@@ -10,8 +10,10 @@ import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import tlc2.output.EC;
 import tlc2.output.MP;
@@ -19,6 +21,7 @@ import tlc2.value.IValue;
 import tlc2.value.IValueInputStream;
 import tlc2.value.IValueOutputStream;
 import tlc2.value.ValueConstants;
+import tlc2.value.impl.BigIntValue;
 import tlc2.value.impl.BoolValue;
 import tlc2.value.impl.FcnRcdValue;
 import tlc2.value.impl.IntValue;
@@ -589,6 +592,17 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 		  }
 	}
 	
+	/**
+	 * Serializes values into a byte[] that is only ever read back by
+	 * {@link ByteValueInputStream} of the same run. Contrary to
+	 * {@link tlc2.value.ValueOutputStream}, ints, shorts and naturals are thus
+	 * written as variable-length (zig-zag for signed) quantities: Most of them
+	 * are small (e.g. IntValues, lengths, tokens, and the state header), which
+	 * shrinks a state to a fraction of its fixed-width representation. Longs
+	 * (fingerprints, uids) are written with fixed width. An instance is meant to be
+	 * reused (see {@link ByteArrayQueue}), in which case its byte[] grows to the
+	 * size of the largest state once.
+	 */
 	static final class ByteValueOutputStream implements IValueOutputStream, IDataOutputStream {
 
 		private byte[] bytes;
@@ -611,14 +625,30 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 	        }
 	    }
 
+		private final void writeVarInt(int x) {
+			ensureCapacity(idx + 5);
+			while ((x & ~0x7F) != 0) {
+				this.bytes[idx++] = (byte) ((x & 0x7F) | 0x80);
+				x >>>= 7;
+			}
+			this.bytes[idx++] = (byte) x;
+		}
+
+		private final void writeVarLong(long x) {
+			ensureCapacity(idx + 10);
+			while ((x & ~0x7FL) != 0L) {
+				this.bytes[idx++] = (byte) ((x & 0x7F) | 0x80);
+				x >>>= 7;
+			}
+			this.bytes[idx++] = (byte) x;
+		}
+
 		/* (non-Javadoc)
 		 * @see tlc2.value.IValueOutputStream#writeShort(short)
 		 */
 		@Override
 		public final void writeShort(short s) throws IOException {
-			ensureCapacity(idx + 2);
-	        this.bytes[idx++] = (byte) ((s >>> 8) & 0xff);
-	        this.bytes[idx++] = (byte) (s & 0xff);
+			this.writeVarInt((s << 1) ^ (s >> 31));
 		}
 
 		/* (non-Javadoc)
@@ -626,11 +656,7 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 		 */
 		@Override
 		public final void writeInt(int i) throws IOException {
-			ensureCapacity(idx + 4);
-	        this.bytes[idx++] = (byte) ((i >>> 24) & 0xff);
-	        this.bytes[idx++] = (byte) ((i >>> 16) & 0xff);
-	        this.bytes[idx++] = (byte) ((i >>> 8) & 0xff);
-	        this.bytes[idx++] = (byte) (i & 0xff);
+			this.writeVarInt((i << 1) ^ (i >> 31));
 		}
 
 		/* (non-Javadoc)
@@ -662,11 +688,7 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 		 */
 		@Override
 		public final void writeShortNat(short x) throws IOException {
-			if (x > 0x7f) {
-				this.writeShort((short) -x);
-			} else {
-				this.writeByte((byte) x);
-			}
+			this.writeVarInt(x);
 		}
 
 		/* (non-Javadoc)
@@ -674,11 +696,7 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 		 */
 		@Override
 		public final void writeNat(int x) throws IOException {
-			if (x > 0x7fff) {
-				this.writeInt(-x);
-			} else {
-				this.writeShort((short) x);
-			}
+			this.writeVarInt(x);
 		}
 
 		/* (non-Javadoc)
@@ -686,11 +704,7 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 		 */
 		@Override
 		public final void writeLongNat(long x) throws IOException {
-			if (x <= 0x7fffffff) {
-				this.writeInt((int) x);
-			} else {
-				this.writeLong(-x);
-			}
+			this.writeVarLong(x);
 		}
 
 		/* (non-Javadoc)
@@ -733,6 +747,10 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 			return copyOf;
 		}
 
+		public final void reset() {
+			idx = 0;
+		}
+
 		/* (non-Javadoc)
 		 * @see util.IDataOutputStream#writeString(java.lang.String)
 		 */
@@ -740,24 +758,71 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 		public final void writeString(String str) throws IOException {
 			final int length = str.length();
 			ensureCapacity(idx + length);
-			
-			final char[] c = new char[length];
-			str.getChars(0, length, c, 0);
-			
-			for (int i = 0; i < c.length; i++) {
-				this.bytes[idx++] = (byte) c[i];
+			for (int i = 0; i < length; i++) {
+				this.bytes[idx++] = (byte) str.charAt(i);
 			}
 		}
 	}
 	
+	/**
+	 * The StringValues that have been read from a queue so far, indexed by the
+	 * token of their UniqueString. A token is stable for the duration of a run,
+	 * which lets {@link ByteValueInputStream} resolve a string that has been read
+	 * before to the same StringValue without allocating. An entry is only reused
+	 * if its string and location equal the serialized ones; tokens may have been
+	 * assigned differently by the run that wrote a checkpoint.
+	 */
+	static final class StringDictionary {
+
+		private static final int MAX_TOKEN = 1 << 20;
+
+		private volatile AtomicReferenceArray<StringValue> values = new AtomicReferenceArray<>(256);
+
+		final StringValue get(final int tok) {
+			final AtomicReferenceArray<StringValue> vals = this.values;
+			return tok >= 0 && tok < vals.length() ? vals.get(tok) : null;
+		}
+
+		final void put(final int tok, final StringValue value) {
+			if (tok < 0 || tok >= MAX_TOKEN) {
+				return;
+			}
+			AtomicReferenceArray<StringValue> vals = this.values;
+			if (tok >= vals.length()) {
+				synchronized (this) {
+					vals = this.values;
+					if (tok >= vals.length()) {
+						// A put that races with the copy might get lost, which only
+						// costs a later lookup to miss.
+						final AtomicReferenceArray<StringValue> grown = new AtomicReferenceArray<>(
+								Math.min(MAX_TOKEN, Math.max(tok + 1, vals.length() << 1)));
+						for (int i = 0; i < vals.length(); i++) {
+							grown.lazySet(i, vals.get(i));
+						}
+						this.values = vals = grown;
+					}
+				}
+			}
+			vals.set(tok, value);
+		}
+	}
+
+	// @see ByteValueOutputStream
 	static final class ByteValueInputStream implements ValueConstants, IValueInputStream, IDataInputStream {
 
 		private final byte[] bytes;
 		
+		private final StringDictionary strings;
+		
 		private int idx = 0;
 
 		public ByteValueInputStream(byte[] bytes) {
+			this(bytes, null);
+		}
+
+		public ByteValueInputStream(byte[] bytes, StringDictionary strings) {
 			this.bytes = bytes;
+			this.strings = strings;
 		}
 
 		/* (non-Javadoc)
@@ -774,8 +839,11 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 			case INTVALUE: {
 				return IntValue.gen(this.readInt());
 			}
+			case BIGINTVALUE: {
+				return BigIntValue.createFrom(this);
+			}
 			case STRINGVALUE: {
-				return StringValue.createFrom(this);
+				return this.readStringValue();
 			}
 			case MODELVALUE: {
 				return ModelValue.mvs[this.readShort()];
@@ -801,6 +869,62 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 			}
 		}
 
+		/*
+		 * Reads the UniqueString written by UniqueString#write (token, location,
+		 * length, and chars) and looks its token up in the dictionary first.
+		 */
+		private final IValue readStringValue() throws IOException {
+			if (this.strings == null) {
+				return StringValue.createFrom(this);
+			}
+			final int mark = this.idx;
+			final int tok = this.readInt();
+			final int loc = this.readInt();
+			final int len = this.readInt();
+			final StringValue known = this.strings.get(tok);
+			if (known != null && this.matches(known.val, loc, len)) {
+				this.idx += len;
+				return known;
+			}
+			this.idx = mark;
+			final StringValue res = (StringValue) StringValue.createFrom(this);
+			this.strings.put(tok, res);
+			return res;
+		}
+
+		private final boolean matches(final UniqueString str, final int loc, final int len) {
+			if (str.getVarLoc() != loc || str.length() != len) {
+				return false;
+			}
+			final String s = str.toString();
+			for (int i = 0; i < len; i++) {
+				if ((byte) s.charAt(i) != this.bytes[this.idx + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private final int readVarInt() {
+			int b = bytes[idx++];
+			int res = b & 0x7F;
+			for (int shift = 7; b < 0; shift += 7) {
+				b = bytes[idx++];
+				res |= (b & 0x7F) << shift;
+			}
+			return res;
+		}
+
+		private final long readVarLong() {
+			long b = bytes[idx++];
+			long res = b & 0x7F;
+			for (int shift = 7; b < 0; shift += 7) {
+				b = bytes[idx++];
+				res |= (b & 0x7F) << shift;
+			}
+			return res;
+		}
+
 		private final boolean readBoolean() throws EOFException, IOException {
 	        return (bytes[idx++] != 0);
 		}
@@ -810,7 +934,8 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 		 */
 		@Override
 		public final int readShort() throws IOException {
-	        return (short) ((bytes[idx++] << 8) | (bytes[idx++] & 0xff));
+			final int x = this.readVarInt();
+	        return (short) ((x >>> 1) ^ -(x & 1));
 		}
 
 		/* (non-Javadoc)
@@ -818,11 +943,8 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 		 */
 		@Override
 		public final int readInt() throws IOException {
-	        int res = bytes[idx++];
-	        res <<= 8; res |= (bytes[idx++] & 0xff);
-	        res <<= 8; res |= (bytes[idx++] & 0xff);
-	        res <<= 8; res |= (bytes[idx++] & 0xff);
-	        return res;
+			final int x = this.readVarInt();
+	        return (x >>> 1) ^ -(x & 1);
 		}
 
 		/* (non-Javadoc)
@@ -854,10 +976,7 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 		 */
 		@Override
 		public final int readNat() throws IOException {
-		    int res = this.readShort();
-		    if (res >= 0) return res;
-		    res = (res << 16) | (this.readShort() & 0xFFFF);
-		    return -res;
+			return this.readVarInt();
 		}
 
 		/* (non-Javadoc)
@@ -865,9 +984,7 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 		 */
 		@Override
 		public final short readShortNat() throws IOException {
-			short res = this.readByte();
-			if (res >= 0) return res;
-			return (short) -((res << 8) | (this.readByte() & 0xFF));
+			return (short) this.readVarInt();
 		}
 
 		/* (non-Javadoc)
@@ -875,10 +992,7 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 		 */
 		@Override
 		public final long readLongNat() throws IOException {
-		    long res = this.readInt();
-		    if (res >= 0) return res;
-		    res = (res << 32) | ((long)this.readInt() & 0xFFFFFFFFL);
-		    return -res;
+			return this.readVarLong();
 		}
 
 		/* (non-Javadoc)
@@ -926,11 +1040,9 @@ public class DiskByteArrayQueue extends ByteArrayQueue {
 		 */
 		@Override
 		public final String readString(int length) throws IOException {
-			final char[] s = new char[length];
-			for (int i = 0; i < s.length; i++) {
-				s[i] = (char) this.bytes[idx++];
-			}
-			return new String(s);
+			final String s = new String(this.bytes, idx, length, StandardCharsets.ISO_8859_1);
+			idx += length;
+			return s;
 		}
 	}
 
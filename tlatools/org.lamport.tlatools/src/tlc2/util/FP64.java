@@ -215,6 +215,35 @@ public class FP64 {
     }
 */
 
+    /* Extend is affine in fp: Extend(fp, S) == Multiply(fp, x^(8*|S|))
+       XOR Extend(Zero, S) for every string S.  Thus, Extend(Zero, S)
+       and Extend(One, S) XOR Extend(Zero, S) are sufficient to extend
+       any fingerprint by S without re-reading S (see Combine). */
+
+    /** Return the product of the polynomials <code>a</code> and
+        <code>b</code> modulo IrredPoly. */
+    public static long Multiply(long a, long b)
+    {
+	long res = Zero;
+	// Horner's scheme from the coefficient of x^63 (X63) down to the
+	// coefficient of x^0 (One) of a.
+	for (int i = 0; i < 64; i++) {
+	  // res = res * x
+	  res = (res >>> 1) ^ (-(res & X63) & IrredPoly);
+	  res ^= -((a >>> i) & X63) & b;
+	}
+	return res;
+    }
+
+    /** Return the extension of the fingerprint <code>fp</code> by
+        the string S where <code>shift</code> is
+        <code>Extend(One, S) ^ Extend(Zero, S)</code> and
+        <code>delta</code> is <code>Extend(Zero, S)</code>. */
+    public static long Combine(long fp, long shift, long delta)
+    {
+	return Multiply(fp, shift) ^ delta;
+    }
+
     /** Return a hash value of the fingerprint <code>fp</code>. */
     public static int Hash(long fp)
     {
@@ -259,7 +288,7 @@ public class FP64 {
        IrredPoly is its representation. */
 
     // implementation constants
-    private static final long One = 0x8000000000000000L;
+    public static final long One = 0x8000000000000000L;
     private static final long X63 = 0x1L;
 
     public static final long[] Polys = {
@@ -35,4 +35,18 @@ public interface IMVPerm {
 
 	IMVPerm compose(IMVPerm elementAt);
 
+	/**
+	 * @return true iff this permutation maps every model value in the given mask
+	 *         (see IValue#getModelValueMask()) onto itself.
+	 */
+	boolean isIdentityOn(long mask);
+
+	/**
+	 * @return true iff this and the given permutation map every model value in the
+	 *         given mask (see IValue#getModelValueMask()) onto the same model value.
+	 *         In other words, a value with this mask is permuted into the same value
+	 *         by both permutations.
+	 */
+	boolean agreesOn(IMVPerm other, long mask);
+
 }
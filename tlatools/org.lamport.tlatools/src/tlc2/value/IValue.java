@@ -96,6 +96,21 @@ public interface IValue extends Comparable<Object> {
 	   */
 	IValue permute(IMVPerm perm);
 
+	/**
+	 * Symmetry reduction: A bit-mask of the model values (ModelValue#index) that
+	 * (transitively) occur in this value. A value whose mask is 0L contains no
+	 * model values and is thus a fixpoint of every permutation, i.e. permute can be
+	 * skipped altogether. ALL_MODEL_VALUES is the conservative answer if the model
+	 * values of a value are unknown (lazy values) or do not fit into 64 bits.
+	 *
+	 * @see IMVPerm#isIdentityOn(long)
+	 */
+	default long getModelValueMask() {
+		return ALL_MODEL_VALUES;
+	}
+
+	static final long ALL_MODEL_VALUES = -1L;
+
 	/* This method returns true iff the value is finite. */
 	boolean isFinite();
 
@@ -35,5 +35,9 @@ public interface ValueConstants {
   byte UNDEFVALUE       = INTERVALVALUE + 1;
   byte LAZYVALUE        = UNDEFVALUE + 1;
   byte DUMMYVALUE       = LAZYVALUE + 1;
+  byte BITSETVALUE      = DUMMYVALUE + 1;
+  byte INTTUPLEVALUE    = BITSETVALUE + 1;
+  byte BIGINTVALUE      = INTTUPLEVALUE + 1;
+  byte TUPLEVIEWVALUE   = BIGINTVALUE + 1;
 
 }
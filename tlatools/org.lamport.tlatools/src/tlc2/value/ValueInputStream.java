@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.util.Map;
 
 import tlc2.TLCGlobals;
+import tlc2.value.impl.BigIntValue;
 import tlc2.value.impl.BoolValue;
 import tlc2.value.impl.FcnRcdValue;
 import tlc2.value.impl.IntValue;
@@ -55,6 +56,9 @@ public final class ValueInputStream implements ValueConstants, IValueInputStream
 		case INTVALUE: {
 			return IntValue.gen(this.dis.readInt());
 		}
+		case BIGINTVALUE: {
+			return BigIntValue.createFrom(this);
+		}
 		case STRINGVALUE: {
 			return StringValue.createFrom(this);
 		}
@@ -95,6 +99,9 @@ public final class ValueInputStream implements ValueConstants, IValueInputStream
 		case INTVALUE: {
 			return IntValue.gen(this.dis.readInt());
 		}
+		case BIGINTVALUE: {
+			return BigIntValue.createFrom(this);
+		}
 		case STRINGVALUE: {
 			return StringValue.createFrom(this, tbl);
 		}
@@ -0,0 +1,343 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+import tlc2.tool.FingerprintException;
+import tlc2.util.FP64;
+import tlc2.value.IMVPerm;
+import tlc2.value.IValue;
+import tlc2.value.IValueInputStream;
+import tlc2.value.IValueOutputStream;
+import tlc2.value.Values;
+import util.Assert;
+
+/**
+ * An integer outside of the range of IntValue, i.e. less than -2^31 or greater
+ * than 2^31-1. The operators of the Naturals and Integers modules promote their
+ * result to a BigIntValue instead of failing with an overflow (and demote it
+ * back to an IntValue once it is in range again), and integer literals outside
+ * of the range of IntValue evaluate to BigIntValues. Integers in the range of
+ * IntValue are always IntValues (see gen), which is why the fingerprints of
+ * the values that TLC could represent before do not change.
+ * <p>
+ * Enable with -Dtlc2.value.impl.BigIntValue.enabled=true
+ */
+public class BigIntValue extends Value {
+
+	private static final long serialVersionUID = 3440239766794011535L;
+
+	public static final boolean ENABLED = Boolean.getBoolean(BigIntValue.class.getName() + ".enabled");
+
+	private static final BigInteger MIN_INT = BigInteger.valueOf(Integer.MIN_VALUE);
+	private static final BigInteger MAX_INT = BigInteger.valueOf(Integer.MAX_VALUE);
+
+	public final BigInteger val;
+
+	private BigIntValue(final BigInteger val) {
+		this.val = val;
+	}
+
+	/**
+	 * @return An IntValue if val is in the range of IntValue, a BigIntValue
+	 *         otherwise.
+	 */
+	public static Value gen(final long val) {
+		if (Integer.MIN_VALUE <= val && val <= Integer.MAX_VALUE) {
+			return IntValue.gen((int) val);
+		}
+		return new BigIntValue(BigInteger.valueOf(val));
+	}
+
+	/**
+	 * @return An IntValue if val is in the range of IntValue, a BigIntValue
+	 *         otherwise.
+	 */
+	public static Value gen(final BigInteger val) {
+		if (MIN_INT.compareTo(val) <= 0 && val.compareTo(MAX_INT) <= 0) {
+			return IntValue.gen(val.intValue());
+		}
+		return new BigIntValue(val);
+	}
+
+	/**
+	 * @return true iff val is an IntValue or a BigIntValue.
+	 */
+	public static boolean isInteger(final Value val) {
+		return val instanceof IntValue || val instanceof BigIntValue;
+	}
+
+	/**
+	 * @param val An IntValue or a BigIntValue (see isInteger).
+	 */
+	public static BigInteger toBigInteger(final Value val) {
+		if (val instanceof IntValue) {
+			return BigInteger.valueOf(((IntValue) val).val);
+		}
+		return ((BigIntValue) val).val;
+	}
+
+	/**
+	 * @param x An IntValue or a BigIntValue (see isInteger).
+	 * @param y An IntValue or a BigIntValue (see isInteger).
+	 */
+	public static int compare(final Value x, final Value y) {
+		if (x instanceof IntValue && y instanceof IntValue) {
+			return Integer.compare(((IntValue) x).val, ((IntValue) y).val);
+		}
+		if (x instanceof IntValue) {
+			// y is less than any IntValue iff it is negative.
+			return -((BigIntValue) y).val.signum();
+		}
+		if (y instanceof IntValue) {
+			return ((BigIntValue) x).val.signum();
+		}
+		return ((BigIntValue) x).val.compareTo(((BigIntValue) y).val);
+	}
+
+	@Override
+	public final byte getKind() {
+		return BIGINTVALUE;
+	}
+
+	@Override
+	public final int compareTo(final Object obj) {
+		try {
+			if (obj instanceof IntValue || obj instanceof BigIntValue) {
+				return compare(this, (Value) obj);
+			}
+			if (!(obj instanceof ModelValue)) {
+				Assert.fail("Attempted to compare integer " + Values.ppr(this.toString()) + " with non-integer:\n"
+						+ Values.ppr(obj.toString()));
+			}
+			return 1;
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final boolean equals(final Object obj) {
+		try {
+			if (obj instanceof BigIntValue) {
+				return this.val.equals(((BigIntValue) obj).val);
+			}
+			if (obj instanceof IntValue) {
+				return false;
+			}
+			if (!(obj instanceof ModelValue)) {
+				Assert.fail("Attempted to check equality of integer " + Values.ppr(this.toString())
+						+ " with non-integer:\n" + Values.ppr(obj.toString()));
+			}
+			return ((ModelValue) obj).modelValueEquals(this);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final boolean member(final Value elem) {
+		try {
+			Assert.fail("Attempted to check if the value:\n" + Values.ppr(elem.toString())
+					+ "\nis an element of the integer " + Values.ppr(this.toString()));
+			return false; // make compiler happy
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final boolean isFinite() {
+		try {
+			Assert.fail("Attempted to check if the integer " + Values.ppr(this.toString()) + " is a finite set.");
+			return false; // make compiler happy
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final Value takeExcept(final ValueExcept ex) {
+		try {
+			if (ex.idx < ex.path.length) {
+				Assert.fail("Attempted to appy EXCEPT construct to the integer " + Values.ppr(this.toString()) + ".");
+			}
+			return ex.value;
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final Value takeExcept(final ValueExcept[] exs) {
+		try {
+			if (exs.length != 0) {
+				Assert.fail("Attempted to apply EXCEPT construct to the integer " + Values.ppr(this.toString()) + ".");
+			}
+			return this;
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final int size() {
+		try {
+			Assert.fail("Attempted to compute the number of elements in the integer " + Values.ppr(this.toString())
+					+ ".");
+			return 0; // make compiler happy
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final boolean isNormalized() {
+		return true;
+	}
+
+	@Override
+	public final Value normalize() {
+		/* nop */return this;
+	}
+
+	@Override
+	public final boolean isDefined() {
+		return true;
+	}
+
+	@Override
+	public final IValue deepCopy() {
+		return this;
+	}
+
+	@Override
+	public final boolean assignable(final Value val) {
+		try {
+			return (val instanceof BigIntValue) && this.val.equals(((BigIntValue) val).val);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public boolean mutates() {
+		return false;
+	}
+
+	@Override
+	public final void write(final IValueOutputStream vos) throws IOException {
+		vos.writeByte(BIGINTVALUE);
+		final byte[] bytes = this.val.toByteArray();
+		vos.writeNat(bytes.length);
+		for (int i = 0; i < bytes.length; i++) {
+			vos.writeByte(bytes[i]);
+		}
+	}
+
+	public static IValue createFrom(final IValueInputStream vis) throws IOException {
+		final byte[] bytes = new byte[vis.readNat()];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = vis.readByte();
+		}
+		return new BigIntValue(new BigInteger(bytes));
+	}
+
+	/* The fingerprint method */
+	@Override
+	public final long fingerPrint(long fp) {
+		try {
+			final byte[] bytes = this.val.toByteArray();
+			fp = FP64.Extend(fp, BIGINTVALUE);
+			fp = FP64.Extend(fp, bytes.length);
+			return FP64.Extend(fp, bytes, 0, bytes.length);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final IValue permute(final IMVPerm perm) {
+		return this;
+	}
+
+	@Override
+	public final long getModelValueMask() {
+		return 0L;
+	}
+
+	/* The string representation. */
+	@Override
+	public final StringBuffer toString(final StringBuffer sb, final int offset, final boolean ignored) {
+		try {
+			return sb.append(this.val);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+}
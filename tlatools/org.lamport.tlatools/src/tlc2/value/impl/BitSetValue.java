@@ -0,0 +1,459 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import java.io.IOException;
+
+import tlc2.tool.FingerprintException;
+import tlc2.tool.coverage.CostModel;
+import tlc2.util.FP64;
+import tlc2.value.IMVPerm;
+import tlc2.value.IValue;
+import tlc2.value.IValueOutputStream;
+import tlc2.value.Values;
+import util.Assert;
+
+/**
+ * A subset of a small universe of atoms, i.e. of an interval of at most 64
+ * integers or of at most 64 model values (whose indices are less than 64),
+ * represented by a bit vector over the (normalized) universe. Membership is a
+ * single bit test, and union, intersection, difference, and subset of two
+ * subsets of the same universe are single word operations.
+ * <p>
+ * A BitSetValue is indistinguishable from the equivalent normalized
+ * SetEnumValue: It has the same fingerprint, compares and is equal to it, and
+ * is written as a SetEnumValue. The subsets of SUBSET S, where S is such a
+ * universe, are enumerated as BitSetValues (see SubsetValue).
+ * <p>
+ * Enable with -Dtlc2.value.impl.BitSetValue.enabled=true
+ */
+public class BitSetValue extends EnumerableValue implements Enumerable, Reducible {
+
+	private static final long serialVersionUID = 3630702699177413955L;
+
+	static final boolean ENABLED = Boolean.getBoolean(BitSetValue.class.getName() + ".enabled");
+
+	/**
+	 * The atoms of the universe in normalized order. An atom's position is its bit.
+	 */
+	static final class Universe {
+
+		private final Value[] atoms;
+		/**
+		 * The first integer of an interval, unused for model values.
+		 */
+		private final int low;
+		/**
+		 * The mask of the model values (see Value#getModelValueMask), or zero for
+		 * an interval.
+		 */
+		private final long mvMask;
+		/**
+		 * Maps a model value's index to its position, null for an interval.
+		 */
+		private final int[] positions;
+
+		private Universe(final Value[] atoms, final int low, final long mvMask, final int[] positions) {
+			this.atoms = atoms;
+			this.low = low;
+			this.mvMask = mvMask;
+			this.positions = positions;
+		}
+
+		/**
+		 * @param elems The elements of a normalized set.
+		 * @return The universe of the subsets of elems, or null if elems is neither
+		 *         an interval of integers nor a set of model values or if it is too
+		 *         large.
+		 */
+		static Universe of(final ValueVec elems) {
+			final int sz = elems.size();
+			if (sz == 0 || sz > Long.SIZE) {
+				return null;
+			}
+			final Value[] atoms = elems.toArray();
+			if (atoms[0] instanceof IntValue) {
+				final int low = ((IntValue) atoms[0]).val;
+				for (int i = 1; i < sz; i++) {
+					if (!(atoms[i] instanceof IntValue) || ((IntValue) atoms[i]).val != low + i) {
+						return null;
+					}
+				}
+				return new Universe(atoms, low, 0L, null);
+			}
+			final int[] positions = new int[Long.SIZE];
+			long mvMask = 0L;
+			for (int i = 0; i < sz; i++) {
+				if (!(atoms[i] instanceof ModelValue) || ((ModelValue) atoms[i]).index >= Long.SIZE) {
+					return null;
+				}
+				final int index = ((ModelValue) atoms[i]).index;
+				positions[index] = i;
+				mvMask |= 1L << index;
+			}
+			return new Universe(atoms, 0, mvMask, positions);
+		}
+
+		/**
+		 * @return The position of elem in this universe, -1 if elem is an atom of
+		 *         the same kind that is not in this universe, or -2 if elem is of a
+		 *         different kind.
+		 */
+		final int positionOf(final Value elem) {
+			if (this.positions == null) {
+				if (elem instanceof IntValue) {
+					final long pos = (long) ((IntValue) elem).val - this.low;
+					return pos >= 0 && pos < this.atoms.length ? (int) pos : -1;
+				}
+			} else if (elem instanceof ModelValue) {
+				final int index = ((ModelValue) elem).index;
+				return index < Long.SIZE && (this.mvMask & (1L << index)) != 0 ? this.positions[index] : -1;
+			}
+			return -2;
+		}
+
+		final boolean isSame(final Universe other) {
+			return this == other || (this.atoms.length == other.atoms.length && this.mvMask == other.mvMask
+					&& (this.positions == null) == (other.positions == null) && this.low == other.low);
+		}
+	}
+
+	final Universe universe;
+	/**
+	 * Bit i is set iff the i-th atom of the universe is an element.
+	 */
+	final long bits;
+
+	BitSetValue(final Universe universe, final long bits) {
+		this.universe = universe;
+		this.bits = bits;
+	}
+
+	BitSetValue(final Universe universe, final long bits, final CostModel cm) {
+		this(universe, bits);
+		this.cm = cm;
+	}
+
+	private final boolean isSameUniverse(final Object obj) {
+		return obj instanceof BitSetValue && this.universe.isSame(((BitSetValue) obj).universe);
+	}
+
+	@Override
+	public final byte getKind() {
+		return BITSETVALUE;
+	}
+
+	@Override
+	public final int compareTo(final Object obj) {
+		try {
+			if (isSameUniverse(obj)) {
+				final long other = ((BitSetValue) obj).bits;
+				final int cmp = Long.bitCount(this.bits) - Long.bitCount(other);
+				if (cmp != 0 || this.bits == other) {
+					return cmp;
+				}
+				// Up to the lowest differing atom, the elements of both sets are the same.
+				// The set that has that atom is lower than the set whose next element is a
+				// higher atom.
+				return (this.bits & Long.lowestOneBit(this.bits ^ other)) != 0 ? -1 : 1;
+			}
+			return this.toSetEnum().compareTo(obj);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
+			else { throw e; }
+		}
+	}
+
+	public final boolean equals(final Object obj) {
+		try {
+			if (isSameUniverse(obj)) {
+				return this.bits == ((BitSetValue) obj).bits;
+			}
+			return this.toSetEnum().equals(obj);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
+			else { throw e; }
+		}
+	}
+
+	@Override
+	public final boolean member(final Value elem) {
+		try {
+			final int pos = this.universe.positionOf(elem);
+			if (pos >= 0) {
+				return (this.bits & (1L << pos)) != 0;
+			} else if (pos == -1 || this.bits == 0L) {
+				return false;
+			}
+			// Leave it to SetEnumValue to compare elem with the elements (or fail).
+			return this.toSetEnum().member(elem);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
+			else { throw e; }
+		}
+	}
+
+	@Override
+	public Value isSubsetEq(final Value other) {
+		try {
+			if (isSameUniverse(other)) {
+				return (this.bits & ~((BitSetValue) other).bits) == 0L ? BoolValue.ValTrue : BoolValue.ValFalse;
+			}
+			return super.isSubsetEq(other);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
+			else { throw e; }
+		}
+	}
+
+	@Override
+	public final boolean isFinite() {
+		return true;
+	}
+
+	@Override
+	public final int size() {
+		return Long.bitCount(this.bits);
+	}
+
+	@Override
+	public final Value diff(final Value val) {
+		try {
+			if (isSameUniverse(val)) {
+				return new BitSetValue(this.universe, this.bits & ~((BitSetValue) val).bits, cm);
+			}
+			// The difference is a subset of this set.
+			long diff = this.bits;
+			for (long b = this.bits; b != 0L; b &= b - 1) {
+				if (val.member(this.universe.atoms[Long.numberOfTrailingZeros(b)])) {
+					diff &= ~Long.lowestOneBit(b);
+				}
+			}
+			return new BitSetValue(this.universe, diff, cm);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
+			else { throw e; }
+		}
+	}
+
+	@Override
+	public final Value cap(final Value val) {
+		try {
+			if (isSameUniverse(val)) {
+				return new BitSetValue(this.universe, this.bits & ((BitSetValue) val).bits, cm);
+			}
+			// The intersection is a subset of this set.
+			long cap = 0L;
+			for (long b = this.bits; b != 0L; b &= b - 1) {
+				if (val.member(this.universe.atoms[Long.numberOfTrailingZeros(b)])) {
+					cap |= Long.lowestOneBit(b);
+				}
+			}
+			return new BitSetValue(this.universe, cap, cm);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
+			else { throw e; }
+		}
+	}
+
+	@Override
+	public final Value cup(final Value set) {
+		try {
+			if (isSameUniverse(set)) {
+				return new BitSetValue(this.universe, this.bits | ((BitSetValue) set).bits, cm);
+			}
+			if (this.bits == 0L) {
+				return set;
+			}
+			return ((SetEnumValue) this.toSetEnum()).cup(set);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
+			else { throw e; }
+		}
+	}
+
+	@Override
+	public final Value takeExcept(final ValueExcept ex) {
+		try {
+			if (ex.idx < ex.path.length) {
+				Assert.fail("Attempted to apply EXCEPT to the set " + Values.ppr(this.toString()) + ".");
+			}
+			return ex.value;
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
+			else { throw e; }
+		}
+	}
+
+	@Override
+	public final Value takeExcept(final ValueExcept[] exs) {
+		try {
+			if (exs.length != 0) {
+				Assert.fail("Attempted to apply EXCEPT to the set " + Values.ppr(this.toString()) + ".");
+			}
+			return this;
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
+			else { throw e; }
+		}
+	}
+
+	@Override
+	public final boolean isNormalized() {
+		return true;
+	}
+
+	@Override
+	public final Value normalize() {
+		return this;
+	}
+
+	@Override
+	public final boolean isDefined() {
+		return true;
+	}
+
+	@Override
+	public final IValue deepCopy() {
+		return this;
+	}
+
+	@Override
+	public final boolean assignable(final Value val) {
+		try {
+			return this.equals(val);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
+			else { throw e; }
+		}
+	}
+
+	@Override
+	public boolean mutates() {
+		return false;
+	}
+
+	@Override
+	public final void write(final IValueOutputStream vos) throws IOException {
+		this.toSetEnum().write(vos);
+	}
+
+	/* Same as the fingerprint of the equivalent normalized SetEnumValue. */
+	@Override
+	public final long fingerPrint(long fp) {
+		try {
+			fp = FP64.Extend(fp, SETENUMVALUE);
+			fp = FP64.Extend(fp, this.size());
+			for (long b = this.bits; b != 0L; b &= b - 1) {
+				fp = this.universe.atoms[Long.numberOfTrailingZeros(b)].fingerPrint(fp);
+			}
+			return fp;
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
+			else { throw e; }
+		}
+	}
+
+	@Override
+	public final long getModelValueMask() {
+		if (this.universe.positions == null) {
+			return 0L;
+		}
+		long mask = 0L;
+		for (long b = this.bits; b != 0L; b &= b - 1) {
+			mask |= this.universe.atoms[Long.numberOfTrailingZeros(b)].getModelValueMask();
+		}
+		return mask;
+	}
+
+	@Override
+	public final IValue permute(final IMVPerm perm) {
+		try {
+			final long mask = this.getModelValueMask();
+			if (perm.isIdentityOn(mask)) {
+				return this;
+			}
+			long permuted = 0L;
+			for (long b = this.bits; b != 0L; b &= b - 1) {
+				final int pos = this.universe
+						.positionOf((Value) this.universe.atoms[Long.numberOfTrailingZeros(b)].permute(perm));
+				if (pos < 0) {
+					// Permuted out of the universe.
+					return this.toSetEnum().permute(perm);
+				}
+				permuted |= 1L << pos;
+			}
+			return permuted == this.bits ? this : new BitSetValue(this.universe, permuted, cm);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
+			else { throw e; }
+		}
+	}
+
+	@Override
+	public final Value toSetEnum() {
+		final Value[] vals = new Value[this.size()];
+		int i = 0;
+		for (long b = this.bits; b != 0L; b &= b - 1) {
+			vals[i++] = this.universe.atoms[Long.numberOfTrailingZeros(b)];
+		}
+		if (coverage) { cm.incSecondary(vals.length); }
+		return new SetEnumValue(vals, true, cm);
+	}
+
+	@Override
+	public final StringBuffer toString(final StringBuffer sb, final int offset, final boolean swallow) {
+		try {
+			return this.toSetEnum().toString(sb, offset, swallow);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
+			else { throw e; }
+		}
+	}
+
+	@Override
+	public final ValueEnumeration elements() {
+		return new ValueEnumeration() {
+			private long remaining = bits;
+
+			@Override
+			public void reset() {
+				this.remaining = bits;
+			}
+
+			@Override
+			public Value nextElement() {
+				if (this.remaining == 0L) {
+					return null;
+				}
+				final int pos = Long.numberOfTrailingZeros(this.remaining);
+				this.remaining &= this.remaining - 1;
+				if (coverage) { cm.incSecondary(); }
+				return universe.atoms[pos];
+			}
+		};
+	}
+}
@@ -192,6 +192,9 @@ public class BoolValue extends Value implements IBoolValue {
   @Override
   public final IValue permute(IMVPerm perm) { return this; }
 
+  @Override
+  public final long getModelValueMask() { return 0L; }
+
   /* The string representation */
   public final StringBuffer toString(StringBuffer sb, int offset) {
 	return toString(sb, offset, true);
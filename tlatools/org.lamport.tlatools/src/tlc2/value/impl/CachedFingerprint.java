@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import tlc2.util.FP64;
+
+/**
+ * The standalone fingerprint of a normalized composite value, cached in the
+ * value so that the (unchanged) value is not re-traversed each time it is
+ * fingerprinted as part of a successor state. Relies on the fingerprint being
+ * affine in the fingerprint that is extended (see FP64#Combine): A value caches
+ * the extension of FP64.Zero and FP64.One by its byte representation and folds
+ * these into any fingerprint with a single multiplication in GF(2^64).
+ * <p>
+ * Values with less than MIN_SIZE elements are not cached because re-traversing
+ * them is cheaper than the multiplication.
+ * <p>
+ * Enable with -Dtlc2.value.impl.CachedFingerprint.enabled=true
+ */
+final class CachedFingerprint {
+
+	static final boolean ENABLED = Boolean.getBoolean(CachedFingerprint.class.getName() + ".enabled");
+
+	static final int MIN_SIZE = Integer.getInteger(CachedFingerprint.class.getName() + ".minSize", 8);
+
+	private final long poly;
+	private final long shift;
+	private final long delta;
+
+	/**
+	 * @param fpOfZero The value's fingerprint of FP64.Zero.
+	 * @param fpOfOne  The value's fingerprint of FP64.One.
+	 */
+	CachedFingerprint(final long fpOfZero, final long fpOfOne) {
+		this.poly = FP64.getIrredPoly();
+		this.shift = fpOfOne ^ fpOfZero;
+		this.delta = fpOfZero;
+	}
+
+	/**
+	 * @return false if FP64 has been re-initialized with a different polynomial
+	 *         since this fingerprint was cached.
+	 */
+	final boolean isValid() {
+		return this.poly == FP64.getIrredPoly();
+	}
+
+	final long extend(final long fp) {
+		return FP64.Combine(fp, this.shift, this.delta);
+	}
+}
@@ -25,10 +25,29 @@ import util.TLAConstants;
 import util.UniqueString;
 
 public class FcnRcdValue extends Value implements Applicable, IFcnRcdValue {
+  /**
+   * Look up the arguments of functions with a normalized domain of at least
+   * INDEX_MIN_SIZE elements in a hash index of the fingerprints of the domain
+   * (see SortedSetAlgebra.Index) instead of comparing them with each element of
+   * the domain, e.g. votes[<<n, r>>]. The index is built on first use and shared
+   * with the functions that EXCEPT derives from a function, which share its
+   * domain.
+   * <p>
+   * Enable with -Dtlc2.value.impl.FcnRcdValue.enabled=true
+   */
+  static final boolean ENABLED = Boolean.getBoolean(FcnRcdValue.class.getName() + ".enabled");
+
+  static final int INDEX_MIN_SIZE = Integer.getInteger(FcnRcdValue.class.getName() + ".indexMinSize", 16);
+
+  private static final int NOT_INDEXED = -2;
+
   public final Value[] domain;
   public final IntervalValue intv;
   public final Value[] values;
   private boolean isNorm;
+  private transient long mvMask = MV_MASK_UNKNOWN;
+  private transient CachedFingerprint cachedFP;
+  private transient SortedSetAlgebra.Index index;
   public static final Value EmptyFcn = new FcnRcdValue(new Value[0], new Value[0], true);
 
   /* Constructor */
@@ -56,6 +75,7 @@ public class FcnRcdValue extends Value implements Applicable, IFcnRcdValue {
     this.intv = fcn.intv;
     this.values = values;
     this.isNorm = fcn.isNorm;
+    this.index = fcn.index;
   }
 
   public FcnRcdValue(ValueVec elems, Value[] values, boolean isNorm) {
@@ -304,6 +324,10 @@ public class FcnRcdValue extends Value implements Applicable, IFcnRcdValue {
       }
       else {
         // domain is represented as an array of values:
+          final int pos = this.lookup(arg);
+          if (pos != NOT_INDEXED) {
+            return pos < 0 ? null : this.values[pos];
+          }
           int len = this.domain.length;
           for (int i = 0; i < len; i++) {
             if (this.domain[i].equals(arg)) {
@@ -372,43 +396,14 @@ public class FcnRcdValue extends Value implements Applicable, IFcnRcdValue {
 
       if (ex.idx >= ex.path.length) return ex.value;
 
-      int flen = this.values.length;
-      Value[] newValues = new Value[flen];
-      for (int i = 0; i < flen; i++) {
-        newValues[i] = this.values[i];
-      }
-      Value arg = ex.path[ex.idx];
-
-      if (this.intv != null) {
-        // domain is represented as an integer interval:
-        if (arg instanceof IntValue) {
-          int idx = ((IntValue)arg).val;
-          if ((idx >= this.intv.low) && (idx <= this.intv.high)) {
-            int vidx = idx - this.intv.low;
-            ex.idx++;
-            newValues[idx] = this.values[vidx].takeExcept(ex);
-          }
-          return new FcnRcdValue(this.intv, newValues);
-        }
-      }
-      else {
-        // domain is represented as an array of values:
-        for (int i = 0; i < flen; i++) {
-          if (arg.equals(this.domain[i])) {
-            ex.idx++;
-            newValues[i] = newValues[i].takeExcept(ex);
-            Value[] newDomain = this.domain;
-            if (!this.isNorm) {
-              newDomain = new Value[flen];
-              for (int j = 0; j < flen; j++) {
-                newDomain[j] = this.domain[j];
-              }
-            }
-            return new FcnRcdValue(newDomain, newValues, this.isNorm);
-          }
-        }
+      final int vidx = this.indexOf(ex.path[ex.idx]);
+      if (vidx < 0) {
+        return this;
       }
-      return this;
+      final Value[] newValues = this.values.clone();
+      ex.idx++;
+      newValues[vidx] = this.values[vidx].takeExcept(ex);
+      return this.withValues(newValues);
 
     }
     catch (RuntimeException | OutOfMemoryError e) {
@@ -417,14 +412,38 @@ public class FcnRcdValue extends Value implements Applicable, IFcnRcdValue {
     }
   }
 
+  /**
+   * Applies all exs to a single copy of the values of this function instead of
+   * copying the values once per ValueExcept as the equivalent chain of
+   * takeExcept(ValueExcept) does. Falls back to the chain as soon as an
+   * ValueExcept replaces the function as a whole.
+   */
   @Override
   public final Value takeExcept(ValueExcept[] exs) {
     try {
-      Value res = this;
+      Value[] newValues = null;
       for (int i = 0; i < exs.length; i++) {
-        res = res.takeExcept(exs[i]);
+        final ValueExcept ex = exs[i];
+        if (ex.idx >= ex.path.length) {
+          Value res = ex.value;
+          for (int j = i + 1; j < exs.length; j++) {
+            res = res.takeExcept(exs[j]);
+          }
+          return res;
+        }
+        final int vidx = this.indexOf(ex.path[ex.idx]);
+        if (vidx >= 0) {
+          if (newValues == null) {
+            newValues = this.values.clone();
+          }
+          ex.idx++;
+          newValues[vidx] = newValues[vidx].takeExcept(ex);
+        }
+      }
+      if (newValues == null) {
+        return this;
       }
-      return res;
+      return this.withValues(newValues);
     }
     catch (RuntimeException | OutOfMemoryError e) {
       if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
@@ -432,6 +451,78 @@ public class FcnRcdValue extends Value implements Applicable, IFcnRcdValue {
     }
   }
 
+  /**
+   * @return The index into values of arg or -1 if arg is not in the domain of
+   *         this function.
+   */
+  private final int indexOf(final Value arg) {
+    if (this.intv != null) {
+      // domain is represented as an integer interval:
+      if (arg instanceof IntValue) {
+        final int idx = ((IntValue) arg).val;
+        if ((idx >= this.intv.low) && (idx <= this.intv.high)) {
+          return idx - this.intv.low;
+        }
+      }
+      return -1;
+    }
+    // domain is represented as an array of values:
+    final int pos = this.lookup(arg);
+    if (pos != NOT_INDEXED) {
+      return pos;
+    }
+    for (int i = 0; i < this.domain.length; i++) {
+      if (arg.equals(this.domain[i])) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return The index into values of arg, -1 if arg is not in the domain of
+   *         this function, or NOT_INDEXED if the domain has to be searched
+   *         because it is not indexed (see ENABLED) or arg cannot be fingerprinted.
+   */
+  private final int lookup(final Value arg) {
+    if (!ENABLED || !this.isNorm || this.domain.length < INDEX_MIN_SIZE) {
+      return NOT_INDEXED;
+    }
+    SortedSetAlgebra.Index idx = this.index;
+    if (idx == null || (idx != SortedSetAlgebra.Index.NONE && !idx.isValid())) {
+      idx = SortedSetAlgebra.Index.create(new ValueVec(this.domain));
+      this.index = idx;
+    }
+    if (idx == SortedSetAlgebra.Index.NONE) {
+      return NOT_INDEXED;
+    }
+    final long fp;
+    try {
+      fp = arg.fingerPrint(FP64.New());
+    } catch (RuntimeException e) {
+      return NOT_INDEXED;
+    }
+    final int pos = idx.indexOf(new ValueVec(this.domain), arg, fp);
+    if (pos < 0) {
+      // Compare arg with the first element of the domain as the search does,
+      // for the same error if arg is incomparable with the domain.
+      this.domain[0].equals(arg);
+    }
+    return pos;
+  }
+
+  /**
+   * @return A function with the domain of this function and the given values.
+   *         An interval or normalized domain is immutable and thus shared, a
+   *         non-normalized one gets sorted in place by normalize and is copied.
+   */
+  private final FcnRcdValue withValues(final Value[] newValues) {
+    if (this.intv != null || this.isNorm) {
+      return new FcnRcdValue(this, newValues);
+    }
+    return new FcnRcdValue(this.domain.clone(), newValues, false);
+  }
+
   @Override
   public final Value getDomain() {
     try {
@@ -681,23 +772,15 @@ public class FcnRcdValue extends Value implements Applicable, IFcnRcdValue {
   public final long fingerPrint(long fp) {
     try {
       this.normalize();
-      int flen = this.values.length;
-      fp = FP64.Extend(fp, FCNRCDVALUE);
-      fp = FP64.Extend(fp, flen);
-      if (this.intv == null) {
-        for (int i = 0; i < flen; i++) {
-          fp = this.domain[i].fingerPrint(fp);
-          fp = this.values[i].fingerPrint(fp);
-        }
-      }
-      else {
-        for (int i = 0; i < flen; i++) {
-          fp = FP64.Extend(fp, INTVALUE);
-          fp = FP64.Extend(fp, i + this.intv.low);
-          fp = this.values[i].fingerPrint(fp);
+      if (CachedFingerprint.ENABLED && this.values.length >= CachedFingerprint.MIN_SIZE) {
+        CachedFingerprint cached = this.cachedFP;
+        if (cached == null || !cached.isValid()) {
+          cached = new CachedFingerprint(this.fingerPrintElems(FP64.Zero), this.fingerPrintElems(FP64.One));
+          this.cachedFP = cached;
         }
+        return cached.extend(fp);
       }
-      return fp;
+      return this.fingerPrintElems(fp);
     }
     catch (RuntimeException | OutOfMemoryError e) {
       if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
@@ -705,12 +788,46 @@ public class FcnRcdValue extends Value implements Applicable, IFcnRcdValue {
     }
   }
 
+  private final long fingerPrintElems(long fp) {
+    int flen = this.values.length;
+    fp = FP64.Extend(fp, FCNRCDVALUE);
+    fp = FP64.Extend(fp, flen);
+    if (this.intv == null) {
+      for (int i = 0; i < flen; i++) {
+        fp = this.domain[i].fingerPrint(fp);
+        fp = this.values[i].fingerPrint(fp);
+      }
+    }
+    else {
+      for (int i = 0; i < flen; i++) {
+        fp = FP64.Extend(fp, INTVALUE);
+        fp = FP64.Extend(fp, i + this.intv.low);
+        fp = this.values[i].fingerPrint(fp);
+      }
+    }
+    return fp;
+  }
+
+  @Override
+  public final long getModelValueMask() {
+    if (this.mvMask == MV_MASK_UNKNOWN) {
+      final long mask = getModelValueMask(this.values, 0L);
+      this.mvMask = this.intv == null ? getModelValueMask(this.domain, mask) : mask;
+    }
+    return this.mvMask;
+  }
+
   @Override
   public final IValue permute(IMVPerm perm) {
     try {
+      // No model value of this function is changed by perm, neither in its
+      // domain nor in its range.
+      if (perm.isIdentityOn(this.getModelValueMask())) {
+        return this;
+      }
 
       this.normalize();
-      int flen = this.domain.length;
+      int flen = this.values.length;
       Value[] vals = new Value[flen];
 
       boolean vchanged = false;
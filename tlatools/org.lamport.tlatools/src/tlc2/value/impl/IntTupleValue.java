@@ -0,0 +1,445 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import tlc2.tool.EvalControl;
+import tlc2.tool.FingerprintException;
+import tlc2.tool.coverage.CostModel;
+import tlc2.util.FP64;
+import tlc2.value.IMVPerm;
+import tlc2.value.ITupleValue;
+import tlc2.value.IValue;
+import tlc2.value.IValueOutputStream;
+import tlc2.value.Values;
+import util.Assert;
+
+/**
+ * A non-empty tuple (sequence) of integers whose elements are stored unboxed in
+ * an int[]. Len, Head, Tail, Append, Cons, and SubSeq of the Sequences module
+ * and function application work on the int[] directly and, other than a
+ * TupleValue, do not create (or copy the references to) an IntValue per
+ * element.
+ * <p>
+ * An IntTupleValue is indistinguishable from the equivalent TupleValue: It has
+ * the same fingerprint, compares and is equal to it, and is written as a
+ * TupleValue. Operations without a fast path work on the equivalent TupleValue
+ * (see toTuple), which is created once and cached. An IntTupleValue is only
+ * ever created from integers (see of), and an operation that introduces a
+ * non-integer element returns a TupleValue.
+ * <p>
+ * Enable with -Dtlc2.value.impl.IntTupleValue.enabled=true
+ */
+public class IntTupleValue extends Value implements Applicable, ITupleValue {
+
+	private static final long serialVersionUID = 984602619374670858L;
+
+	public static final boolean ENABLED = Boolean.getBoolean(IntTupleValue.class.getName() + ".enabled");
+
+	private final int[] elems;
+	private transient TupleValue tuple;
+
+	IntTupleValue(final int[] elems) {
+		this.elems = elems;
+	}
+
+	IntTupleValue(final int[] elems, final CostModel cm) {
+		this(elems);
+		this.cm = cm;
+	}
+
+	/**
+	 * @return An IntTupleValue if IntTupleValue is enabled and vals is a
+	 *         non-empty array of IntValues, a TupleValue of vals otherwise.
+	 */
+	public static Value of(final Value[] vals, final CostModel cm) {
+		if (!ENABLED || vals.length == 0) {
+			return new TupleValue(vals, cm);
+		}
+		final int[] ints = new int[vals.length];
+		for (int i = 0; i < vals.length; i++) {
+			if (!(vals[i] instanceof IntValue)) {
+				return new TupleValue(vals, cm);
+			}
+			ints[i] = ((IntValue) vals[i]).val;
+		}
+		return new IntTupleValue(ints, cm);
+	}
+
+	public final int elemAt(final int idx) {
+		return this.elems[idx];
+	}
+
+	/**
+	 * @return The tuple of the elements of this tuple in [from, to).
+	 */
+	public final Value sub(final int from, final int to) {
+		if (from >= to) {
+			return TupleValue.EmptyTuple;
+		}
+		return new IntTupleValue(Arrays.copyOfRange(this.elems, from, to));
+	}
+
+	/**
+	 * @return The tuple of this tuple with v appended.
+	 */
+	public final IntTupleValue append(final int v) {
+		final int[] ints = Arrays.copyOf(this.elems, this.elems.length + 1);
+		ints[this.elems.length] = v;
+		return new IntTupleValue(ints);
+	}
+
+	/**
+	 * @return The tuple of this tuple with v prepended.
+	 */
+	public final IntTupleValue cons(final int v) {
+		final int[] ints = new int[this.elems.length + 1];
+		ints[0] = v;
+		System.arraycopy(this.elems, 0, ints, 1, this.elems.length);
+		return new IntTupleValue(ints);
+	}
+
+	/**
+	 * @return The tuple of the elements of s1 followed by those of s2.
+	 */
+	public static IntTupleValue concat(final IntTupleValue s1, final IntTupleValue s2) {
+		final int[] ints = Arrays.copyOf(s1.elems, s1.elems.length + s2.elems.length);
+		System.arraycopy(s2.elems, 0, ints, s1.elems.length, s2.elems.length);
+		return new IntTupleValue(ints);
+	}
+
+	@Override
+	public IValue getElem(final int idx) {
+		return IntValue.gen(this.elems[idx]);
+	}
+
+	@Override
+	public IValue[] getElems() {
+		return ((TupleValue) this.toTuple()).elems;
+	}
+
+	@Override
+	public final byte getKind() {
+		return INTTUPLEVALUE;
+	}
+
+	@Override
+	public final int compareTo(final Object obj) {
+		try {
+			if (obj instanceof IntTupleValue) {
+				final int[] other = ((IntTupleValue) obj).elems;
+				int cmp = this.elems.length - other.length;
+				for (int i = 0; cmp == 0 && i < this.elems.length; i++) {
+					cmp = Integer.compare(this.elems[i], other[i]);
+				}
+				return cmp;
+			}
+			return this.toTuple().compareTo(obj);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final boolean equals(final Object obj) {
+		try {
+			if (obj instanceof IntTupleValue) {
+				return Arrays.equals(this.elems, ((IntTupleValue) obj).elems);
+			}
+			return this.toTuple().equals(obj);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final boolean member(final Value elem) {
+		try {
+			Assert.fail("Attempted to check set membership in a tuple value.");
+			return false; // make compiler happy
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final boolean isFinite() {
+		return true;
+	}
+
+	@Override
+	public final Value apply(final Value arg, final int control) {
+		try {
+			if (!(arg instanceof IntValue)) {
+				Assert.fail("Attempted to apply tuple to a non-integer argument.");
+			}
+			final int idx = ((IntValue) arg).val;
+			if (idx <= 0 || idx > this.elems.length) {
+				Assert.fail("Attempted to apply tuple\n" + Values.ppr(this.toString()) + "\nto integer " + idx
+						+ " which is out of domain.");
+			}
+			return IntValue.gen(this.elems[idx - 1]);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final Value apply(final Value[] args, final int control) {
+		try {
+			if (args.length != 1) {
+				Assert.fail("Attetmpted to apply tuple with wrong number of arguments.");
+			}
+			return this.apply(args[0], EvalControl.Clear);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final Value select(final Value arg) {
+		try {
+			if (!(arg instanceof IntValue)) {
+				Assert.fail("Attempted to apply tuple to a non-integer argument " + Values.ppr(arg.toString()) + ".");
+			}
+			final int idx = ((IntValue) arg).val;
+			if (idx > 0 && idx <= this.elems.length) {
+				return IntValue.gen(this.elems[idx - 1]);
+			}
+			return null;
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final Value takeExcept(final ValueExcept ex) {
+		return this.takeExcept(new ValueExcept[] { ex });
+	}
+
+	/**
+	 * Replaces elements in a single copy of the int[] as long as the new elements
+	 * are integers, and continues on the equivalent TupleValue otherwise (see
+	 * TupleValue#takeExcept(ValueExcept[])).
+	 */
+	@Override
+	public final Value takeExcept(final ValueExcept[] exs) {
+		try {
+			int[] ints = null;
+			for (int i = 0; i < exs.length; i++) {
+				final ValueExcept ex = exs[i];
+				if (ex.idx >= ex.path.length || !(ex.path[ex.idx] instanceof IntValue)) {
+					return rest(ints, exs, i);
+				}
+				final int idx = ((IntValue) ex.path[ex.idx]).val - 1;
+				if (0 <= idx && idx < this.elems.length) {
+					final int cur = ints == null ? this.elems[idx] : ints[idx];
+					final int exIdx = ex.idx++;
+					final Value val = IntValue.gen(cur).takeExcept(ex);
+					if (!(val instanceof IntValue)) {
+						ex.idx = exIdx;
+						return rest(ints, exs, i);
+					}
+					if (ints == null) {
+						ints = this.elems.clone();
+					}
+					ints[idx] = ((IntValue) val).val;
+				}
+			}
+			return ints == null ? this : new IntTupleValue(ints);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	private final Value rest(final int[] ints, final ValueExcept[] exs, final int from) {
+		final Value cur = ints == null ? this : new IntTupleValue(ints);
+		return cur.toTuple().takeExcept(Arrays.copyOfRange(exs, from, exs.length));
+	}
+
+	@Override
+	public final Value getDomain() {
+		try {
+			return new IntervalValue(1, this.size());
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final int size() {
+		return this.elems.length;
+	}
+
+	@Override
+	public final Value toTuple() {
+		TupleValue tv = this.tuple;
+		if (tv == null) {
+			final Value[] vals = new Value[this.elems.length];
+			for (int i = 0; i < vals.length; i++) {
+				vals[i] = IntValue.gen(this.elems[i]);
+			}
+			tv = new TupleValue(vals, this.cm);
+			this.tuple = tv;
+		}
+		return tv;
+	}
+
+	@Override
+	public final Value toFcnRcd() {
+		return this.toTuple().toFcnRcd();
+	}
+
+	@Override
+	public final boolean isNormalized() {
+		return true;
+	}
+
+	@Override
+	public final Value normalize() {
+		/* nop */return this;
+	}
+
+	@Override
+	public final boolean isDefined() {
+		return true;
+	}
+
+	@Override
+	public final IValue deepCopy() {
+		// The int[] is never modified.
+		return this;
+	}
+
+	@Override
+	public final boolean assignable(final Value val) {
+		try {
+			if (val instanceof IntTupleValue) {
+				return Arrays.equals(this.elems, ((IntTupleValue) val).elems);
+			}
+			return this.toTuple().assignable(val);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final void write(final IValueOutputStream vos) throws IOException {
+		this.toTuple().write(vos);
+	}
+
+	/* The fingerprint method: tuples are functions (see TupleValue#fingerPrint). */
+	@Override
+	public final long fingerPrint(long fp) {
+		try {
+			final int len = this.elems.length;
+			fp = FP64.Extend(fp, FCNRCDVALUE);
+			fp = FP64.Extend(fp, len);
+			for (int i = 0; i < len; i++) {
+				fp = FP64.Extend(fp, INTVALUE);
+				fp = FP64.Extend(fp, i + 1);
+				fp = FP64.Extend(FP64.Extend(fp, INTVALUE), this.elems[i]);
+			}
+			return fp;
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final long getModelValueMask() {
+		return 0L;
+	}
+
+	@Override
+	public final IValue permute(final IMVPerm perm) {
+		return this;
+	}
+
+	/* The string representation of this value. */
+	@Override
+	public final StringBuffer toString(final StringBuffer sb, final int offset, final boolean swallow) {
+		try {
+			sb.append("<<");
+			for (int i = 0; i < this.elems.length; i++) {
+				if (i > 0) {
+					sb.append(", ");
+				}
+				sb.append(this.elems[i]);
+			}
+			sb.append(">>");
+			return sb;
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+}
@@ -72,6 +72,9 @@ public class IntValue extends Value {
       if (obj instanceof IntValue) {
         return Integer.compare(this.val, ((IntValue)obj).val);
       }
+      if (obj instanceof BigIntValue) {
+        return BigIntValue.compare(this, (BigIntValue) obj);
+      }
       if (!(obj instanceof ModelValue)) {
         Assert.fail("Attempted to compare integer " + Values.ppr(this.toString()) +
         " with non-integer:\n" + Values.ppr(obj.toString()));
@@ -89,6 +92,9 @@ public class IntValue extends Value {
       if (obj instanceof IntValue) {
         return this.val == ((IntValue)obj).val;
       }
+      if (obj instanceof BigIntValue) {
+        return false;
+      }
       if (!(obj instanceof ModelValue)) {
         Assert.fail("Attempted to check equality of integer " + Values.ppr(this.toString()) +
         " with non-integer:\n" + Values.ppr(obj.toString()));
@@ -221,6 +227,9 @@ public class IntValue extends Value {
   @Override
   public final IValue permute(IMVPerm perm) { return this; }
 
+  @Override
+  public final long getModelValueMask() { return 0L; }
+
   /* The string representation. */
   @Override
   public final StringBuffer toString(StringBuffer sb, int offset, boolean ignored) {
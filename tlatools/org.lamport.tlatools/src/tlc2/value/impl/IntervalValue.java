@@ -76,6 +76,9 @@ implements Enumerable, Reducible {
         int x = ((IntValue)elem).val;
         return (x >= low) && (x <= high);
       }
+      if (elem instanceof BigIntValue) {
+        return false;
+      }
       if (   (this.low <= this.high)
            && (   !(elem instanceof ModelValue)
                || (((ModelValue) elem).type != 0)) ) {
@@ -293,6 +296,11 @@ implements Enumerable, Reducible {
     return this;
   }
 
+  @Override
+  public final long getModelValueMask() {
+    return 0L;
+  }
+
   @Override
   public Value toSetEnum() {
 	  Value[] vals = new Value[size()];
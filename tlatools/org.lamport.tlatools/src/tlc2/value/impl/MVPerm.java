@@ -95,7 +95,43 @@ public final class MVPerm implements IMVPerm {
     }
     return res;
   }
-  
+
+  @Override
+  public final boolean isIdentityOn(long mask) {
+    if (mask == IValue.ALL_MODEL_VALUES) {
+      return this.count == 0;
+    }
+    while (mask != 0L) {
+      final int i = Long.numberOfTrailingZeros(mask);
+      if (i < this.elems.length && this.elems[i] != null) {
+        return false;
+      }
+      mask &= mask - 1;
+    }
+    return true;
+  }
+
+  @Override
+  public final boolean agreesOn(IMVPerm other, long mask) {
+    final ModelValue[] otherElems = ((MVPerm) other).elems;
+    if (mask == IValue.ALL_MODEL_VALUES) {
+      for (int i = 0; i < this.elems.length; i++) {
+        if (this.elems[i] != otherElems[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+    while (mask != 0L) {
+      final int i = Long.numberOfTrailingZeros(mask);
+      if (i < this.elems.length && this.elems[i] != otherElems[i]) {
+        return false;
+      }
+      mask &= mask - 1;
+    }
+    return true;
+  }
+
   /**
    * Consider caching if this method is used frequently; currently it is used once per instance per
    * 	execution of TLC, during initial state setup / expansion.
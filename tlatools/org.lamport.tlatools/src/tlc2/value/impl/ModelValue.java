@@ -325,6 +325,12 @@ public class ModelValue extends Value implements IModelValue {
     }
   }
 
+  @Override
+  public final long getModelValueMask() {
+    // Model values beyond the 64th cannot be represented in the mask.
+    return this.index < Long.SIZE ? 1L << this.index : ALL_MODEL_VALUES;
+  }
+
   /* The string representation. */
   @Override
   public final StringBuffer toString(StringBuffer sb, int offset, boolean ignored) {
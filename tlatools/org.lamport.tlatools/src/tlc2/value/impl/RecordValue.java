@@ -32,6 +32,8 @@ public class RecordValue extends Value implements Applicable {
   public final UniqueString[] names;   // the field names
   public final Value[] values;         // the field values
   private boolean isNorm;
+  private transient long mvMask = MV_MASK_UNKNOWN;
+  private transient CachedFingerprint cachedFP;
 public static final RecordValue EmptyRcd = new RecordValue(new UniqueString[0], new Value[0], true);
 
   /* Constructor */
@@ -146,28 +148,15 @@ public static final RecordValue EmptyRcd = new RecordValue(new UniqueString[0],
   public final Value takeExcept(ValueExcept ex) {
     try {
       if (ex.idx < ex.path.length) {
-        int rlen = this.names.length;
-        Value[] newValues = new Value[rlen];
         Value arcVal = ex.path[ex.idx];
         if (arcVal instanceof StringValue) {
-          UniqueString arc = ((StringValue)arcVal).val;
-          for (int i = 0; i < rlen; i++) {
-            if (this.names[i].equals(arc)) {
-              ex.idx++;
-              newValues[i] = this.values[i].takeExcept(ex);
-            }
-            else {
-              newValues[i] = this.values[i];
-            }
+          final Value[] newValues = this.values.clone();
+          final int i = this.indexOf(((StringValue)arcVal).val);
+          if (i >= 0) {
+            ex.idx++;
+            newValues[i] = this.values[i].takeExcept(ex);
           }
-          UniqueString[] newNames = this.names;
-          if (!this.isNorm) {
-            newNames = new UniqueString[rlen];
-            for (int i = 0; i < rlen; i++) {
-              newNames[i] = this.names[i];
-            }
-          }
-          return new RecordValue(newNames, newValues, this.isNorm);
+          return this.withValues(newValues);
         }
         else {
             MP.printWarning(EC.TLC_WRONG_RECORD_FIELD_NAME, new String[]{Values.ppr(arcVal.toString())});
@@ -181,14 +170,31 @@ public static final RecordValue EmptyRcd = new RecordValue(new UniqueString[0],
     }
   }
 
+  /**
+   * Applies all exs to a single copy of the values of this record instead of
+   * copying the values once per ValueExcept.
+   */
   @Override
   public final Value takeExcept(ValueExcept[] exs) {
     try {
-      Value res = this;
+      final Value[] newValues = this.values.clone();
       for (int i = 0; i < exs.length; i++) {
-        res = res.takeExcept(exs[i]);
+        final ValueExcept ex = exs[i];
+        if (ex.idx >= ex.path.length || !(ex.path[ex.idx] instanceof StringValue)) {
+          // Replaces the record as a whole (see takeExcept(ValueExcept)).
+          Value res = this.withValues(newValues).takeExcept(ex);
+          for (int j = i + 1; j < exs.length; j++) {
+            res = res.takeExcept(exs[j]);
+          }
+          return res;
+        }
+        final int idx = this.indexOf(((StringValue) ex.path[ex.idx]).val);
+        if (idx >= 0) {
+          ex.idx++;
+          newValues[idx] = newValues[idx].takeExcept(ex);
+        }
       }
-      return res;
+      return this.withValues(newValues);
     }
     catch (RuntimeException | OutOfMemoryError e) {
       if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
@@ -196,6 +202,23 @@ public static final RecordValue EmptyRcd = new RecordValue(new UniqueString[0],
     }
   }
 
+  private final int indexOf(final UniqueString name) {
+    for (int i = 0; i < this.names.length; i++) {
+      if (this.names[i].equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Normalized names are immutable and thus shared, non-normalized ones get
+   * sorted in place by normalize and are copied.
+   */
+  private final RecordValue withValues(final Value[] newValues) {
+    return new RecordValue(this.isNorm ? this.names : this.names.clone(), newValues, this.isNorm);
+  }
+
   @Override
   public final Value toRcd() {
 	  return this;
@@ -472,17 +495,15 @@ public static final RecordValue EmptyRcd = new RecordValue(new UniqueString[0],
   public final long fingerPrint(long fp) {
     try {
       this.normalize();
-      int rlen = this.names.length;
-      fp = FP64.Extend(fp, FCNRCDVALUE);
-      fp = FP64.Extend(fp, rlen);
-      for (int i = 0; i < rlen; i++) {
-        String str = this.names[i].toString();
-        fp = FP64.Extend(fp, STRINGVALUE);
-        fp = FP64.Extend(fp, str.length());
-        fp = FP64.Extend(fp, str);
-        fp = this.values[i].fingerPrint(fp);
+      if (CachedFingerprint.ENABLED && this.names.length >= CachedFingerprint.MIN_SIZE) {
+        CachedFingerprint cached = this.cachedFP;
+        if (cached == null || !cached.isValid()) {
+          cached = new CachedFingerprint(this.fingerPrintElems(FP64.Zero), this.fingerPrintElems(FP64.One));
+          this.cachedFP = cached;
+        }
+        return cached.extend(fp);
       }
-      return fp;
+      return this.fingerPrintElems(fp);
     }
     catch (RuntimeException | OutOfMemoryError e) {
       if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
@@ -490,9 +511,34 @@ public static final RecordValue EmptyRcd = new RecordValue(new UniqueString[0],
     }
   }
 
+  private final long fingerPrintElems(long fp) {
+    int rlen = this.names.length;
+    fp = FP64.Extend(fp, FCNRCDVALUE);
+    fp = FP64.Extend(fp, rlen);
+    for (int i = 0; i < rlen; i++) {
+      String str = this.names[i].toString();
+      fp = FP64.Extend(fp, STRINGVALUE);
+      fp = FP64.Extend(fp, str.length());
+      fp = FP64.Extend(fp, str);
+      fp = this.values[i].fingerPrint(fp);
+    }
+    return fp;
+  }
+
+  @Override
+  public final long getModelValueMask() {
+    if (this.mvMask == MV_MASK_UNKNOWN) {
+      this.mvMask = getModelValueMask(this.values, 0L);
+    }
+    return this.mvMask;
+  }
+
   @Override
   public final IValue permute(IMVPerm perm) {
     try {
+      if (perm.isIdentityOn(this.getModelValueMask())) {
+        return this;
+      }
       this.normalize();
       int rlen = this.names.length;
       Value[] vals = new Value[rlen];
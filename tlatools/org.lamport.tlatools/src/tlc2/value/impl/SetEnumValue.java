@@ -27,6 +27,10 @@ public class SetEnumValue extends EnumerableValue
 implements Enumerable, Reducible {
   public ValueVec elems;         // the elements of the set
   private boolean isNorm;        // normalized?
+  private transient long mvMask = MV_MASK_UNKNOWN;
+  private transient CachedFingerprint cachedFP;
+  private transient SortedSetAlgebra.Index index;
+  private transient int searches;    // binary searches before index is built
 public static final SetEnumValue EmptySet = new SetEnumValue(new ValueVec(0), true);
 public static final SetEnumValue DummyEnum = new SetEnumValue((ValueVec)null, true);
 
@@ -141,6 +145,9 @@ public static final SetEnumValue DummyEnum = new SetEnumValue((ValueVec)null, tr
   @Override
   public final boolean member(Value elem) {
     try {
+      if (SortedSetAlgebra.ENABLED && this.isNorm && this.elems.size() >= SortedSetAlgebra.INDEX_MIN_SIZE) {
+        return this.memberIndexed(elem);
+      }
       return this.elems.search(elem, this.isNorm);
     }
     catch (RuntimeException | OutOfMemoryError e) {
@@ -149,12 +156,39 @@ public static final SetEnumValue DummyEnum = new SetEnumValue((ValueVec)null, tr
     }
   }
 
+  /**
+   * Decides membership in this normalized set with a binary search until the
+   * set has been searched often enough to pay for building the hash index of
+   * its elements (see SortedSetAlgebra#searchesBeforeIndex), and with the index
+   * afterwards.
+   */
+  final boolean memberIndexed(final Value elem) {
+    SortedSetAlgebra.Index idx = this.index;
+    if (idx == null || (idx != SortedSetAlgebra.Index.NONE && !idx.isValid())) {
+      if (idx == null && ++this.searches <= SortedSetAlgebra.searchesBeforeIndex(this.elems.size())) {
+        return this.elems.search(elem, true);
+      }
+      idx = SortedSetAlgebra.Index.create(this.elems);
+      this.index = idx;
+    }
+    if (idx != SortedSetAlgebra.Index.NONE) {
+      return idx.member(this.elems, elem);
+    }
+    return this.elems.search(elem, true);
+  }
+
   @Override
   public final boolean isFinite() { return true; }
 
   @Override
   public final Value diff(Value val) {
     try {
+      if (SortedSetAlgebra.ENABLED && val instanceof SetEnumValue) {
+        final SetEnumValue set = (SetEnumValue) val;
+        this.normalize();
+        set.normalize();
+        return new SetEnumValue(SortedSetAlgebra.diff(this.elems, set.elems), true, cm);
+      }
       int sz = this.elems.size();
       ValueVec diffElems = new ValueVec();
       for (int i = 0; i < sz; i++) {
@@ -174,6 +208,12 @@ public static final SetEnumValue DummyEnum = new SetEnumValue((ValueVec)null, tr
   @Override
   public final Value cap(Value val) {
     try {
+      if (SortedSetAlgebra.ENABLED && val instanceof SetEnumValue) {
+        final SetEnumValue set = (SetEnumValue) val;
+        this.normalize();
+        set.normalize();
+        return new SetEnumValue(SortedSetAlgebra.cap(this.elems, set.elems), true, cm);
+      }
       int sz = this.elems.size();
       ValueVec capElems = new ValueVec();
       for (int i = 0; i < sz; i++) {
@@ -196,6 +236,12 @@ public static final SetEnumValue DummyEnum = new SetEnumValue((ValueVec)null, tr
       int sz = this.elems.size();
       if (sz == 0) return set;
 
+      if (SortedSetAlgebra.ENABLED && set instanceof SetEnumValue) {
+        final SetEnumValue other = (SetEnumValue) set;
+        this.normalize();
+        other.normalize();
+        return new SetEnumValue(SortedSetAlgebra.cup(this.elems, other.elems), true);
+      }
       if (set instanceof Reducible) {
         ValueVec cupElems = new ValueVec();
         for (int i = 0; i < sz; i++) {
@@ -346,14 +392,15 @@ public static final SetEnumValue DummyEnum = new SetEnumValue((ValueVec)null, tr
   public final long fingerPrint(long fp) {
     try {
       this.normalize();
-      int sz = this.elems.size();
-      fp = FP64.Extend(fp, SETENUMVALUE);
-      fp = FP64.Extend(fp, sz);
-      for (int i = 0; i < sz; i++) {
-        Value elem = this.elems.elementAt(i);
-        fp = elem.fingerPrint(fp);
+      if (CachedFingerprint.ENABLED && this.elems.size() >= CachedFingerprint.MIN_SIZE) {
+        CachedFingerprint cached = this.cachedFP;
+        if (cached == null || !cached.isValid()) {
+          cached = new CachedFingerprint(this.fingerPrintElems(FP64.Zero), this.fingerPrintElems(FP64.One));
+          this.cachedFP = cached;
+        }
+        return cached.extend(fp);
       }
-      return fp;
+      return this.fingerPrintElems(fp);
     }
     catch (RuntimeException | OutOfMemoryError e) {
       if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
@@ -361,9 +408,36 @@ public static final SetEnumValue DummyEnum = new SetEnumValue((ValueVec)null, tr
     }
   }
 
+  private final long fingerPrintElems(long fp) {
+    int sz = this.elems.size();
+    fp = FP64.Extend(fp, SETENUMVALUE);
+    fp = FP64.Extend(fp, sz);
+    for (int i = 0; i < sz; i++) {
+      Value elem = this.elems.elementAt(i);
+      fp = elem.fingerPrint(fp);
+    }
+    return fp;
+  }
+
+  @Override
+  public final long getModelValueMask() {
+    if (this.mvMask == MV_MASK_UNKNOWN) {
+      long mask = 0L;
+      final int sz = this.elems.size();
+      for (int i = 0; i < sz && mask != ALL_MODEL_VALUES; i++) {
+        mask |= this.elems.elementAt(i).getModelValueMask();
+      }
+      this.mvMask = mask == MV_MASK_UNKNOWN ? ALL_MODEL_VALUES : mask;
+    }
+    return this.mvMask;
+  }
+
   @Override
   public final IValue permute(IMVPerm perm) {
     try {
+      if (perm.isIdentityOn(this.getModelValueMask())) {
+        return this;
+      }
       int sz = this.elems.size();
       Value[] vals = new Value[sz];
       boolean changed = false;
@@ -13,6 +13,7 @@ import tlc2.TLCGlobals;
 import tlc2.tool.FingerprintException;
 import tlc2.tool.coverage.CostModel;
 import tlc2.value.IMVPerm;
+import tlc2.value.ITupleValue;
 import tlc2.value.IValue;
 import tlc2.value.IValueOutputStream;
 import tlc2.value.Values;
@@ -69,6 +70,19 @@ public class SetOfFcnsValue extends SetOfFcnsOrRcdsValue implements Enumerable {
   @Override
   public final boolean member(Value elem) {
     try {
+      if (elem instanceof ITupleValue && this.domain instanceof IntervalValue) {
+        // Check the tuple directly instead of converting it to a function.
+        final ITupleValue tuple = (ITupleValue) elem;
+        final IntervalValue intv = (IntervalValue) this.domain;
+        final int len = tuple.size();
+        if (len == 0 ? intv.low <= intv.high : intv.low != 1 || intv.high != len) {
+          return false;
+        }
+        for (int i = 0; i < len; i++) {
+          if (!this.range.member((Value) tuple.getElem(i))) return false;
+        }
+        return true;
+      }
       FcnRcdValue fcn = (FcnRcdValue) elem.toFcnRcd();
       if (fcn == null) {
         if (elem instanceof ModelValue)
@@ -104,6 +118,33 @@ public class SetOfFcnsValue extends SetOfFcnsOrRcdsValue implements Enumerable {
     }
   }
 
+  @Override
+  public final Value isSubsetEq(Value other) {
+    try {
+      if (other instanceof SetOfFcnsValue && this.range instanceof Enumerable) {
+        // An empty set is a subset of every set.  Otherwise, [S -> T] is a
+        // subset of [S -> U] iff T is a subset of U.
+        final SetOfFcnsValue fcns = (SetOfFcnsValue) other;
+        if (this.isEmpty()) {
+          return BoolValue.ValTrue;
+        }
+        if (!this.domain.equals(fcns.domain)) {
+          return BoolValue.ValFalse;
+        }
+        if (this.domain.isEmpty()) {
+          // Both are the set containing the empty function.
+          return BoolValue.ValTrue;
+        }
+        return ((Enumerable) this.range).isSubsetEq(fcns.range);
+      }
+      return super.isSubsetEq(other);
+    }
+    catch (RuntimeException | OutOfMemoryError e) {
+      if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
+      else { throw e; }
+    }
+  }
+
   @Override
   public final boolean isFinite() {
     try {
@@ -113,6 +113,44 @@ public class SetOfRcdsValue extends SetOfFcnsOrRcdsValue implements Enumerable {
     }
   }
 
+  @Override
+  public final Value isSubsetEq(Value other) {
+    try {
+      if (other instanceof SetOfRcdsValue) {
+        // An empty set is a subset of every set.  Otherwise, [h1 : S1, ...] is
+        // a subset of [h1 : T1, ...] iff each Si is a subset of Ti.
+        final SetOfRcdsValue rcds = (SetOfRcdsValue) other;
+        if (this.isEmpty()) {
+          return BoolValue.ValTrue;
+        }
+        if (this.names.length != rcds.names.length) {
+          return BoolValue.ValFalse;
+        }
+        for (int i = 0; i < this.names.length; i++) {
+          if (!this.names[i].equals(rcds.names[i])) {
+            return BoolValue.ValFalse;
+          }
+        }
+        for (int i = 0; i < this.values.length; i++) {
+          if (!(this.values[i] instanceof Enumerable)) {
+            return super.isSubsetEq(other);
+          }
+        }
+        for (int i = 0; i < this.values.length; i++) {
+          if (!((BoolValue) ((Enumerable) this.values[i]).isSubsetEq(rcds.values[i])).val) {
+            return BoolValue.ValFalse;
+          }
+        }
+        return BoolValue.ValTrue;
+      }
+      return super.isSubsetEq(other);
+    }
+    catch (RuntimeException | OutOfMemoryError e) {
+      if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
+      else { throw e; }
+    }
+  }
+
   @Override
   public final boolean isFinite() {
     try {
@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import tlc2.util.FP64;
+
+/**
+ * Union, intersection, and difference of two normalized SetEnumValues by
+ * merging their (sorted) elements in linear time, instead of looking up each
+ * element of one set in the other and normalizing the result afterwards. The
+ * result of a merge is normalized too.
+ * <p>
+ * Additionally, membership in a normalized SetEnumValue with at least
+ * INDEX_MIN_SIZE elements is decided with a hash index of the fingerprints of
+ * its elements instead of a binary search, i.e. with a single fingerprint and
+ * a single comparison instead of log(n) comparisons. Building the index
+ * fingerprints all n elements, so a set is only indexed once it has been
+ * searched log(n) times. A set that is built for a single state and tested
+ * once or twice is never indexed.
+ * <p>
+ * Enable with -Dtlc2.value.impl.SortedSetAlgebra.enabled=true
+ */
+final class SortedSetAlgebra {
+
+	static final boolean ENABLED = Boolean.getBoolean(SortedSetAlgebra.class.getName() + ".enabled");
+
+	static final int INDEX_MIN_SIZE = Integer.getInteger(SortedSetAlgebra.class.getName() + ".indexMinSize", 1024);
+
+	private SortedSetAlgebra() {
+		// no instances
+	}
+
+	/**
+	 * @return The number of binary searches of a normalized set with size
+	 *         elements before its index is built, i.e. log2(size).
+	 */
+	static int searchesBeforeIndex(final int size) {
+		return 31 - Integer.numberOfLeadingZeros(size);
+	}
+
+	/**
+	 * @return The union of the sorted and duplicate-free vectors a and b.
+	 */
+	static ValueVec cup(final ValueVec a, final ValueVec b) {
+		final int sa = a.size(), sb = b.size();
+		final ValueVec res = new ValueVec(sa + sb);
+		int i = 0, j = 0;
+		while (i < sa && j < sb) {
+			final Value x = a.elementAt(i), y = b.elementAt(j);
+			final int cmp = x.compareTo(y);
+			if (cmp < 0) {
+				res.addElement(x);
+				i++;
+			} else if (cmp > 0) {
+				res.addElement(y);
+				j++;
+			} else {
+				res.addElement(x);
+				i++;
+				j++;
+			}
+		}
+		while (i < sa) {
+			res.addElement(a.elementAt(i++));
+		}
+		while (j < sb) {
+			res.addElement(b.elementAt(j++));
+		}
+		return res;
+	}
+
+	/**
+	 * @return The intersection of the sorted and duplicate-free vectors a and b.
+	 */
+	static ValueVec cap(final ValueVec a, final ValueVec b) {
+		final int sa = a.size(), sb = b.size();
+		final ValueVec res = new ValueVec(Math.min(sa, sb));
+		int i = 0, j = 0;
+		while (i < sa && j < sb) {
+			final Value x = a.elementAt(i);
+			final int cmp = x.compareTo(b.elementAt(j));
+			if (cmp < 0) {
+				i++;
+			} else if (cmp > 0) {
+				j++;
+			} else {
+				res.addElement(x);
+				i++;
+				j++;
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * @return The elements of the sorted and duplicate-free vector a that are not
+	 *         in the sorted and duplicate-free vector b.
+	 */
+	static ValueVec diff(final ValueVec a, final ValueVec b) {
+		final int sa = a.size(), sb = b.size();
+		final ValueVec res = new ValueVec(sa);
+		int i = 0, j = 0;
+		while (i < sa && j < sb) {
+			final Value x = a.elementAt(i);
+			final int cmp = x.compareTo(b.elementAt(j));
+			if (cmp < 0) {
+				res.addElement(x);
+				i++;
+			} else if (cmp > 0) {
+				j++;
+			} else {
+				i++;
+				j++;
+			}
+		}
+		while (i < sa) {
+			res.addElement(a.elementAt(i++));
+		}
+		return res;
+	}
+
+	/**
+	 * An open-addressing hash table (linear probing) from the fingerprints of the
+	 * elements of a sorted and duplicate-free vector to their positions. Immutable
+	 * once constructed and thus safe to share among workers.
+	 */
+	static final class Index {
+
+		/**
+		 * Marks a vector whose elements cannot be fingerprinted.
+		 */
+		static final Index NONE = new Index();
+
+		private final long poly;
+		private final long[] fps;
+		/**
+		 * The position of the element with fingerprint fps[i] plus one, or zero if
+		 * the i-th slot is empty.
+		 */
+		private final int[] pos;
+		private final int mask;
+
+		private Index() {
+			this.poly = 0L;
+			this.fps = null;
+			this.pos = null;
+			this.mask = 0;
+		}
+
+		private Index(final long[] fps, final int[] pos) {
+			this.poly = FP64.getIrredPoly();
+			this.fps = fps;
+			this.pos = pos;
+			this.mask = fps.length - 1;
+		}
+
+		/**
+		 * @return The index of elems, or NONE if an element cannot be fingerprinted.
+		 */
+		static Index create(final ValueVec elems) {
+			final int size = elems.size();
+			// A load factor of at most 0.5.
+			final int capacity = Integer.highestOneBit(size) << 2;
+			final long[] fps = new long[capacity];
+			final int[] pos = new int[capacity];
+			final int mask = capacity - 1;
+			try {
+				for (int i = 0; i < size; i++) {
+					final long fp = elems.elementAt(i).fingerPrint(FP64.New());
+					int slot = hash(fp) & mask;
+					while (pos[slot] != 0) {
+						slot = (slot + 1) & mask;
+					}
+					fps[slot] = fp;
+					pos[slot] = i + 1;
+				}
+			} catch (RuntimeException e) {
+				return NONE;
+			}
+			return new Index(fps, pos);
+		}
+
+		/**
+		 * @return false if FP64 has been re-initialized with a different polynomial
+		 *         since this index was created, or if this is NONE.
+		 */
+		boolean isValid() {
+			return this.fps != null && this.poly == FP64.getIrredPoly();
+		}
+
+		/**
+		 * @return true iff elem is an element of elems, the vector this index has
+		 *         been created from.
+		 */
+		boolean member(final ValueVec elems, final Value elem) {
+			final long fp;
+			try {
+				fp = elem.fingerPrint(FP64.New());
+			} catch (RuntimeException e) {
+				return elems.search(elem, true);
+			}
+			if (this.indexOf(elems, elem, fp) >= 0) {
+				return true;
+			}
+			// Compare elem with the element that the binary search compares it with first,
+			// for the same error if elem is incomparable with the elements of elems.
+			elem.compareTo(elems.elementAt(elems.size() >> 1));
+			return false;
+		}
+
+		/**
+		 * @param fp The fingerprint of elem (see Value#fingerPrint(FP64.New())).
+		 * @return The position of elem in elems, the vector this index has been
+		 *         created from, or -1 if elem is not an element of elems.
+		 */
+		int indexOf(final ValueVec elems, final Value elem, final long fp) {
+			int slot = hash(fp) & this.mask;
+			int p;
+			while ((p = this.pos[slot]) != 0) {
+				// Equal fingerprints do not imply equal values.
+				if (this.fps[slot] == fp && elem.compareTo(elems.elementAt(p - 1)) == 0) {
+					return p - 1;
+				}
+				slot = (slot + 1) & this.mask;
+			}
+			return -1;
+		}
+
+		private static int hash(final long fp) {
+			return (int) (fp ^ (fp >>> 32));
+		}
+	}
+}
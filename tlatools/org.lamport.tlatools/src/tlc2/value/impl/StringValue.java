@@ -21,8 +21,17 @@ import util.Assert;
 import util.UniqueString;
 
 public class StringValue extends Value {
+  /*
+   * Extending a fingerprint by a string takes a table lookup per char. Only
+   * from about this many chars on is the multiplication of a cached
+   * fingerprint cheaper (see CachedFingerprint and FP64#Multiply).
+   */
+  static final int MIN_CACHED_LENGTH = 64;
+
   public final UniqueString val;
 
+  private transient CachedFingerprint cachedFP;
+
   /* Constructor */
   public StringValue(String str) {
     // SZ 11.04.2009: changed the access method to equivalent
@@ -213,10 +222,15 @@ public class StringValue extends Value {
   @Override
   public final long fingerPrint(long fp) {
     try {
-      fp = FP64.Extend(fp, STRINGVALUE) ;
-      fp = FP64.Extend(fp, this.val.length()) ;
-      fp = FP64.Extend(fp, this.val.toString());
-      return fp;
+      if (CachedFingerprint.ENABLED && this.val.length() >= MIN_CACHED_LENGTH) {
+        CachedFingerprint cached = this.cachedFP;
+        if (cached == null || !cached.isValid()) {
+          cached = new CachedFingerprint(this.fingerPrintChars(FP64.Zero), this.fingerPrintChars(FP64.One));
+          this.cachedFP = cached;
+        }
+        return cached.extend(fp);
+      }
+      return this.fingerPrintChars(fp);
     }
     catch (RuntimeException | OutOfMemoryError e) {
       if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
@@ -224,9 +238,19 @@ public class StringValue extends Value {
     }
   }
 
+  private final long fingerPrintChars(long fp) {
+    fp = FP64.Extend(fp, STRINGVALUE) ;
+    fp = FP64.Extend(fp, this.val.length()) ;
+    fp = FP64.Extend(fp, this.val.toString());
+    return fp;
+  }
+
   @Override
   public final IValue permute(IMVPerm perm) { return this; }
 
+  @Override
+  public final long getModelValueMask() { return 0L; }
+
   /*************************************************************************
   * toString() modified 23 Aug 2007 by LL to call PrintVersion so strings  *
   * with special characters are printed properly.                          *
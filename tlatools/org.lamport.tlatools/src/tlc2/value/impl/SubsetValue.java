@@ -28,6 +28,15 @@ import tlc2.value.Values;
 import util.Assert;
 
 public class SubsetValue extends EnumerableValue implements Enumerable {
+  /**
+   * Enumerate SUBSET S, where S is not (yet) a set of enumerated values (e.g.
+   * SUBSET [D -> R] or SUBSET SUBSET T), with a StreamingEnumerator if the
+   * order of the subsets is irrelevant (quantification, x' \in SUBSET S, ...).
+   * <p>
+   * Enable with -Dtlc2.value.impl.SubsetValue.enabled=true
+   */
+  static final boolean ENABLED = Boolean.getBoolean(SubsetValue.class.getName() + ".enabled");
+
   public Value  set;           // SUBSET set
   protected SetEnumValue pset;
 
@@ -107,6 +116,11 @@ public class SubsetValue extends EnumerableValue implements Enumerable {
         final SubsetValue sv = (SubsetValue) other;
         return ((Enumerable) this.set).isSubsetEq(sv.set);
       }
+      if (other instanceof SetEnumValue && this.set.isFinite() && this.set.size() < 31
+          && (1 << this.set.size()) > other.size()) {
+        // SUBSET S has 2^|S| elements, which do not fit into the smaller set.
+        return BoolValue.ValFalse;
+      }
       return super.isSubsetEq(other);
     }
     catch (RuntimeException | OutOfMemoryError e) {
@@ -296,14 +310,14 @@ public class SubsetValue extends EnumerableValue implements Enumerable {
         return this.pset;
       }
       ValueVec vals = new ValueVec(this.size());
-      ValueEnumeration Enum = this.elements();
+      ValueEnumeration Enum = this.elements(Ordering.NORMALIZED);
       Value  elem;
       while ((elem = Enum.nextElement()) != null) {
         vals.addElement(elem);
       }
-      // For as long as pset.elements() (SubsetValue#elements)
-      // internally calls SubsetValue#elementsNormalized, the
-      // result SetEnumValue here is indeed normalized.
+      // SubsetValue#elementsNormalized yields the subsets in
+      // normalized order, thus the result SetEnumValue here is
+      // indeed normalized.
       if (coverage) {cm.incSecondary(vals.size());}
       return new SetEnumValue(vals, true, cm);
   }
@@ -529,6 +543,7 @@ public class SubsetValue extends EnumerableValue implements Enumerable {
 		// (unfortunately) enumerates the input. Thus "SUBSET SUBSET 1..10" will result
 		// in the nested/right SUBSET to be fully enumerated (1..10 obviously too).
 		final ValueVec elems = ((SetEnumValue) set.toSetEnum().normalize()).elems;
+		final BitSetValue.Universe universe = BitSetValue.ENABLED ? BitSetValue.Universe.of(elems) : null;
 		return new ValueEnumeration() {
 
 			private int k = 0;
@@ -555,18 +570,30 @@ public class SubsetValue extends EnumerableValue implements Enumerable {
 					return null;
 				} else if (k == 0) {
 					reset(k + 1);
-					return new SetEnumValue(cm);
+					return universe != null ? new BitSetValue(universe, 0L, cm) : new SetEnumValue(cm);
 				}
 
-				final ValueVec vals = new ValueVec(k);
+				final Value result;
 				int i = k - 1;
-				for (int j = i; j >= 0; j--) {
-					vals.addElementAt(elems.elementAt(indices[j]), j);
-					if (indices[j] + k - j == n) {
-						i = j - 1;
+				if (universe != null) {
+					long bits = 0L;
+					for (int j = i; j >= 0; j--) {
+						bits |= 1L << indices[j];
+						if (indices[j] + k - j == n) {
+							i = j - 1;
+						}
+					}
+					result = new BitSetValue(universe, bits, cm);
+				} else {
+					final ValueVec vals = new ValueVec(k);
+					for (int j = i; j >= 0; j--) {
+						vals.addElementAt(elems.elementAt(indices[j]), j);
+						if (indices[j] + k - j == n) {
+							i = j - 1;
+						}
 					}
+					result = new SetEnumValue(vals, true, cm);
 				}
-				final SetEnumValue result = new SetEnumValue(vals, true, cm);
 				
 				if (indices[0] == n - k) {
 					// Increment k to generate the set of k-subset for this k.
@@ -687,8 +714,11 @@ public class SubsetValue extends EnumerableValue implements Enumerable {
 	
 	@Override
 	public ValueEnumeration elements(final Ordering ordering) {
-		// Use elementsNormalized regardless of requested ordering. Even for ordering
-		// UNDEFINED, elementsNormalized is fastest.
+		if (ordering == Ordering.NORMALIZED && (this.pset == null || this.pset == SetEnumValue.DummyEnum)) {
+			return elementsNormalized();
+		}
+		// Even for ordering UNDEFINED, elementsNormalized is fastest unless set has
+		// to be enumerated first (see ENABLED).
 		return elements();
 	}
 
@@ -696,6 +726,10 @@ public class SubsetValue extends EnumerableValue implements Enumerable {
   public final ValueEnumeration elements() {
     try {
       if (this.pset == null || this.pset == SetEnumValue.DummyEnum) {
+    	  if (ENABLED && !(this.set instanceof SetEnumValue) && !(this.set instanceof IntervalValue)) {
+    		  // elementsNormalized would first enumerate and normalize this.set.
+    		  return elementsStreaming();
+    	  }
     	  // See note on SetEnumValue#convert for SubsetValue wrt
     	  // the normalized SetEnumValue result.
     	  return elementsNormalized();
@@ -712,6 +746,95 @@ public class SubsetValue extends EnumerableValue implements Enumerable {
       return new Enumerator();
   }
 
+  final ValueEnumeration elementsStreaming() {
+      return new StreamingEnumerator();
+  }
+
+  /**
+   * Enumerates the subsets of set without enumerating set up front: The empty
+   * set comes first, followed by the subsets that contain the first element of
+   * set and any of the subsets enumerated before, followed by those that contain
+   * the second element of set and any of the subsets enumerated before, and so
+   * on. The elements of set are thus only enumerated on demand, and after
+   * generating m subsets, only the log2(m) elements of set contained in them are
+   * kept. The subsets are not normalized, nor is the order of the subsets.
+   */
+  final class StreamingEnumerator implements ValueEnumeration {
+    private ValueEnumeration elemsEnum;
+    // The (distinct) elements of set enumerated so far.
+    private ValueVec elems;
+    // The subset of elems (without the most recent element) to generate next,
+    // or null if elems has to be extended first.
+    private BitSet descriptor;
+    private boolean emptyDone;
+
+    public StreamingEnumerator() {
+      if (!(set instanceof Enumerable)) {
+        Assert.fail("Attempted to enumerate SUBSET S when S:\n" +
+              Values.ppr(set.toString()) + "\nis not enumerable.");
+      }
+      this.reset();
+    }
+
+    @Override
+    public final void reset() {
+      this.elemsEnum = ((Enumerable) set).elements();
+      this.elems = new ValueVec();
+      this.descriptor = null;
+      this.emptyDone = false;
+    }
+
+    @Override
+    public final Value nextElement() {
+      if (!this.emptyDone) {
+        this.emptyDone = true;
+        return new SetEnumValue(cm);
+      }
+      if (this.descriptor == null) {
+        final Value elem = this.nextDistinct();
+        if (elem == null) {
+          return null;
+        }
+        this.elems.addElement(elem);
+        this.descriptor = new BitSet(this.elems.size());
+      }
+      final int newest = this.elems.size() - 1;
+      final ValueVec vals = new ValueVec(this.descriptor.cardinality() + 1);
+      for (int i = this.descriptor.nextSetBit(0); i >= 0; i = this.descriptor.nextSetBit(i + 1)) {
+        vals.addElement(this.elems.elementAt(i));
+      }
+      vals.addElement(this.elems.elementAt(newest));
+
+      // Increment the descriptor of the subsets of the elements prior to newest.
+      final int zero = this.descriptor.nextClearBit(0);
+      if (zero >= newest) {
+        this.descriptor = null;
+      } else {
+        this.descriptor.clear(0, zero);
+        this.descriptor.set(zero);
+      }
+      if (coverage) { cm.incSecondary(vals.size()); }
+      return new SetEnumValue(vals, false, cm);
+    }
+
+    /**
+     * @return The next element of set not enumerated before (e.g. S \cup T
+     *         enumerates the elements of S and T, which might not be disjoint).
+     */
+    private final Value nextDistinct() {
+      Value elem;
+      LOOP: while ((elem = this.elemsEnum.nextElement()) != null) {
+        for (int i = 0; i < this.elems.size(); i++) {
+          if (this.elems.elementAt(i).equals(elem)) {
+            continue LOOP;
+          }
+        }
+        return elem;
+      }
+      return null;
+    }
+  }
+
   final class Enumerator implements ValueEnumeration {
     private ValueVec elems;
     private BitSet descriptor;
@@ -27,11 +27,21 @@ import util.UniqueString;
 
 public class TupleValue extends Value implements Applicable, ITupleValue {
   public final Value[] elems;          // the elements of this tuple.
+  private transient long mvMask = MV_MASK_UNKNOWN;
+  private transient CachedFingerprint cachedFP;
   public static final TupleValue EmptyTuple = new TupleValue(new Value[0]);
 
   /* Constructor */
   public TupleValue(Value[] elems) { this.elems = elems; }
 
+  /**
+   * @return The tuple val, as a TupleValue if it is an IntTupleValue or a
+   *         TupleViewValue, to be destructured into its elements.
+   */
+  public static Value toElems(final Value val) {
+    return val instanceof IntTupleValue || val instanceof TupleViewValue ? val.toTuple() : val;
+  }
+
   public TupleValue(Value v) {
 	  this(new Value[1]);
     this.elems[0] = v;
@@ -178,19 +188,16 @@ public class TupleValue extends Value implements Applicable, ITupleValue {
   public final Value takeExcept(ValueExcept ex) {
     try {
       if (ex.idx < ex.path.length) {
-        int tlen = this.elems.length;
-        Value[] newElems = new Value[tlen];
         Value arcVal = ex.path[ex.idx];
         if (arcVal instanceof IntValue) {
           int idx = ((IntValue)arcVal).val - 1;
-          if (0 <= idx && idx < tlen) {
-            for (int i = 0; i < tlen; i++) {
-              newElems[i] = this.elems[i];
-            }
+          if (0 <= idx && idx < this.elems.length) {
+            final Value[] newElems = this.elems.clone();
             ex.idx++;
             newElems[idx] = this.elems[idx].takeExcept(ex);
+            return new TupleValue(newElems);
           }
-          return new TupleValue(newElems);
+          return this;
         }
         MP.printWarning(EC.TLC_WRONG_TUPLE_FIELD_NAME, new String[]{Values.ppr(arcVal.toString())});
       }
@@ -202,14 +209,34 @@ public class TupleValue extends Value implements Applicable, ITupleValue {
     }
   }
 
+  /**
+   * Applies all exs to a single copy of the elements of this tuple instead of
+   * copying the elements once per ValueExcept.
+   */
   @Override
   public final Value takeExcept(ValueExcept[] exs) {
     try {
-      Value val = this;
+      Value[] newElems = null;
       for (int i = 0; i < exs.length; i++) {
-        val = val.takeExcept(exs[i]);
+        final ValueExcept ex = exs[i];
+        if (ex.idx >= ex.path.length || !(ex.path[ex.idx] instanceof IntValue)) {
+          // Replaces the tuple as a whole (see takeExcept(ValueExcept)).
+          Value res = (newElems == null ? this : new TupleValue(newElems)).takeExcept(ex);
+          for (int j = i + 1; j < exs.length; j++) {
+            res = res.takeExcept(exs[j]);
+          }
+          return res;
+        }
+        final int idx = ((IntValue) ex.path[ex.idx]).val - 1;
+        if (0 <= idx && idx < this.elems.length) {
+          if (newElems == null) {
+            newElems = this.elems.clone();
+          }
+          ex.idx++;
+          newElems[idx] = newElems[idx].takeExcept(ex);
+        }
       }
-      return val;
+      return newElems == null ? this : new TupleValue(newElems);
     }
     catch (RuntimeException | OutOfMemoryError e) {
       if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
@@ -301,6 +328,7 @@ public class TupleValue extends Value implements Applicable, ITupleValue {
   @Override
   public final boolean assignable(Value val) {
     try {
+      val = toElems(val);
       boolean canAssign = ((val instanceof TupleValue) &&
          (this.elems.length == ((TupleValue)val).elems.length));
       if (!canAssign) return false;
@@ -335,15 +363,15 @@ public class TupleValue extends Value implements Applicable, ITupleValue {
   @Override
   public final long fingerPrint(long fp) {
     try {
-      int len = this.elems.length;
-      fp = FP64.Extend(fp, FCNRCDVALUE);
-      fp = FP64.Extend(fp, len);
-      for (int i = 0; i < len; i++) {
-        fp = FP64.Extend(fp, INTVALUE);
-        fp = FP64.Extend(fp, i+1);
-        fp = this.elems[i].fingerPrint(fp);
+      if (CachedFingerprint.ENABLED && this.elems.length >= CachedFingerprint.MIN_SIZE) {
+        CachedFingerprint cached = this.cachedFP;
+        if (cached == null || !cached.isValid()) {
+          cached = new CachedFingerprint(this.fingerPrintElems(FP64.Zero), this.fingerPrintElems(FP64.One));
+          this.cachedFP = cached;
+        }
+        return cached.extend(fp);
       }
-      return fp;
+      return this.fingerPrintElems(fp);
     }
     catch (RuntimeException | OutOfMemoryError e) {
       if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
@@ -351,9 +379,32 @@ public class TupleValue extends Value implements Applicable, ITupleValue {
     }
   }
 
+  private final long fingerPrintElems(long fp) {
+    int len = this.elems.length;
+    fp = FP64.Extend(fp, FCNRCDVALUE);
+    fp = FP64.Extend(fp, len);
+    for (int i = 0; i < len; i++) {
+      fp = FP64.Extend(fp, INTVALUE);
+      fp = FP64.Extend(fp, i+1);
+      fp = this.elems[i].fingerPrint(fp);
+    }
+    return fp;
+  }
+
+  @Override
+  public final long getModelValueMask() {
+    if (this.mvMask == MV_MASK_UNKNOWN) {
+      this.mvMask = getModelValueMask(this.elems, 0L);
+    }
+    return this.mvMask;
+  }
+
   @Override
   public final IValue permute(IMVPerm perm) {
     try {
+      if (perm.isIdentityOn(this.getModelValueMask())) {
+        return this;
+      }
     	Value[] vals = new Value[this.elems.length];
       boolean changed = false;
       for (int i = 0; i < vals.length; i++) {
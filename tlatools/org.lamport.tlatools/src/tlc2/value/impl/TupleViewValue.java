@@ -0,0 +1,525 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import tlc2.tool.EvalControl;
+import tlc2.tool.FingerprintException;
+import tlc2.util.FP64;
+import tlc2.value.IMVPerm;
+import tlc2.value.ITupleValue;
+import tlc2.value.IValue;
+import tlc2.value.IValueOutputStream;
+import tlc2.value.Values;
+import util.Assert;
+
+/**
+ * A non-empty tuple (sequence) that is a view, i.e. an offset and a length, of
+ * an array shared with other views. Tail and SubSeq of the Sequences module
+ * return a view of the same array in constant time. Append and \o write into
+ * the unused slots after the view if no other view has claimed them yet and
+ * copy the view into an array with twice the capacity otherwise. Thus,
+ * appending to and taking the tail of a queue is amortized constant time
+ * instead of linear in the length of the queue. The elements of a view never
+ * change once the view has been created.
+ * <p>
+ * A TupleViewValue is indistinguishable from the equivalent TupleValue: It has
+ * the same fingerprint, compares and is equal to it, and is written as a
+ * TupleValue. Operations without a fast path work on the equivalent TupleValue
+ * (see toTuple), which is created once and cached.
+ * <p>
+ * Enable with -Dtlc2.value.impl.TupleViewValue.enabled=true
+ */
+public class TupleViewValue extends Value implements Applicable, ITupleValue {
+
+	private static final long serialVersionUID = 2307975142853406193L;
+
+	public static final boolean ENABLED = Boolean.getBoolean(TupleViewValue.class.getName() + ".enabled");
+
+	private static final int MIN_CAPACITY = 8;
+
+	/**
+	 * The array shared by views. The slots before used belong to the views
+	 * created so far and are never written again. A view that ends at used may
+	 * claim the subsequent slots by advancing used.
+	 */
+	private static final class Store {
+		private final Value[] elems;
+		private final AtomicInteger used;
+
+		private Store(final Value[] elems, final int used) {
+			this.elems = elems;
+			this.used = new AtomicInteger(used);
+		}
+	}
+
+	private final Store store;
+	private final int offset;
+	private final int len;
+	private transient TupleValue tuple;
+	private transient long mvMask = MV_MASK_UNKNOWN;
+	private transient CachedFingerprint cachedFP;
+
+	private TupleViewValue(final Store store, final int offset, final int len) {
+		this.store = store;
+		this.offset = offset;
+		this.len = len;
+	}
+
+	/**
+	 * @return The tail of the non-empty tuple tv as a view of tv's elements.
+	 */
+	public static Value tail(final TupleValue tv) {
+		return sub(tv, 1, tv.elems.length);
+	}
+
+	/**
+	 * @return The tuple of the elements of tv in [from, to) as a view of tv's
+	 *         elements.
+	 */
+	public static Value sub(final TupleValue tv, final int from, final int to) {
+		if (from >= to) {
+			return TupleValue.EmptyTuple;
+		}
+		// TupleValue never modifies its elements, thus they can be shared.
+		return new TupleViewValue(new Store(tv.elems, tv.elems.length), from, to - from);
+	}
+
+	/**
+	 * @return The tuple tv with the elements of vals appended. Unlike the
+	 *         views of tv's elements, the result has room to append more.
+	 */
+	public static Value concat(final TupleValue tv, final Value[] vals) {
+		return copy(tv.elems, 0, tv.elems.length, vals);
+	}
+
+	private static TupleViewValue copy(final Value[] elems, final int from, final int len, final Value[] vals) {
+		final int newLen = len + vals.length;
+		if (newLen == 0) {
+			// Caller has to handle the empty tuple.
+			throw new IllegalArgumentException();
+		}
+		final Value[] copy = new Value[Math.max(MIN_CAPACITY, newLen << 1)];
+		System.arraycopy(elems, from, copy, 0, len);
+		System.arraycopy(vals, 0, copy, len, vals.length);
+		return new TupleViewValue(new Store(copy, newLen), 0, newLen);
+	}
+
+	/**
+	 * @return This tuple with v appended.
+	 */
+	public final TupleViewValue append(final Value v) {
+		return this.concat(new Value[] { v });
+	}
+
+	/**
+	 * @return This tuple with the elements of vals appended.
+	 */
+	public final TupleViewValue concat(final Value[] vals) {
+		final int end = this.offset + this.len;
+		final int newEnd = end + vals.length;
+		if (newEnd <= this.store.elems.length && this.store.used.compareAndSet(end, newEnd)) {
+			// The slots in [end, newEnd) are ours.
+			System.arraycopy(vals, 0, this.store.elems, end, vals.length);
+			return new TupleViewValue(this.store, this.offset, this.len + vals.length);
+		}
+		return copy(this.store.elems, this.offset, this.len, vals);
+	}
+
+	/**
+	 * @return The tail of this tuple.
+	 */
+	public final Value tail() {
+		return this.sub(1, this.len);
+	}
+
+	/**
+	 * @return The tuple of the elements of this tuple in [from, to).
+	 */
+	public final Value sub(final int from, final int to) {
+		if (from >= to) {
+			return TupleValue.EmptyTuple;
+		}
+		return new TupleViewValue(this.store, this.offset + from, to - from);
+	}
+
+	public final Value elemAt(final int idx) {
+		return this.store.elems[this.offset + idx];
+	}
+
+	@Override
+	public IValue getElem(final int idx) {
+		return this.elemAt(idx);
+	}
+
+	@Override
+	public IValue[] getElems() {
+		return ((TupleValue) this.toTuple()).elems;
+	}
+
+	@Override
+	public final byte getKind() {
+		return TUPLEVIEWVALUE;
+	}
+
+	@Override
+	public final int compareTo(final Object obj) {
+		try {
+			if (obj instanceof TupleViewValue) {
+				final TupleViewValue tv = (TupleViewValue) obj;
+				return compare(this.store.elems, this.offset, this.len, tv.store.elems, tv.offset, tv.len);
+			} else if (obj instanceof TupleValue) {
+				final Value[] elems = ((TupleValue) obj).elems;
+				return compare(this.store.elems, this.offset, this.len, elems, 0, elems.length);
+			}
+			return this.toTuple().compareTo(obj);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	private static int compare(final Value[] a, final int aOff, final int aLen, final Value[] b, final int bOff,
+			final int bLen) {
+		int cmp = aLen - bLen;
+		for (int i = 0; cmp == 0 && i < aLen; i++) {
+			cmp = a[aOff + i].compareTo(b[bOff + i]);
+		}
+		return cmp;
+	}
+
+	@Override
+	public final boolean equals(final Object obj) {
+		try {
+			final Value[] elems;
+			final int off, length;
+			if (obj instanceof TupleViewValue) {
+				final TupleViewValue tv = (TupleViewValue) obj;
+				elems = tv.store.elems;
+				off = tv.offset;
+				length = tv.len;
+			} else if (obj instanceof TupleValue) {
+				elems = ((TupleValue) obj).elems;
+				off = 0;
+				length = elems.length;
+			} else {
+				return this.toTuple().equals(obj);
+			}
+			if (this.len != length) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if (!this.store.elems[this.offset + i].equals(elems[off + i])) {
+					return false;
+				}
+			}
+			return true;
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final boolean member(final Value elem) {
+		try {
+			Assert.fail("Attempted to check set membership in a tuple value.");
+			return false; // make compiler happy
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final boolean isFinite() {
+		return true;
+	}
+
+	@Override
+	public final Value apply(final Value arg, final int control) {
+		try {
+			if (!(arg instanceof IntValue)) {
+				Assert.fail("Attempted to apply tuple to a non-integer argument.");
+			}
+			final int idx = ((IntValue) arg).val;
+			if (idx <= 0 || idx > this.len) {
+				Assert.fail("Attempted to apply tuple\n" + Values.ppr(this.toString()) + "\nto integer " + idx
+						+ " which is out of domain.");
+			}
+			return this.elemAt(idx - 1);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final Value apply(final Value[] args, final int control) {
+		try {
+			if (args.length != 1) {
+				Assert.fail("Attetmpted to apply tuple with wrong number of arguments.");
+			}
+			return this.apply(args[0], EvalControl.Clear);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final Value select(final Value arg) {
+		try {
+			if (!(arg instanceof IntValue)) {
+				Assert.fail("Attempted to apply tuple to a non-integer argument " + Values.ppr(arg.toString()) + ".");
+			}
+			final int idx = ((IntValue) arg).val;
+			if (idx > 0 && idx <= this.len) {
+				return this.elemAt(idx - 1);
+			}
+			return null;
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final Value takeExcept(final ValueExcept ex) {
+		return this.toTuple().takeExcept(ex);
+	}
+
+	@Override
+	public final Value takeExcept(final ValueExcept[] exs) {
+		return this.toTuple().takeExcept(exs);
+	}
+
+	@Override
+	public final Value getDomain() {
+		try {
+			return new IntervalValue(1, this.size());
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final int size() {
+		return this.len;
+	}
+
+	@Override
+	public final void deepNormalize() {
+		try {
+			for (int i = 0; i < this.len; i++) {
+				this.elemAt(i).deepNormalize();
+			}
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final Value toTuple() {
+		TupleValue tv = this.tuple;
+		if (tv == null) {
+			tv = new TupleValue(Arrays.copyOfRange(this.store.elems, this.offset, this.offset + this.len), this.cm);
+			this.tuple = tv;
+		}
+		return tv;
+	}
+
+	@Override
+	public final Value toFcnRcd() {
+		return this.toTuple().toFcnRcd();
+	}
+
+	@Override
+	public final boolean isNormalized() {
+		return true;
+	}
+
+	@Override
+	public final Value normalize() {
+		/* nop */return this;
+	}
+
+	@Override
+	public final boolean isDefined() {
+		try {
+			for (int i = 0; i < this.len; i++) {
+				if (!this.elemAt(i).isDefined()) {
+					return false;
+				}
+			}
+			return true;
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public final IValue deepCopy() {
+		return this.toTuple().deepCopy();
+	}
+
+	@Override
+	public final boolean assignable(final Value val) {
+		return this.toTuple().assignable(val);
+	}
+
+	@Override
+	public final void write(final IValueOutputStream vos) throws IOException {
+		final int index = vos.put(this);
+		if (index == -1) {
+			vos.writeByte(TUPLEVALUE);
+			vos.writeNat(this.len);
+			for (int i = 0; i < this.len; i++) {
+				this.elemAt(i).write(vos);
+			}
+		} else {
+			vos.writeByte(DUMMYVALUE);
+			vos.writeNat(index);
+		}
+	}
+
+	/* The fingerprint method: tuples are functions (see TupleValue#fingerPrint). */
+	@Override
+	public final long fingerPrint(final long fp) {
+		try {
+			if (CachedFingerprint.ENABLED && this.len >= CachedFingerprint.MIN_SIZE) {
+				CachedFingerprint cached = this.cachedFP;
+				if (cached == null || !cached.isValid()) {
+					cached = new CachedFingerprint(this.fingerPrintElems(FP64.Zero), this.fingerPrintElems(FP64.One));
+					this.cachedFP = cached;
+				}
+				return cached.extend(fp);
+			}
+			return this.fingerPrintElems(fp);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	private final long fingerPrintElems(long fp) {
+		fp = FP64.Extend(fp, FCNRCDVALUE);
+		fp = FP64.Extend(fp, this.len);
+		for (int i = 0; i < this.len; i++) {
+			fp = FP64.Extend(fp, INTVALUE);
+			fp = FP64.Extend(fp, i + 1);
+			fp = this.elemAt(i).fingerPrint(fp);
+		}
+		return fp;
+	}
+
+	@Override
+	public final long getModelValueMask() {
+		if (this.mvMask == MV_MASK_UNKNOWN) {
+			long mask = 0L;
+			for (int i = 0; i < this.len && mask != ALL_MODEL_VALUES; i++) {
+				mask |= this.elemAt(i).getModelValueMask();
+			}
+			// See Value#getModelValueMask(Value[], long).
+			this.mvMask = mask == MV_MASK_UNKNOWN ? ALL_MODEL_VALUES : mask;
+		}
+		return this.mvMask;
+	}
+
+	@Override
+	public final IValue permute(final IMVPerm perm) {
+		try {
+			if (perm.isIdentityOn(this.getModelValueMask())) {
+				return this;
+			}
+			return this.toTuple().permute(perm);
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	/* The string representation of this value. */
+	@Override
+	public final StringBuffer toString(StringBuffer sb, final int offset, final boolean swallow) {
+		try {
+			sb.append("<<");
+			for (int i = 0; i < this.len; i++) {
+				if (i > 0) {
+					sb = sb.append(", ");
+				}
+				sb = this.elemAt(i).toString(sb, offset, swallow);
+			}
+			sb.append(">>");
+			return sb;
+		} catch (RuntimeException | OutOfMemoryError e) {
+			if (hasSource()) {
+				throw FingerprintException.getNewHead(this, e);
+			} else {
+				throw e;
+			}
+		}
+	}
+}
@@ -61,6 +61,10 @@ public class UnionValue extends EnumerableValue implements Enumerable {
   @Override
   public final boolean member(Value elem) {
     try {
+      if (this.set instanceof SubsetValue) {
+        // UNION SUBSET S = S
+        return ((SubsetValue) this.set).set.member(elem);
+      }
       if (!(this.set instanceof Enumerable)) {
         Assert.fail("Attempted to check if:\n " + Values.ppr(elem.toString()) +
         "\nis an element of the non-enumerable set:\n " +
@@ -79,6 +83,36 @@ public class UnionValue extends EnumerableValue implements Enumerable {
     }
   }
 
+  @Override
+  public Value isSubsetEq(Value other) {
+    try {
+      if (this.set instanceof SubsetValue && ((SubsetValue) this.set).set instanceof Enumerable) {
+        // UNION SUBSET S = S
+        return ((Enumerable) ((SubsetValue) this.set).set).isSubsetEq(other);
+      }
+      // UNION S \subseteq T iff \A s \in S : s \subseteq T, which, unlike
+      // enumerating UNION S, neither flattens nor removes duplicates.
+      if (this.set instanceof Enumerable) {
+        ValueEnumeration Enum = ((Enumerable)this.set).elements();
+        Value val;
+        while ((val = Enum.nextElement()) != null) {
+          if (!(val instanceof Enumerable)) {
+            return super.isSubsetEq(other);
+          }
+          if (!((BoolValue) ((Enumerable)val).isSubsetEq(other)).val) {
+            return BoolValue.ValFalse;
+          }
+        }
+        return BoolValue.ValTrue;
+      }
+      return super.isSubsetEq(other);
+    }
+    catch (RuntimeException | OutOfMemoryError e) {
+      if (hasSource()) { throw FingerprintException.getNewHead(this, e); }
+      else { throw e; }
+    }
+  }
+
   @Override
   public final boolean isFinite() {
     try {
@@ -232,6 +266,9 @@ public class UnionValue extends EnumerableValue implements Enumerable {
         canCombine = (canCombine &&
                 (elems.elementAt(i) instanceof SetEnumValue));
       }
+      if (canCombine && SortedSetAlgebra.ENABLED) {
+        return new SetEnumValue(cup(elems, 0, elems.size()), true, val.getCostModel());
+      }
       if (canCombine) {
         ValueVec resElems = new ValueVec();
         Value result = new SetEnumValue(resElems, false, val.getCostModel());
@@ -250,6 +287,26 @@ public class UnionValue extends EnumerableValue implements Enumerable {
     return new UnionValue(val, val.getCostModel());
   }
 
+  /**
+   * @return The union of the SetEnumValues in sets[from, to) merged pairwise
+   *         (see SortedSetAlgebra#cup) with O(n log(to - from)) comparisons for
+   *         n elements in total instead of looking up each element in the union
+   *         of its predecessors.
+   */
+  private static ValueVec cup(final ValueVec sets, final int from, final int to) {
+    if (to - from == 0) {
+      return new ValueVec(0);
+    }
+    if (to - from == 1) {
+      final SetEnumValue set = (SetEnumValue) sets.elementAt(from);
+      set.normalize();
+      // A copy because the result must not share its elements with set.
+      return new ValueVec(set.elems.toArray());
+    }
+    final int mid = (from + to) >>> 1;
+    return SortedSetAlgebra.cup(cup(sets, from, mid), cup(sets, mid, to));
+  }
+
 	@Override
 	public void write(final IValueOutputStream vos) throws IOException {
 		realSet.write(vos);
@@ -372,7 +429,9 @@ public class UnionValue extends EnumerableValue implements Enumerable {
     public final void reset() {
       this.Enum.reset();
       this.elemSet = this.Enum.nextElement();
-      this.elemSetEnum = ((Enumerable)this.elemSet).elements();
+      if (this.elemSet != null) {
+        this.elemSetEnum = ((Enumerable)this.elemSet).elements();
+      }
     }
 
     @Override
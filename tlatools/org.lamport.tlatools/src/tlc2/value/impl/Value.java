@@ -52,6 +52,10 @@ public abstract class Value implements ValueConstants, Serializable, IValue {
 	    "an undefined value",                         // "UndefValue",
 	    "a value represented in lazy form",           // "LazyValue",
 	    "a dummy for not-a-value",                    // "DummyValue",    
+	    "a set of the form {e1, ... ,eN}",            // "BitSetValue",
+	    "a tuple",                                    // "IntTupleValue",
+	    "an integer",                                 // "BigIntValue",
+	    "a tuple",                                    // "TupleViewValue",
 	  };
 	  
 	/**
@@ -157,6 +161,10 @@ public abstract class Value implements ValueConstants, Serializable, IValue {
             IntervalValue intv = (IntervalValue)this;
             return intv.size() == 0;
           }
+        case BITSETVALUE:
+          {
+            return ((BitSetValue) this).size() == 0;
+          }
         case SETCAPVALUE:
           {
             SetCapValue cap = (SetCapValue)this;
@@ -174,13 +182,18 @@ public abstract class Value implements ValueConstants, Serializable, IValue {
           }
         case SETOFFCNSVALUE:
           {
+            // [S -> T] is empty iff S is non-empty and T is empty.
             SetOfFcnsValue fcns = (SetOfFcnsValue)this;
-            return fcns.elements().nextElement() == null;
+            return fcns.range.isEmpty() && !fcns.domain.isEmpty();
           }
         case SETOFRCDSVALUE:
           {
+            // [h1 : S1, ...] is empty iff one of the Si is empty.
             SetOfRcdsValue srv = (SetOfRcdsValue)this;
-            return srv.elements().nextElement() == null;
+            for (int i = 0; i < srv.values.length; i++) {
+              if (srv.values[i].isEmpty()) return true;
+            }
+            return false;
           }
         case SETOFTUPLESVALUE:
           {
@@ -250,6 +263,21 @@ public abstract class Value implements ValueConstants, Serializable, IValue {
     }
   }
 
+  /**
+   * Marks a composite value's model value mask as not yet computed (see
+   * IValue#getModelValueMask()).  A computed mask that happens to collide
+   * with the marker is conservatively stored as ALL_MODEL_VALUES.
+   */
+  protected static final long MV_MASK_UNKNOWN = Long.MIN_VALUE;
+
+  /* The union of the model value masks of the given values. */
+  protected static final long getModelValueMask(final Value[] values, long mask) {
+    for (int i = 0; i < values.length && mask != ALL_MODEL_VALUES; i++) {
+      mask |= values[i].getModelValueMask();
+    }
+    return mask == MV_MASK_UNKNOWN ? ALL_MODEL_VALUES : mask;
+  }
+
   /* This method returns the hash code of this value. */
   @Override
   public final int hashCode() {
@@ -30,7 +30,7 @@ public class ValueExcept {
       if (!fcn.getParams().domains[0].member(argv)) return null;
     }
     else {
-      TupleValue tval = (TupleValue)argv;
+      TupleValue tval = (TupleValue)TupleValue.toElems(argv);
       Value [] argList = tval.elems;
       FormalParamNode[][] formals = fcn.getParams().formals;
       Value [] domains = fcn.getParams().domains;
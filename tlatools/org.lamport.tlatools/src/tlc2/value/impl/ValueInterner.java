@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import tlc2.util.FP64;
+import tlc2.value.IValue;
+
+/**
+ * A concurrent intern table (hash-consing) for the composite values of states.
+ * The same record, set of messages, or function usually occurs in millions of
+ * states, but is allocated separately for each successor. Interning replaces
+ * a (normalized) value with the canonical instance of all values equal to it,
+ * so that the states in the state queue (and liveness' SetOfStates) share it.
+ * <p>
+ * The table is keyed by a value's fingerprint and references its canonical
+ * values weakly, i.e. a canonical value is garbage collected once the last
+ * state referencing it is gone. Two values with the same fingerprint are only
+ * unified if they are also equal.
+ * <p>
+ * Enable with -Dtlc2.value.impl.ValueInterner.enabled=true
+ */
+public final class ValueInterner {
+
+	public static final boolean ENABLED = Boolean.getBoolean(ValueInterner.class.getName() + ".enabled");
+
+	private static final ValueInterner INSTANCE = new ValueInterner();
+
+	public static ValueInterner getInstance() {
+		return INSTANCE;
+	}
+
+	private final ConcurrentHashMap<Long, Entry> table = new ConcurrentHashMap<>();
+	private final ReferenceQueue<Value> queue = new ReferenceQueue<>();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder bytesSaved = new LongAdder();
+
+	ValueInterner() {
+		// Use getInstance
+	}
+
+	/**
+	 * @return The canonical instance equal to the given value. The given value
+	 *         becomes the canonical instance if there is none yet. Atoms and
+	 *         lazy values are returned as is.
+	 */
+	public IValue intern(final IValue value) {
+		if (!isInternable(value)) {
+			return value;
+		}
+		expunge();
+
+		// The fingerprint also normalizes value.
+		final Long key = value.fingerPrint(FP64.New());
+		while (true) {
+			final Entry entry = this.table.get(key);
+			if (entry == null) {
+				if (this.table.putIfAbsent(key, new Entry((Value) value, key, this.queue)) == null) {
+					this.misses.increment();
+					return value;
+				}
+				continue;
+			}
+			final Value canonical = entry.get();
+			if (canonical == null) {
+				// Garbage collected but not yet expunged.
+				this.table.remove(key, entry);
+				continue;
+			}
+			if (canonical == value) {
+				return value;
+			}
+			if (equal(canonical, value)) {
+				this.hits.increment();
+				this.bytesSaved.add(estimateSize(value));
+				return canonical;
+			}
+			// A fingerprint collision, keep the first value canonical.
+			this.misses.increment();
+			return value;
+		}
+	}
+
+	private static boolean isInternable(final IValue value) {
+		return value instanceof FcnRcdValue || value instanceof RecordValue || value instanceof SetEnumValue
+				|| value instanceof TupleValue;
+	}
+
+	private static boolean equal(final Value canonical, final IValue value) {
+		try {
+			return canonical.equals(value);
+		} catch (RuntimeException e) {
+			// E.g. the comparison of differently typed model values, which is an error
+			// when evaluating a spec but simply means not-equal here.
+			return false;
+		}
+	}
+
+	private final void expunge() {
+		Reference<? extends Value> ref;
+		while ((ref = this.queue.poll()) != null) {
+			final Entry entry = (Entry) ref;
+			this.table.remove(entry.key, entry);
+		}
+	}
+
+	/**
+	 * A rough estimate of the heap footprint of the given value assuming
+	 * compressed references (12 byte object headers aligned to 8 bytes).
+	 */
+	static long estimateSize(final IValue value) {
+		if (value instanceof FcnRcdValue) {
+			final FcnRcdValue fcn = (FcnRcdValue) value;
+			long size = 32 + arraySize(fcn.values.length);
+			for (int i = 0; i < fcn.values.length; i++) {
+				size += estimateSize(fcn.values[i]);
+			}
+			if (fcn.domain != null) {
+				size += arraySize(fcn.domain.length);
+				for (int i = 0; i < fcn.domain.length; i++) {
+					size += estimateSize(fcn.domain[i]);
+				}
+			}
+			return size;
+		} else if (value instanceof RecordValue) {
+			final RecordValue rcd = (RecordValue) value;
+			// The names are shared UniqueStrings.
+			long size = 32 + 2 * arraySize(rcd.values.length);
+			for (int i = 0; i < rcd.values.length; i++) {
+				size += estimateSize(rcd.values[i]);
+			}
+			return size;
+		} else if (value instanceof TupleValue) {
+			final TupleValue tuple = (TupleValue) value;
+			long size = 24 + arraySize(tuple.elems.length);
+			for (int i = 0; i < tuple.elems.length; i++) {
+				size += estimateSize(tuple.elems[i]);
+			}
+			return size;
+		} else if (value instanceof SetEnumValue) {
+			final ValueVec elems = ((SetEnumValue) value).elems;
+			long size = 32 + 24 + arraySize(elems.capacity());
+			for (int i = 0; i < elems.size(); i++) {
+				size += estimateSize(elems.elementAt(i));
+			}
+			return size;
+		} else if (value instanceof IntValue) {
+			// Small integers are cached and thus shared anyway.
+			final int val = ((IntValue) value).val;
+			return val >= 0 && val < 10 ? 0 : 16;
+		}
+		// Booleans, model values, and strings are shared.
+		return 0;
+	}
+
+	private static long arraySize(final int length) {
+		return (16 + 4L * length + 7) & ~7L;
+	}
+
+	public long getHits() {
+		return this.hits.sum();
+	}
+
+	public long getMisses() {
+		return this.misses.sum();
+	}
+
+	public long getBytesSaved() {
+		return this.bytesSaved.sum();
+	}
+
+	public int size() {
+		expunge();
+		return this.table.size();
+	}
+
+	public double getHitRate() {
+		final long h = getHits();
+		final long total = h + getMisses();
+		return total == 0 ? 0d : h / (double) total;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"Value interning: %s lookups with a hit rate of %.2f%%, %s canonical values, approx. %s MB saved",
+				getHits() + getMisses(), getHitRate() * 100d, size(), getBytesSaved() / (1024L * 1024L));
+	}
+
+	private static final class Entry extends WeakReference<Value> {
+		private final Long key;
+
+		Entry(final Value referent, final Long key, final ReferenceQueue<Value> queue) {
+			super(referent, queue);
+			this.key = key;
+		}
+	}
+}
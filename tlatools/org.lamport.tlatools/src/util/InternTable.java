@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import tlc2.output.EC;
 import tlc2.tool.distributed.InternRMI;
@@ -15,6 +16,13 @@ import tlc2.tool.distributed.InternRMI;
 /**
  * Storage for the UniqueStrings.  It stores them in a hash table using
  * simple linear hashing.
+ * <p>
+ * Looking up a string that has been interned before does not lock: Entries
+ * are never removed, and a table is replaced by its grown copy only after the
+ * copy has been filled. Thus, a lookup in a stale table finds either the
+ * string or an empty slot, in which case it retries under the lock. Workers
+ * that create string values (e.g. \o or ToString) thus no longer contend for
+ * the lock, which is only taken to add a new string.
  * @see {@link UniqueString} for more information 
  * @author Yuan Yu, Simon Zambrovski
  */
@@ -22,10 +30,10 @@ public final class InternTable implements Serializable
 {
 
     private int count;  // The number of entries in the table.
-    private int length; // The length of the table.
     private int thresh; // The maximum number of entries before the table
                         // needs to be grown.
-    private UniqueString[] table;  // The array that holds the entries.
+    // The array that holds the entries.
+    private volatile AtomicReferenceArray<UniqueString> table;
 
     // SZ 10.04.2009: removed unused variable
     // made token counter to instance variable, since there is only one instance of the InternTable
@@ -35,25 +43,35 @@ public final class InternTable implements Serializable
 
     public InternTable(int size)
     {
-        this.table = new UniqueString[size];
+        this.table = new AtomicReferenceArray<>(size);
         this.count = 0;
-        this.length = size;
-        this.thresh = this.length / 2;
+        this.thresh = size / 2;
     }
     
     private void grow()
     {
-        UniqueString[] old = this.table;
-        this.count = 0;
-        this.length = 2 * this.length + 1;
-        this.thresh = this.length / 2;
-        this.table = new UniqueString[this.length];
-        for (int i = 0; i < old.length; i++)
+        final AtomicReferenceArray<UniqueString> old = this.table;
+        final int length = 2 * old.length() + 1;
+        final AtomicReferenceArray<UniqueString> grown = new AtomicReferenceArray<>(length);
+        for (int i = 0; i < old.length(); i++)
         {
-            UniqueString var = old[i];
+            UniqueString var = old.get(i);
             if (var != null)
-                this.put(var);
+                put(grown, var);
         }
+        this.thresh = length / 2;
+        this.table = grown;
+    }
+
+    private static void put(AtomicReferenceArray<UniqueString> table, UniqueString var)
+    {
+        final int length = table.length();
+        int loc = (var.hashCode() & 0x7FFFFFFF) % length;
+        while (table.get(loc) != null)
+        {
+            loc = (loc + 1) % length;
+        }
+        table.set(loc, var);
     }
 
     private void put(UniqueString var)
@@ -71,18 +89,8 @@ public final class InternTable implements Serializable
         if (this.count >= this.thresh)
             this.grow();
         
-        int loc = (var.hashCode() & 0x7FFFFFFF) % length;
-        while (true)
-        {
-            UniqueString ent = this.table[loc];
-            if (ent == null)
-            {
-                this.table[loc] = var;
-                this.count++;
-                return;
-            }
-            loc = (loc + 1) % length;
-        }
+        put(this.table, var);
+        this.count++;
     }
 
     /**
@@ -91,9 +99,10 @@ public final class InternTable implements Serializable
      */
     public UniqueString get(int id)
     {
-        for (int i = 0; i < this.table.length; i++)
+        final AtomicReferenceArray<UniqueString> table = this.table;
+        for (int i = 0; i < table.length(); i++)
         {
-            UniqueString var = this.table[i];
+            UniqueString var = table.get(i);
             if (var != null && var.getTok() == id)
             {
                 return var;
@@ -124,18 +133,25 @@ public final class InternTable implements Serializable
 
     public UniqueString put(String str)
     {
+        final UniqueString known = lookup(this.table, str);
+        if (known != null)
+        {
+            return known;
+        }
         synchronized (InternTable.class)
         {
             if (this.count >= this.thresh)
                 this.grow();
+            final AtomicReferenceArray<UniqueString> table = this.table;
+            final int length = table.length();
             int loc = (str.hashCode() & 0x7FFFFFFF) % length;
             while (true)
             {
-                UniqueString ent = this.table[loc];
+                UniqueString ent = table.get(loc);
                 if (ent == null)
                 {
                     UniqueString var = this.create(str);
-                    this.table[loc] = var;
+                    table.set(loc, var);
                     this.count++;
                     return var;
                 }
@@ -148,13 +164,33 @@ public final class InternTable implements Serializable
         }
     }
 
+    /**
+     * @return The UniqueString of str in table or null if table does not (yet)
+     *         contain str.
+     */
+    private static UniqueString lookup(AtomicReferenceArray<UniqueString> table, String str)
+    {
+        final int length = table.length();
+        int loc = (str.hashCode() & 0x7FFFFFFF) % length;
+        while (true)
+        {
+            UniqueString ent = table.get(loc);
+            if (ent == null || ent.toString().equals(str))
+            {
+                return ent;
+            }
+            loc = (loc + 1) % length;
+        }
+    }
+
     public void beginChkpt(String filename) throws IOException
     {
         BufferedDataOutputStream dos = new BufferedDataOutputStream(this.chkptName(filename, "tmp"));
         dos.writeInt(tokenCnt);
-        for (int i = 0; i < this.table.length; i++)
+        final AtomicReferenceArray<UniqueString> table = this.table;
+        for (int i = 0; i < table.length(); i++)
         {
-            UniqueString var = this.table[i];
+            UniqueString var = table.get(i);
             if (var != null)
                 var.write(dos);
         }
@@ -171,22 +207,25 @@ public final class InternTable implements Serializable
         }
     }
 
-    public synchronized void recover(String filename) throws IOException
+    public void recover(String filename) throws IOException
     {
-        BufferedDataInputStream dis = new BufferedDataInputStream(this.chkptName(filename, "chkpt"));
-        tokenCnt = dis.readInt();
-        try
+        synchronized (InternTable.class)
         {
-            while (!dis.atEOF())
+            BufferedDataInputStream dis = new BufferedDataInputStream(this.chkptName(filename, "chkpt"));
+            tokenCnt = dis.readInt();
+            try
             {
-                UniqueString var = UniqueString.read(dis);
-                this.put(var);
+                while (!dis.atEOF())
+                {
+                    UniqueString var = UniqueString.read(dis);
+                    this.put(var);
+                }
+            } catch (EOFException e)
+            {
+                Assert.fail(EC.SYSTEM_CHECKPOINT_RECOVERY_CORRUPT, e.getMessage());
             }
-        } catch (EOFException e)
-        {
-            Assert.fail(EC.SYSTEM_CHECKPOINT_RECOVERY_CORRUPT, e.getMessage());
+            dis.close();
         }
-        dis.close();
     }
 
     private String chkptName(String filename, String ext)
@@ -199,9 +238,10 @@ public final class InternTable implements Serializable
 	}
 
 	public UniqueString find(final String str) {
-        for (int i = 0; i < this.table.length; i++)
+        final AtomicReferenceArray<UniqueString> table = this.table;
+        for (int i = 0; i < table.length(); i++)
         {
-            UniqueString var = this.table[i];
+            UniqueString var = table.get(i);
             if (var != null && str.equals(var.toString()))
             {
                 return var;
@@ -212,8 +252,9 @@ public final class InternTable implements Serializable
 
 	public final Map<String, UniqueString> toMap() {
 		final Map<String, UniqueString> map = new HashMap<String, UniqueString>();
-		for (int i = 0; i < this.table.length; i++) {
-			UniqueString var = this.table[i];
+		final AtomicReferenceArray<UniqueString> table = this.table;
+		for (int i = 0; i < table.length(); i++) {
+			UniqueString var = table.get(i);
 			if (var != null) {
 				map.put(var.toString(), var);
 			}
@@ -45,6 +45,8 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
 import tlc2.tool.TLCState;
 import tlc2.tool.TLCStates;
 import tlc2.util.FlightRecorderProfiler;
+import tlc2.value.impl.StringValue;
+import util.UniqueString;
 
 @State(Scope.Group)
 @BenchmarkMode(Mode.Throughput)
@@ -55,6 +57,9 @@ public class DiskQueueBenachmark {
 
 	@Param({"DiskByteArrayQueue", "DiskStateQueue"})
 	public String impl;
+
+	@Param({"IntValue", "StringValue"})
+	public String values;
 	
 	private IStateQueue dsq;
 
@@ -69,6 +74,12 @@ public class DiskQueueBenachmark {
 		}
 
 		this.state = TLCStates.createDummyState(vars);
+		if (values.equals("StringValue")) {
+			// Strings such as message types or pc labels.
+			for (int i = 0; i < vars; i++) {
+				this.state.bind(UniqueString.uniqueStringOf("v" + i), new StringValue("lbl" + i));
+			}
+		}
     }
     
     @TearDown
@@ -60,6 +60,10 @@ public class SetOfFcnsBenchmark {
 	// 46x46 ~= 2^256 ~= 10^77
 	
 	public Enumerable setOfFcns;
+	
+	public Value superset;
+	
+	public Value fcn;
 		
 	@Setup(Level.Invocation)
 	public void setup() {
@@ -70,6 +74,12 @@ public class SetOfFcnsBenchmark {
 			final Value domain = new IntervalValue(1, sizeS);
 			final Value range = new IntervalValue(1, sizeT);
 			setOfFcns = (Enumerable) new SetOfFcnsValue(domain, range).normalize();
+			superset = new SetOfFcnsValue(domain, new IntervalValue(0, sizeT)).normalize();
+			final Value[] elems = new Value[sizeS];
+			for (int i = 0; i < elems.length; i++) {
+				elems[i] = IntValue.gen(sizeT - i % sizeT);
+			}
+			fcn = new TupleValue(elems);
 		} else {
 			// This appears to be the only way to skip permutations from the parameter space
 			// sizeS X sizeT X numOfElements.
@@ -81,4 +91,16 @@ public class SetOfFcnsBenchmark {
 	public Enumerable randomSubset() {
 		return setOfFcns.getRandomSubset(1 << numOfElements);
 	}
+
+	// Membership and subset do not enumerate setOfFcns.
+
+	@Benchmark
+	public boolean member() {
+		return ((Value) setOfFcns).member(fcn);
+	}
+
+	@Benchmark
+	public Value isSubsetEq() {
+		return setOfFcns.isSubsetEq(superset);
+	}
 }
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import tlc2.util.FP64;
+
+/**
+ * Compares the set operations of SetEnumValue (run without
+ * -Dtlc2.value.impl.SortedSetAlgebra.enabled=true) with their counterparts in
+ * SortedSetAlgebra.
+ */
+@State(Scope.Benchmark)
+public class SortedSetAlgebraBenchmark {
+
+	static {
+		FP64.Init();
+	}
+
+	private static ValueVec getValues(final int from, final int to, final int step) {
+		final ValueVec vec = new ValueVec();
+		for (int i = from; i <= to; i += step) {
+			vec.addElement(IntValue.gen(i));
+		}
+		return vec;
+	}
+
+	@Param({ "10", "12", "14" })
+	public int size;
+
+	public SetEnumValue a;
+	public SetEnumValue b;
+	public SortedSetAlgebra.Index index;
+	public Value[] probes;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		// Two overlapping sets with 2^size elements each.
+		a = (SetEnumValue) new SetEnumValue(getValues(0, (2 << size) - 2, 2), false).normalize();
+		b = (SetEnumValue) new SetEnumValue(getValues(0, (3 << size) - 3, 3), false).normalize();
+		index = SortedSetAlgebra.Index.create(a.elems);
+		probes = b.elems.toArray();
+	}
+
+	@Benchmark
+	public Value cup() {
+		// The result of cup is normalized before it ends up in a state.
+		return a.cup(b).normalize();
+	}
+
+	@Benchmark
+	public Value cupMerge() {
+		return new SetEnumValue(SortedSetAlgebra.cup(a.elems, b.elems), true);
+	}
+
+	@Benchmark
+	public Value cap() {
+		return a.cap(b);
+	}
+
+	@Benchmark
+	public Value capMerge() {
+		return new SetEnumValue(SortedSetAlgebra.cap(a.elems, b.elems), true);
+	}
+
+	@Benchmark
+	public Value diff() {
+		return a.diff(b);
+	}
+
+	@Benchmark
+	public Value diffMerge() {
+		return new SetEnumValue(SortedSetAlgebra.diff(a.elems, b.elems), true);
+	}
+
+	@Benchmark
+	public int member() {
+		int n = 0;
+		for (final Value probe : probes) {
+			if (a.elems.search(probe, true)) {
+				n++;
+			}
+		}
+		return n;
+	}
+
+	@Benchmark
+	public boolean memberOnce() {
+		// A fresh set (e.g. one built by the next-state relation of a single
+		// state) that is tested once.
+		return new SetEnumValue(a.elems, true).elems.search(probes[0], true);
+	}
+
+	@Benchmark
+	public boolean memberOnceIndexed() {
+		// Same as memberOnce, where the set is only indexed after repeated searches.
+		return new SetEnumValue(a.elems, true).memberIndexed(probes[0]);
+	}
+
+	@Benchmark
+	public boolean memberOnceIndex() {
+		// Same as memberOnce, where the set is indexed on its first search.
+		return SortedSetAlgebra.Index.create(a.elems).member(a.elems, probes[0]);
+	}
+
+	@Benchmark
+	public int memberIndex() {
+		int n = 0;
+		for (final Value probe : probes) {
+			if (index.member(a.elems, probe)) {
+				n++;
+			}
+		}
+		return n;
+	}
+}
@@ -0,0 +1,22 @@
+--------------------------- MODULE BigIntegers ---------------------------
+EXTENDS Integers
+
+VARIABLE x
+
+\* x counts past the largest integer that fits into 32 bits (2^31 - 1).
+Init == x = 2147483645
+
+Next == \/ x < 2147483650 /\ x' = x + 1
+        \/ x = 2147483650 /\ UNCHANGED x
+
+Spec == Init /\ [][Next]_x
+
+Inv == /\ x \in Nat
+       /\ x - 2147483645 \in 0..5
+       /\ x * x > x
+       /\ (x * 4) \div 4 = x
+       /\ (x * 4) % 4 = 0
+       /\ -x < 0
+       /\ 2^64 > x
+       /\ x \in {2147483645, 2147483646, 2147483647, 2^31, 2^31 + 1, 2^31 + 2}
+=============================================================================
@@ -0,0 +1,42 @@
+--------------------------- MODULE ConstantFolder ---------------------------
+EXTENDS Naturals, FiniteSets, Sequences, TLC
+
+CONSTANTS Procs, Servers
+
+VARIABLES pc, srv, lvl, log
+
+vars == <<pc, srv, lvl, log>>
+
+Init == /\ pc = [p \in Procs |-> 0]
+        /\ srv = {}
+        /\ lvl = TLCGet("level")
+        /\ log = <<>>
+
+\* SUBSET Servers and Cardinality(Servers) - 1 are folded, TLCGet("level")
+\* is not (it is constant-level but depends on the state).
+Step(p) == /\ pc[p] < 2
+           /\ pc' = [pc EXCEPT ![p] = @ + 1]
+           /\ srv' \in {s \in SUBSET Servers : Cardinality(s) = pc'[p]}
+           /\ lvl' = TLCGet("level")
+           /\ log' = Append(log, [proc |-> p, max |-> Cardinality(Servers) - 1])
+
+\* [p \in Procs |-> 0] is folded, CHOOSE s \in {} : TRUE fails to evaluate
+\* and is thus left to Tool#eval (which never evaluates it).
+Reset == /\ \A p \in Procs : pc[p] = 2
+         /\ pc' = [p \in Procs |-> 0]
+         /\ srv' = IF lvl > 100 THEN CHOOSE s \in {} : TRUE ELSE {}
+         /\ lvl' = TLCGet("level")
+         /\ log' = LET S == {1, 2} IN Append(log, [proc |-> CHOOSE p \in Procs : TRUE, max |-> Cardinality(S)])
+
+Next == (\E p \in Procs : Step(p)) \/ Reset
+
+Spec == Init /\ [][Next]_vars
+
+TypeOK == /\ pc \in [Procs -> 0..2]
+          /\ srv \in SUBSET Servers
+          /\ log \in Seq([proc : Procs, max : {2}])
+
+Inv == lvl = Len(log)
+
+Constraint == Len(log) < 6
+=============================================================================
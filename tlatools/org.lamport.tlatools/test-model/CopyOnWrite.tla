@@ -0,0 +1,40 @@
+---------------------------- MODULE CopyOnWrite ----------------------------
+EXTENDS Naturals
+
+CONSTANT N
+
+VARIABLES x, y, z
+
+vars == <<x, y, z>>
+
+Init == /\ x = 0
+        /\ y = 0
+        /\ z = 0
+
+IncX == /\ x' = (x + 1) % N
+        /\ UNCHANGED <<y, z>>
+
+IncY == /\ y' = (y + 1) % N
+        /\ UNCHANGED <<z, x>>
+
+\* Generates mostly states that have been seen before.
+Swap == /\ x' = y
+        /\ y' = x
+        /\ UNCHANGED z
+
+IncZ == /\ z < N
+        /\ z' = z + 1
+        /\ UNCHANGED <<x, y>>
+
+\* x is assigned before the UNCHANGED, which must not change it.
+Stutter == /\ x' = x
+           /\ UNCHANGED vars
+
+Next == IncX \/ IncY \/ Swap \/ IncZ \/ Stutter
+
+Spec == Init /\ [][Next]_vars
+
+Inv == /\ x \in 0..(N - 1)
+       /\ y \in 0..(N - 1)
+       /\ z \in 0..N
+=============================================================================
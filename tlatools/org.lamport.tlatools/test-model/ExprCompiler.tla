@@ -0,0 +1,41 @@
+----------------------------- MODULE ExprCompiler -----------------------------
+EXTENDS Naturals, Sequences, FiniteSets
+
+VARIABLES x, msgs, r
+
+vars == <<x, msgs, r>>
+
+Init == /\ x = 0
+        /\ msgs = <<>>
+        /\ r = [a |-> 0, b |-> {}]
+
+Next == /\ x' = x + 1
+        /\ msgs' = Append(msgs, x)
+        /\ r' = [r EXCEPT !.a = x, !.b = @ \cup {x % 3}]
+
+Spec == Init /\ [][Next]_vars
+
+Max(S) == CHOOSE m \in S : \A n \in S : n <= m
+
+f == [i \in 0..2 |-> i * 2]
+
+TypeOK == /\ x \in Nat
+          /\ \A i \in DOMAIN msgs : msgs[i] < x
+          /\ r.b \subseteq 0..2
+          /\ Cardinality(r.b) <= 3
+
+Inv == IF x > 3
+       THEN Max(r.b) = 2 /\ ~(r.a = x) /\ f[Max(r.b)] = 4
+       ELSE \E i \in {0, 1} : i = 0 => x < 4
+
+\* Nested quantifiers whose bound variables are also referenced by an
+\* (interpreted) set comprehension.
+Sorted == \A i \in DOMAIN msgs :
+            \A j \in 1..i : /\ msgs[j] <= msgs[i]
+                           /\ {k \in j..i : msgs[k] < msgs[j]} = {}
+                           /\ \A k \in {j} : msgs[k] = j - 1
+
+Violated == Len(msgs) # 5 \/ r.a = 3
+
+Constraint == x < 10
+=============================================================================
@@ -0,0 +1,33 @@
+--------------------------- MODULE IncrementalInvariants ---------------------------
+EXTENDS Naturals
+
+CONSTANT N
+
+VARIABLES x, y, z
+
+vars == <<x, y, z>>
+
+Init == x = 0 /\ y = 0 /\ z = 0
+
+IncX == x < N /\ x' = x + 1 /\ UNCHANGED <<y, z>>
+
+IncY == y < N /\ y' = y + 1 /\ UNCHANGED <<x, z>>
+
+Done == x = N /\ y = N /\ UNCHANGED vars
+
+Next == IncX \/ IncY \/ Done
+
+Spec == Init /\ [][Next]_vars
+
+\* Unaffected by IncY.
+InvX == x \in 0..N
+
+\* Unaffected by IncX.
+InvY == y \in 0..N
+
+\* Affected by both actions.
+InvXY == x + y <= 2 * N
+
+\* Unaffected by both actions.
+InvZ == z = 0
+=============================================================================
@@ -0,0 +1,28 @@
+--------------------------- MODULE IntSequences ---------------------------
+EXTENDS Naturals, Sequences
+
+VARIABLES q, p
+
+vars == <<q, p>>
+
+Init == q = <<>> /\ p = <<0, 0>>
+
+\* Appending to and taking the tail of a sequence of integers.
+Enq == Len(q) < 3 /\ \E i \in 1..2 : q' = Append(q, i) /\ UNCHANGED p
+
+Deq == q # <<>> /\ q' = Tail(q) /\ p' = [p EXCEPT ![1] = Head(q)]
+
+\* Destructuring tuples of integers.
+Move == \E <<a, b>> \in {<<1, 2>>, <<2, 1>>} : p' = [p EXCEPT ![a] = (@ + b) % 3] /\ UNCHANGED q
+
+Next == Enq \/ Deq \/ Move
+
+Spec == Init /\ [][Next]_vars
+
+TypeOK == q \in Seq(1..2) /\ p \in (0..2) \X (0..2)
+
+Inv == /\ SubSeq(q, 1, Len(q)) = q
+       /\ \A i \in 1..Len(q) : q[i] = Append(q, 0)[i]
+       /\ q \o <<>> = q
+       /\ Len(q) <= 3
+=============================================================================
@@ -0,0 +1,34 @@
+--------------------------- MODULE LazyValueCache ---------------------------
+EXTENDS Naturals, Sequences, FiniteSets
+
+CONSTANT Procs, N
+
+VARIABLES queue, count
+
+Init == /\ queue = [p \in Procs |-> <<>>]
+        /\ count = 0
+
+\* q depends on queue and self, total on count only.
+Send(self) == LET q == queue[self]
+                  total == count * 2
+              IN /\ Len(q) < N
+                 /\ total < 2 * N * Cardinality(Procs)
+                 /\ queue' = [queue EXCEPT ![self] = Append(q, total)]
+                 /\ count' = count + 1
+
+Recv(self) == LET q == queue[self]
+              IN /\ q # <<>>
+                 /\ queue' = [queue EXCEPT ![self] = Tail(q)]
+                 /\ UNCHANGED count
+
+Done == /\ count = N * Cardinality(Procs)
+        /\ UNCHANGED <<queue, count>>
+
+Next == Done \/ \E self \in Procs : Send(self) \/ Recv(self)
+
+\* A LazyValue (evaluated by Tool#eval rather than Tool#getNextStates).
+Inv == LET total == count * 2
+           lens == {Len(queue[p]) : p \in Procs}
+       IN /\ total \in 0..(2 * N * Cardinality(Procs))
+          /\ \A l \in lens : l <= N
+=============================================================================
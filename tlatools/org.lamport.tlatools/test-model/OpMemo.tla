@@ -0,0 +1,30 @@
+------------------------------- MODULE OpMemo -------------------------------
+EXTENDS Naturals, FiniteSets, TLC
+
+CONSTANT N
+
+VARIABLES x, y
+
+RECURSIVE Sum(_)
+Sum(S) == IF S = {} THEN 0
+          ELSE LET e == CHOOSE e \in S : TRUE IN e + Sum(S \ {e})
+
+Max(S) == CHOOSE m \in S : \A n \in S : n <= m
+
+\* A state-level operator, which reads x.
+Below(n) == {m \in 0..N : m <= (x + n) % (N + 1)}
+
+\* Not memoized, because TLCGet("level") differs between states.
+Lvl(n) == TLCGet("level") + n
+
+Init == x = 0 /\ y = 0
+
+Next == \/ /\ x' = (x + 1) % (N + 1)
+           /\ y' = y
+        \/ /\ y' = Sum(0..x) % (N + 1)
+           /\ x' = x
+
+Inv == /\ Max(Below(y)) = (x + y) % (N + 1)
+       /\ Sum(1..x) = (x * (x + 1)) \div 2
+       /\ Lvl(1) > 0
+=============================================================================
@@ -0,0 +1,33 @@
+------------------------- MODULE ParallelInvariants -------------------------
+EXTENDS Naturals, FiniteSets
+
+CONSTANT N
+
+VARIABLES msgs, clock
+
+vars == <<msgs, clock>>
+
+Init == /\ msgs = {}
+        /\ clock = 0
+
+Send(v) == /\ clock < N
+           /\ msgs' = msgs \cup {[ts |-> clock, val |-> v]}
+           /\ clock' = clock + 1
+
+Drop(m) == /\ msgs' = msgs \ {m}
+           /\ UNCHANGED clock
+
+Done == /\ clock = N
+        /\ UNCHANGED vars
+
+Next == \/ \E v \in 1..3 : Send(v)
+        \/ \E m \in msgs : Drop(m)
+        \/ Done
+
+Spec == Init /\ [][Next]_vars
+
+\* Quantifies over all pairs of messages.
+Unique == \A m1, m2 \in msgs : m1.ts = m2.ts => m1 = m2
+
+Monotonic == [][clock' >= clock]_vars
+=============================================================================
@@ -0,0 +1,6 @@
+---------------------- MODULE ParallelInvariantsError ----------------------
+EXTENDS ParallelInvariants
+
+\* Violated by a behavior that sends three messages.
+Bounded == Cardinality(msgs) < 3
+=============================================================================
@@ -0,0 +1,19 @@
+-------------------- MODULE ParallelInvariantsRegisters --------------------
+EXTENDS Naturals, TLC
+
+VARIABLE x
+
+ASSUME TLCSet(1, 0)
+
+Init == x = 0
+
+\* Enabled iff the worker itself checked Inv on the successors of the
+\* previous state.
+Next == \/ /\ x < 3
+           /\ TLCGet(1) = x
+           /\ x' = x + 1
+        \/ /\ x = 3
+           /\ UNCHANGED x
+
+Inv == TLCSet(1, x)
+=============================================================================
@@ -0,0 +1,34 @@
+--------------------------- MODULE SequenceViews ---------------------------
+EXTENDS Naturals, Sequences, TLC
+
+CONSTANT Msgs
+
+VARIABLES chan, log
+
+vars == <<chan, log>>
+
+Init == chan = <<>> /\ log = <<>>
+
+\* Appending to and taking the tail of a FIFO.
+Send == Len(chan) < 3 /\ \E m \in Msgs : chan' = Append(chan, m) /\ UNCHANGED log
+
+\* log is a window of the last two received messages.
+Recv == /\ chan # <<>>
+        /\ chan' = Tail(chan)
+        /\ log' = LET l == log \o <<Head(chan)>> IN SubSeq(l, IF Len(l) > 2 THEN 2 ELSE 1, Len(l))
+
+Dup == chan # <<>> /\ Len(chan) < 3 /\ chan' = chan \o SubSeq(chan, 1, 1) /\ UNCHANGED log
+
+Next == Send \/ Recv \/ Dup
+
+Spec == Init /\ [][Next]_vars
+
+Sym == Permutations(Msgs)
+
+TypeOK == chan \in Seq(Msgs) /\ log \in Seq(Msgs)
+
+Inv == /\ Len(chan) <= 3 /\ Len(log) <= 2
+       /\ DOMAIN chan = 1..Len(chan)
+       /\ Tail(<<Len(chan)>> \o chan) = chan
+       /\ \A i \in 1..Len(chan) : chan[i] = Append(chan, Len(log))[i]
+=============================================================================
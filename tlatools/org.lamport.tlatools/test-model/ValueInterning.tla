@@ -0,0 +1,22 @@
+--------------------------- MODULE ValueInterning ---------------------------
+EXTENDS Naturals
+
+CONSTANT N
+
+VARIABLES x, y
+
+vars == <<x, y>>
+
+Init == x = [i \in 1..N |-> 0] /\ y = {}
+
+\* Every new state has a new function x, but many states have equal sets y.
+Inc(i) == /\ x[i] < 2
+          /\ x' = [x EXCEPT ![i] = x[i] + 1]
+          /\ y' = {j \in 1..N : x'[j] = 2}
+
+Done == \A i \in 1..N : x[i] = 2 /\ UNCHANGED vars
+
+Next == (\E i \in 1..N : Inc(i)) \/ Done
+
+Spec == Init /\ [][Next]_vars
+=============================================================================
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.module;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import tlc2.output.EC;
+import tlc2.tool.EvalException;
+import tlc2.util.FP64;
+import tlc2.value.ValueInputStream;
+import tlc2.value.ValueOutputStream;
+import tlc2.value.impl.BigIntValue;
+import tlc2.value.impl.BoolValue;
+import tlc2.value.impl.IntValue;
+import tlc2.value.impl.IntervalValue;
+import tlc2.value.impl.Value;
+
+public class IntegersTest {
+
+	static {
+		// Before BigIntValue is loaded.
+		System.setProperty("tlc2.value.impl.BigIntValue.enabled", "true");
+	}
+
+	private static final IntValue MAX = IntValue.gen(Integer.MAX_VALUE);
+	private static final IntValue MIN = IntValue.gen(Integer.MIN_VALUE);
+
+	@BeforeClass
+	public static void setup() {
+		FP64.Init();
+	}
+
+	private static Value big(final String val) {
+		return BigIntValue.gen(new BigInteger(val));
+	}
+
+	private static void assertBig(final String expected, final Value actual) {
+		assertTrue(actual instanceof BigIntValue);
+		assertEquals(new BigInteger(expected), ((BigIntValue) actual).val);
+	}
+
+	@Test
+	public void testGen() {
+		assertTrue(BigIntValue.gen(42L) instanceof IntValue);
+		assertTrue(BigIntValue.gen(BigInteger.valueOf(Integer.MIN_VALUE)) instanceof IntValue);
+		assertBig("2147483648", BigIntValue.gen(2147483648L));
+		assertBig("-2147483649", BigIntValue.gen(-2147483649L));
+	}
+
+	@Test
+	public void testPromoteAndDemote() {
+		final Value v = Naturals.BigPlus(MAX, IntValue.ValOne);
+		assertBig("2147483648", v);
+		assertEquals(MAX, Naturals.BigMinus(v, IntValue.ValOne));
+		assertTrue(Naturals.BigMinus(v, IntValue.ValOne) instanceof IntValue);
+
+		assertBig("-2147483649", Naturals.BigMinus(MIN, IntValue.ValOne));
+		assertBig("4294967296", Naturals.BigTimes(IntValue.gen(65536), IntValue.gen(65536)));
+		assertSame(IntValue.ValZero, Naturals.BigTimes(big("4294967296"), IntValue.ValZero));
+		assertBig("18446744073709551616", Naturals.BigExpt(IntValue.gen(2), IntValue.gen(64)));
+		assertBig("2147483648", Integers.BigNeg(MIN));
+		assertBig("2147483648", Integers.BigDivide(MIN, IntValue.ValNegOne));
+	}
+
+	@Test
+	public void testDivideMod() {
+		// Rounds towards negative infinity (see Divide).
+		assertBig("-366503875926", Naturals.BigDivide(big("-1099511627777"), IntValue.gen(3)));
+		assertBig("366503875925", Naturals.BigDivide(big("1099511627777"), IntValue.gen(3)));
+		assertEquals(IntValue.gen(-1), Naturals.BigDivide(IntValue.gen(-1), big("1099511627777")));
+		assertEquals(IntValue.gen(1), Naturals.BigMod(big("-1099511627777"), IntValue.gen(3)));
+		assertEquals(IntValue.gen(2), Naturals.BigMod(big("1099511627777"), IntValue.gen(3)));
+		try {
+			Naturals.BigDivide(big("1099511627777"), IntValue.ValZero);
+			fail();
+		} catch (EvalException e) {
+			assertEquals(EC.TLC_MODULE_DIVISION_BY_ZERO, e.getErrorCode());
+		}
+	}
+
+	@Test
+	public void testExpt() {
+		assertBig("1208925819614629174706176", Naturals.BigExpt(big("1099511627776"), IntValue.gen(2)));
+		assertEquals(IntValue.ValOne, Naturals.BigExpt(IntValue.ValOne, big("1099511627776")));
+		assertEquals(IntValue.ValOne, Naturals.BigExpt(IntValue.ValNegOne, big("1099511627776")));
+		assertEquals(IntValue.ValNegOne, Naturals.BigExpt(IntValue.ValNegOne, big("1099511627777")));
+		try {
+			Naturals.BigExpt(IntValue.gen(2), big("1099511627776"));
+			fail();
+		} catch (EvalException e) {
+			assertEquals(EC.TLC_MODULE_OVERFLOW, e.getErrorCode());
+		}
+	}
+
+	@Test
+	public void testCompare() {
+		final Value pos = big("1099511627776");
+		final Value neg = big("-1099511627776");
+		assertEquals(BoolValue.ValTrue, Naturals.LT(MAX, pos));
+		assertEquals(BoolValue.ValFalse, Naturals.LT(pos, MAX));
+		assertEquals(BoolValue.ValTrue, Integers.LT(neg, MIN));
+		assertEquals(BoolValue.ValTrue, Integers.GEQ(pos, big("1099511627776")));
+		assertEquals(BoolValue.ValTrue, Integers.LE(neg, pos));
+
+		assertTrue(MAX.compareTo(pos) < 0);
+		assertTrue(pos.compareTo(MAX) > 0);
+		assertTrue(MIN.compareTo(neg) > 0);
+		assertFalse(MAX.equals(pos));
+		assertFalse(pos.equals(MAX));
+		assertTrue(pos.equals(big("1099511627776")));
+
+		assertTrue(Naturals.Nat().member(pos));
+		assertFalse(Naturals.Nat().member(neg));
+		assertTrue(Integers.Int().member(neg));
+		assertFalse(new IntervalValue(0, Integer.MAX_VALUE).member(pos));
+	}
+
+	@Test
+	public void testFingerprint() {
+		assertEquals(big("1099511627776").fingerPrint(FP64.New()), big("1099511627776").fingerPrint(FP64.New()));
+		assertNotEquals(big("1099511627776").fingerPrint(FP64.New()), big("1099511627777").fingerPrint(FP64.New()));
+		assertNotEquals(big("2147483648").fingerPrint(FP64.New()), MIN.fingerPrint(FP64.New()));
+	}
+
+	@Test
+	public void testWriteRead() throws IOException {
+		final File tempFile = File.createTempFile("IntegersTest-testWriteRead", ".vos");
+		tempFile.deleteOnExit();
+
+		final ValueOutputStream out = new ValueOutputStream(tempFile);
+		big("-1267650600228229401496703205376").write(out);
+		big("2147483648").write(out);
+		out.close();
+
+		final ValueInputStream in = new ValueInputStream(tempFile);
+		assertEquals(big("-1267650600228229401496703205376"), in.read());
+		assertEquals(big("2147483648"), in.read());
+		in.close();
+	}
+}
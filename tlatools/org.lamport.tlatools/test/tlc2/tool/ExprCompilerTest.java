@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import tlc2.output.EC;
+import tlc2.output.EC.ExitStatus;
+import tlc2.tool.liveness.ModelCheckerTestCase;
+
+public class ExprCompilerTest extends ModelCheckerTestCase {
+
+	public ExprCompilerTest() {
+		super("ExprCompiler", ExitStatus.VIOLATION_SAFETY);
+	}
+
+	@Override
+	protected void beforeSetUp() {
+		System.setProperty("tlc2.tool.impl.ExprCompiler.enabled", "true");
+	}
+
+	@Override
+	protected boolean doCoverage() {
+		// Compiled expressions do not record coverage.
+		return false;
+	}
+
+	@Test
+	public void testSpec() {
+		assertTrue(recorder.recorded(EC.TLC_FINISHED));
+		assertFalse(recorder.recorded(EC.TLC_BUG));
+
+		assertTrue(recorder.recordedWithStringValue(EC.TLC_INVARIANT_VIOLATED_BEHAVIOR, "Violated"));
+		assertTrue(recorder.recordedWithStringValues(EC.TLC_STATS, "6", "6", "0"));
+
+		final List<String> expectedTrace = new ArrayList<String>(6);
+		expectedTrace.add("/\\ msgs = <<>>\n/\\ r = [a |-> 0, b |-> {}]\n/\\ x = 0");
+		expectedTrace.add("/\\ msgs = <<0>>\n/\\ r = [a |-> 0, b |-> {0}]\n/\\ x = 1");
+		expectedTrace.add("/\\ msgs = <<0, 1>>\n/\\ r = [a |-> 1, b |-> {0, 1}]\n/\\ x = 2");
+		expectedTrace.add("/\\ msgs = <<0, 1, 2>>\n/\\ r = [a |-> 2, b |-> {0, 1, 2}]\n/\\ x = 3");
+		expectedTrace.add("/\\ msgs = <<0, 1, 2, 3>>\n/\\ r = [a |-> 3, b |-> {0, 1, 2}]\n/\\ x = 4");
+		expectedTrace.add("/\\ msgs = <<0, 1, 2, 3, 4>>\n/\\ r = [a |-> 4, b |-> {0, 1, 2}]\n/\\ x = 5");
+		assertTraceWith(recorder.getRecords(EC.TLC_STATE_PRINT2), expectedTrace);
+	}
+}
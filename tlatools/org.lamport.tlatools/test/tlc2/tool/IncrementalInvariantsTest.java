@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import tlc2.output.EC;
+import tlc2.output.EC.ExitStatus;
+import tlc2.tool.liveness.ModelCheckerTestCase;
+
+public class IncrementalInvariantsTest extends ModelCheckerTestCase {
+
+	public IncrementalInvariantsTest() {
+		super("IncrementalInvariants", ExitStatus.SUCCESS);
+	}
+
+	@Override
+	protected void beforeSetUp() {
+		System.setProperty("tlc2.tool.impl.IncrementalInvariants.enabled", "true");
+	}
+
+	@Override
+	protected boolean doCoverage() {
+		// Coverage would have to record the evaluations of the skipped invariants.
+		return false;
+	}
+
+	@Override
+	protected int getNumberOfThreads() {
+		return 1;
+	}
+
+	@Test
+	public void testSpec() {
+		assertTrue(recorder.recorded(EC.TLC_FINISHED));
+		assertFalse(recorder.recorded(EC.TLC_BUG));
+		assertFalse(recorder.recorded(EC.GENERAL));
+
+		// Same as without incremental invariants.
+		assertTrue(recorder.recordedWithStringValues(EC.TLC_STATS, "26", "16", "0"));
+
+		// IncX, IncY, and Done each leave an invariant unaffected.
+		assertTrue(recorder.recordedWithStringValues(EC.TLC_INCREMENTAL_INVARIANTS, "3", "3"));
+
+		// Each of the 15 new successor states is generated by either IncX or IncY.
+		final List<String[]> skipped = recorder.getRecordAsStringArray(EC.TLC_STATS_INVARIANT_SKIPPED);
+		assertEquals(4, skipped.size());
+		assertArrayEquals(new String[] { "InvX", "12" }, skipped.get(0));
+		assertArrayEquals(new String[] { "InvY", "3" }, skipped.get(1));
+		assertArrayEquals(new String[] { "InvXY", "0" }, skipped.get(2));
+		assertArrayEquals(new String[] { "InvZ", "15" }, skipped.get(3));
+	}
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import tlc2.output.EC;
+import tlc2.output.EC.ExitStatus;
+import tlc2.tool.liveness.ModelCheckerTestCase;
+
+public class LazyValueCacheTest extends ModelCheckerTestCase {
+
+	public LazyValueCacheTest() {
+		super("LazyValueCache", ExitStatus.SUCCESS);
+	}
+
+	@Override
+	protected void beforeSetUp() {
+		System.setProperty("tlc2.tool.impl.LazyValueCache.enabled", "true");
+	}
+
+	@Test
+	public void testSpec() {
+		assertTrue(recorder.recorded(EC.TLC_FINISHED));
+		assertFalse(recorder.recorded(EC.TLC_BUG));
+		assertFalse(recorder.recorded(EC.GENERAL));
+
+		// Same as without caching.
+		assertTrue(recorder.recordedWithStringValues(EC.TLC_STATS, "1486", "507", "0"));
+
+		assertTrue(recorder.recordedWithStringValue(EC.TLC_LAZY_VALUE_CACHE, "7"));
+		final List<Object> records = recorder.getRecords(EC.TLC_COVERAGE_MEMO);
+		assertEquals(5, records.size());
+		// The successors of a state share q (with the same self) and total.
+		assertMemoized(records.get(0), "<q line 12, col 19 to line 12, col 34 of module LazyValueCache>", "612", "802");
+		assertMemoized(records.get(1), "<total line 13, col 19 to line 13, col 36 of module LazyValueCache>", "1153", "7");
+		assertMemoized(records.get(2), "<q line 19, col 19 to line 19, col 34 of module LazyValueCache>", "1030", "802");
+		// LazyValues (of the invariant).
+		assertMemoized(records.get(3), "<total line 30, col 12 to line 30, col 29 of module LazyValueCache>", "500", "7");
+		assertMemoized(records.get(4), "<lens line 31, col 12 to line 31, col 48 of module LazyValueCache>", "105", "402");
+	}
+
+	private static void assertMemoized(final Object record, final String op, final String hits,
+			final String misses) {
+		final String[] strs = (String[]) record;
+		assertEquals(op, strs[0]);
+		assertEquals(hits, strs[1]);
+		assertEquals(misses, strs[2]);
+	}
+}
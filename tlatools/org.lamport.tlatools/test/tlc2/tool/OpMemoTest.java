@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import tlc2.output.EC;
+import tlc2.output.EC.ExitStatus;
+import tlc2.tool.liveness.ModelCheckerTestCase;
+
+public class OpMemoTest extends ModelCheckerTestCase {
+
+	public OpMemoTest() {
+		super("OpMemo", ExitStatus.SUCCESS);
+	}
+
+	@Override
+	protected void beforeSetUp() {
+		System.setProperty("tlc2.tool.impl.OpMemo.enabled", "true");
+	}
+
+	@Test
+	public void testSpec() {
+		assertTrue(recorder.recorded(EC.TLC_FINISHED));
+		assertFalse(recorder.recorded(EC.TLC_BUG));
+		assertFalse(recorder.recorded(EC.GENERAL));
+
+		// Same as without memoization.
+		assertTrue(recorder.recordedWithStringValues(EC.TLC_STATS, "49", "24", "0"));
+
+		// Lvl is not memoized because of TLCGet("level").
+		assertTrue(recorder.recordedWithStringValue(EC.TLC_OP_MEMO, "3"));
+		final List<Object> records = recorder.getRecords(EC.TLC_COVERAGE_MEMO);
+		assertEquals(3, records.size());
+		assertMemoized(records.get(0), "<Sum line 9, col 1 to line 10, col 65 of module OpMemo>", "46", "23");
+		assertMemoized(records.get(1), "<Max line 12, col 1 to line 12, col 46 of module OpMemo>", "17", "7");
+		// Below reads x, which differs between the distinct states.
+		assertMemoized(records.get(2), "<Below line 15, col 1 to line 15, col 49 of module OpMemo>", "0", "24");
+	}
+
+	private static void assertMemoized(final Object record, final String op, final String hits,
+			final String misses) {
+		final String[] strs = (String[]) record;
+		assertEquals(op, strs[0]);
+		assertEquals(hits, strs[1]);
+		assertEquals(misses, strs[2]);
+	}
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tla2sany.semantic.ASTConstants;
+import tla2sany.semantic.OpDeclNode;
+import tlc2.value.IValue;
+import tlc2.value.impl.BoolValue;
+import tlc2.value.impl.IntValue;
+import tlc2.value.impl.ModelValue;
+import tlc2.value.impl.SetEnumValue;
+import tlc2.value.impl.StringValue;
+import tlc2.value.impl.TupleValue;
+import tlc2.value.impl.Value;
+import util.UniqueString;
+
+public class TLCStatePackedTest {
+
+	private static final int NUM_VARS = 4;
+
+	private OpDeclNode[] variables;
+	private ModelValue mv;
+
+	@Before
+	public void setup() {
+		ModelValue.init();
+		mv = (ModelValue) ModelValue.make("mv");
+		ModelValue.make("mw");
+		ModelValue.setValues();
+
+		UniqueString.setVariableCount(NUM_VARS);
+		variables = new OpDeclNode[NUM_VARS];
+		for (int i = 0; i < NUM_VARS; i++) {
+			final UniqueString us = UniqueString.uniqueStringOf("p" + Integer.toString(i));
+			us.setLoc(i);
+			variables[i] = new OpDeclNode(us, ASTConstants.VariableDeclKind, 1, 0, null, null, null);
+		}
+	}
+
+	private TLCState create(final boolean packed, final IValue... values) {
+		TLCStateMut.setVariables(variables);
+		if (packed) {
+			assertTrue(TLCStatePacked.setVariables(variables, new byte[] { TLCStatePacked.INT, TLCStatePacked.BOOL,
+					TLCStatePacked.MODEL, TLCStatePacked.REF }));
+		}
+		final TLCState state = TLCState.Empty.createEmpty();
+		for (int i = 0; i < values.length; i++) {
+			state.bind(variables[i].getName(), values[i]);
+		}
+		return state;
+	}
+
+	private IValue[] values(final IValue v0) {
+		return new IValue[] { v0, BoolValue.ValTrue, mv,
+				new TupleValue(new Value[] { IntValue.gen(1), new StringValue("a") }) };
+	}
+
+	@Test
+	public void testFingerprintAndLookup() {
+		final IValue[] vals = values(IntValue.gen(4711));
+		final TLCState mut = create(false, vals);
+		final TLCState packed = create(true, vals);
+		assertTrue(packed instanceof TLCStatePacked);
+
+		assertEquals(mut.fingerPrint(), packed.fingerPrint());
+		for (int i = 0; i < NUM_VARS; i++) {
+			assertEquals(vals[i], packed.lookup(variables[i].getName()));
+		}
+		assertTrue(packed.allAssigned());
+		assertTrue(packed.equals(packed.copy()));
+		assertEquals(packed.hashCode(), packed.copy().hashCode());
+	}
+
+	@Test
+	public void testNegativeInt() {
+		final IValue[] vals = values(IntValue.gen(Integer.MIN_VALUE));
+		assertEquals(create(false, vals).fingerPrint(), create(true, vals).fingerPrint());
+		assertEquals(vals[0], create(true, vals).lookup(variables[0].getName()));
+	}
+
+	@Test
+	public void testTypeViolationIsBoxed() {
+		final IValue[] vals = values(new SetEnumValue(new Value[] { IntValue.gen(1) }, true));
+		final TLCState packed = create(true, vals);
+		assertEquals(create(false, vals).fingerPrint(), packed.fingerPrint());
+		assertEquals(vals[0], packed.lookup(variables[0].getName()));
+
+		// Rebinding to a value of the right type replaces the boxed value.
+		packed.bind(variables[0].getName(), IntValue.gen(42));
+		assertEquals(IntValue.gen(42), packed.lookup(variables[0].getName()));
+		assertEquals(create(false, values(IntValue.gen(42))).fingerPrint(), packed.fingerPrint());
+	}
+
+	@Test
+	public void testCopyAndUnbind() {
+		final TLCState packed = create(true, values(IntValue.gen(1)));
+		final TLCState copy = packed.copy();
+		copy.bind(variables[0].getName(), IntValue.gen(2));
+		copy.unbind(variables[1].getName());
+
+		assertEquals(IntValue.gen(1), packed.lookup(variables[0].getName()));
+		assertEquals(BoolValue.ValTrue, packed.lookup(variables[1].getName()));
+		assertEquals(IntValue.gen(2), copy.lookup(variables[0].getName()));
+		assertNull(copy.lookup(variables[1].getName()));
+		assertFalse(copy.allAssigned());
+		assertEquals(1, copy.getUnassigned().size());
+		assertFalse(packed.equals(copy));
+	}
+}
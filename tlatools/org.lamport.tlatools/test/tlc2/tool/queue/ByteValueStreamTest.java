@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.tool.queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import tlc2.tool.queue.DiskByteArrayQueue.ByteValueInputStream;
+import tlc2.tool.queue.DiskByteArrayQueue.ByteValueOutputStream;
+import tlc2.tool.queue.DiskByteArrayQueue.StringDictionary;
+import tlc2.value.impl.BigIntValue;
+import tlc2.value.impl.BoolValue;
+import tlc2.value.impl.IntValue;
+import tlc2.value.impl.IntervalValue;
+import tlc2.value.impl.RecordValue;
+import tlc2.value.impl.SetEnumValue;
+import tlc2.value.impl.StringValue;
+import tlc2.value.impl.TupleValue;
+import tlc2.value.impl.Value;
+import util.UniqueString;
+
+public class ByteValueStreamTest {
+
+	@Test
+	public void testWriteShort() throws IOException {
+		final ByteValueOutputStream out = new ByteValueOutputStream();
+		out.writeShort(Short.MAX_VALUE);
+		out.writeShort(Short.MIN_VALUE);
+		out.writeShort((short) 0);
+		out.writeShort((short) -1);
+
+		final ByteValueInputStream in = new ByteValueInputStream(out.toByteArray());
+		assertEquals(Short.MAX_VALUE, in.readShort());
+		assertEquals(Short.MIN_VALUE, in.readShort());
+		assertEquals((short) 0, in.readShort());
+		assertEquals((short) -1, in.readShort());
+	}
+
+	@Test
+	public void testWriteInt() throws IOException {
+		final ByteValueOutputStream out = new ByteValueOutputStream();
+		out.writeInt(Integer.MAX_VALUE);
+		out.writeInt(Integer.MIN_VALUE);
+		out.writeInt(0);
+		out.writeInt(-1);
+
+		final ByteValueInputStream in = new ByteValueInputStream(out.toByteArray());
+		assertEquals(Integer.MAX_VALUE, in.readInt());
+		assertEquals(Integer.MIN_VALUE, in.readInt());
+		assertEquals(0, in.readInt());
+		assertEquals(-1, in.readInt());
+	}
+
+	@Test
+	public void testWriteNat() throws IOException {
+		final ByteValueOutputStream out = new ByteValueOutputStream();
+		out.writeNat(Integer.MAX_VALUE);
+		out.writeNat(0);
+		out.writeShortNat(Short.MAX_VALUE);
+		out.writeShortNat((short) 127);
+		out.writeLongNat(Long.MAX_VALUE);
+		out.writeLongNat(1L);
+
+		final byte[] bytes = out.toByteArray();
+		// 5 + 1 + 3 + 1 + 9 + 1 bytes
+		assertEquals(20, bytes.length);
+
+		final ByteValueInputStream in = new ByteValueInputStream(bytes);
+		assertEquals(Integer.MAX_VALUE, in.readNat());
+		assertEquals(0, in.readNat());
+		assertEquals(Short.MAX_VALUE, in.readShortNat());
+		assertEquals(127, in.readShortNat());
+		assertEquals(Long.MAX_VALUE, in.readLongNat());
+		assertEquals(1L, in.readLongNat());
+	}
+
+	@Test
+	public void testValues() throws IOException {
+		final Value[] values = new Value[] { IntValue.gen(42), IntValue.gen(Integer.MIN_VALUE), BoolValue.ValTrue,
+				BigIntValue.gen(Long.MAX_VALUE), new IntervalValue(-3, 3),
+				new StringValue("msg"),
+				new TupleValue(new Value[] { IntValue.gen(1), new StringValue("a"), new TupleValue(new Value[0]) }),
+				new RecordValue(new UniqueString[] { UniqueString.uniqueStringOf("type") },
+						new Value[] { new StringValue("req") }, false).normalize(),
+				new SetEnumValue(new Value[] { IntValue.gen(-1), IntValue.gen(1) }, false).normalize() };
+
+		final ByteValueOutputStream out = new ByteValueOutputStream();
+		for (Value value : values) {
+			value.write(out);
+		}
+
+		final ByteValueInputStream in = new ByteValueInputStream(out.toByteArray(), new StringDictionary());
+		for (Value value : values) {
+			assertEquals(value, in.read());
+		}
+	}
+
+	@Test
+	public void testStringDictionary() throws IOException {
+		final ByteValueOutputStream out = new ByteValueOutputStream();
+		new StringValue("msg").write(out);
+		final byte[] bytes = out.toByteArray();
+
+		final StringDictionary strings = new StringDictionary();
+		final StringValue first = (StringValue) new ByteValueInputStream(bytes, strings).read();
+		assertSame(first, new ByteValueInputStream(bytes, strings).read());
+
+		// Without a dictionary, every read creates a new value.
+		assertNotSame(first, new ByteValueInputStream(bytes).read());
+
+		// A token that has been assigned to another string is not resolved to it.
+		strings.put(UniqueString.uniqueStringOf("msg").getTok(), new StringValue("gsm"));
+		assertEquals(first, new ByteValueInputStream(bytes, strings).read());
+	}
+
+	@Test
+	public void testReuse() throws IOException {
+		final ByteValueOutputStream out = new ByteValueOutputStream();
+		new StringValue("abcdefghijklmnopqrstuvwxyz").write(out);
+		out.toByteArray();
+
+		IntValue.gen(7).write(out);
+		final byte[] bytes = out.toByteArray();
+		assertEquals(2, bytes.length);
+		assertEquals(IntValue.gen(7), new ByteValueInputStream(bytes).read());
+	}
+}
@@ -48,4 +48,31 @@ public class FP64Test {
 			assertEquals(FP64.Extend(fp, x), FP64.ExtendLoop(fp, x));
 		}
 	}
+
+	@Test
+	public void testCombine() {
+		final Random random = new Random();
+		for (int i = 0; i < 1000; i++) {
+			final byte[] bytes = new byte[random.nextInt(64)];
+			random.nextBytes(bytes);
+
+			final long delta = FP64.Extend(FP64.Zero, bytes, 0, bytes.length);
+			final long shift = FP64.Extend(FP64.One, bytes, 0, bytes.length) ^ delta;
+
+			final long fp = random.nextLong();
+			assertEquals(FP64.Extend(fp, bytes, 0, bytes.length), FP64.Combine(fp, shift, delta));
+		}
+	}
+
+	@Test
+	public void testMultiply() {
+		final Random random = new Random();
+		for (int i = 0; i < 1000; i++) {
+			final long a = random.nextLong();
+			final long b = random.nextLong();
+			assertEquals(a, FP64.Multiply(a, FP64.One));
+			assertEquals(FP64.Zero, FP64.Multiply(a, FP64.Zero));
+			assertEquals(FP64.Multiply(a, b), FP64.Multiply(b, a));
+		}
+	}
 }
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import tlc2.util.FP64;
+import tlc2.value.impl.Enumerable.Ordering;
+
+public class BitSetValueTest {
+
+	static {
+		// Before BitSetValue is loaded.
+		System.setProperty("tlc2.value.impl.BitSetValue.enabled", "true");
+	}
+
+	private static ModelValue a, b, c, d;
+
+	@BeforeClass
+	public static void setup() {
+		FP64.Init();
+		ModelValue.init();
+		a = (ModelValue) ModelValue.make("a");
+		b = (ModelValue) ModelValue.make("b");
+		c = (ModelValue) ModelValue.make("c");
+		d = (ModelValue) ModelValue.make("d");
+		ModelValue.setValues();
+	}
+
+	private static SetEnumValue normalized(final Value... vals) {
+		return (SetEnumValue) new SetEnumValue(vals, false).normalize();
+	}
+
+	private static void assertSubsets(final SetEnumValue universe) {
+		final BitSetValue.Universe u = BitSetValue.Universe.of(universe.elems);
+		assertNotNull(u);
+
+		// All subsets of universe as BitSetValues and as SetEnumValues.
+		final int n = universe.size();
+		final BitSetValue[] bitSets = new BitSetValue[1 << n];
+		final SetEnumValue[] sets = new SetEnumValue[1 << n];
+		for (int i = 0; i < bitSets.length; i++) {
+			bitSets[i] = new BitSetValue(u, i);
+			final ValueVec vec = new ValueVec();
+			for (int j = 0; j < n; j++) {
+				if ((i & (1 << j)) != 0) {
+					vec.addElement(universe.elems.elementAt(j));
+				}
+			}
+			sets[i] = new SetEnumValue(vec, true);
+		}
+
+		for (int i = 0; i < bitSets.length; i++) {
+			final BitSetValue s = bitSets[i];
+			assertEquals(sets[i].fingerPrint(FP64.New()), s.fingerPrint(FP64.New()));
+			assertEquals(sets[i].size(), s.size());
+			assertEquals(sets[i], s.toSetEnum());
+			assertTrue(s.equals(sets[i]));
+			assertTrue(sets[i].equals(s));
+			assertEquals(sets[i].getModelValueMask(), s.getModelValueMask());
+			assertEquals(sets[i].toString(), s.toString());
+			for (int j = 0; j < n; j++) {
+				assertEquals(sets[i].member(universe.elems.elementAt(j)), s.member(universe.elems.elementAt(j)));
+			}
+
+			for (int j = 0; j < bitSets.length; j++) {
+				final BitSetValue t = bitSets[j];
+				assertEquals(Integer.signum(sets[i].compareTo(sets[j])), Integer.signum(s.compareTo(t)));
+				assertEquals(Integer.signum(sets[i].compareTo(sets[j])), Integer.signum(s.compareTo(sets[j])));
+				assertEquals(i == j, s.equals(t));
+				assertEquals(sets[i].isSubsetEq(sets[j]), s.isSubsetEq(t));
+
+				assertEquals(sets[i].cup(sets[j]).normalize(), s.cup(t));
+				assertEquals(sets[i].cap(sets[j]), s.cap(t));
+				assertEquals(sets[i].diff(sets[j]), s.diff(t));
+				// With operands of a different representation.
+				assertEquals(sets[i].cap(sets[j]), s.cap(sets[j]));
+				assertEquals(sets[i].diff(sets[j]), s.diff(sets[j]));
+				assertEquals(sets[i].cup(sets[j]).normalize(), s.cup(sets[j]).normalize());
+			}
+		}
+	}
+
+	@Test
+	public void testInterval() {
+		assertSubsets((SetEnumValue) new IntervalValue(3, 7).toSetEnum());
+	}
+
+	@Test
+	public void testModelValues() {
+		assertSubsets(normalized(d, b, a, c));
+	}
+
+	@Test
+	public void testMemberOutsideUniverse() {
+		final BitSetValue.Universe u = BitSetValue.Universe.of(((SetEnumValue) new IntervalValue(1, 3).toSetEnum()).elems);
+		final BitSetValue s = new BitSetValue(u, 7L);
+		assertTrue(s.member(IntValue.gen(2)));
+		assertTrue(!s.member(IntValue.gen(0)));
+		assertTrue(!s.member(IntValue.gen(Integer.MIN_VALUE)));
+		assertTrue(!s.member(a));
+	}
+
+	@Test
+	public void testNoUniverse() {
+		assertNull(BitSetValue.Universe.of(normalized(IntValue.gen(1), IntValue.gen(3)).elems));
+		assertNull(BitSetValue.Universe.of(normalized(a, IntValue.gen(1)).elems));
+		assertNull(BitSetValue.Universe.of(((SetEnumValue) new IntervalValue(1, 65).toSetEnum()).elems));
+	}
+
+	@Test
+	public void testPermute() {
+		final BitSetValue.Universe u = BitSetValue.Universe.of(normalized(a, b, c, d).elems);
+		final MVPerm perm = new MVPerm();
+		perm.put(a, b);
+		perm.put(b, a);
+
+		// {a, c} -> {b, c}
+		final SetEnumValue set = normalized(a, c);
+		final BitSetValue s = new BitSetValue(u, 5L);
+		assertEquals(set, s);
+		assertEquals(set.permute(perm), s.permute(perm));
+		assertTrue(s.permute(perm) instanceof BitSetValue);
+		// {c, d} is unaffected.
+		final BitSetValue t = new BitSetValue(u, 12L);
+		assertSame(t, t.permute(perm));
+	}
+
+	@Test
+	public void testSubsetValue() {
+		// The normalized enumeration of SUBSET yields the subsets in normalized order.
+		final SubsetValue subset = new SubsetValue(normalized(d, b, a, c));
+		final ValueEnumeration elements = subset.elements(Ordering.NORMALIZED);
+		Value prev = null, next;
+		int cnt = 0;
+		while ((next = elements.nextElement()) != null) {
+			assertTrue(next instanceof BitSetValue);
+			if (prev != null) {
+				assertTrue(prev.compareTo(next) < 0);
+			}
+			prev = next;
+			cnt++;
+		}
+		assertEquals(16, cnt);
+	}
+}
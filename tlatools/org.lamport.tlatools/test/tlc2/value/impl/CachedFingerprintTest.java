@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import tlc2.util.FP64;
+import util.UniqueString;
+
+public class CachedFingerprintTest {
+
+	@BeforeClass
+	public static void setup() {
+		FP64.Init();
+	}
+
+	private static void assertCombines(final Value value) {
+		final CachedFingerprint cached = new CachedFingerprint(value.fingerPrint(FP64.Zero),
+				value.fingerPrint(FP64.One));
+
+		final Random random = new Random();
+		for (int i = 0; i < 100; i++) {
+			final long fp = random.nextLong();
+			assertEquals(value.fingerPrint(fp), cached.extend(fp));
+		}
+		assertEquals(value.fingerPrint(FP64.New()), cached.extend(FP64.New()));
+	}
+
+	@Test
+	public void testCompositeValues() {
+		final Value[] ints = new Value[16];
+		for (int i = 0; i < ints.length; i++) {
+			ints[i] = IntValue.gen(i * 31);
+		}
+		final TupleValue tuple = new TupleValue(ints);
+		assertCombines(tuple);
+
+		final SetEnumValue set = new SetEnumValue(
+				new Value[] { tuple, new TupleValue(IntValue.gen(-1)), new TupleValue(IntValue.gen(7), IntValue.gen(-7)) }, false);
+		assertCombines(set);
+
+		final RecordValue rcd = new RecordValue(new UniqueString[] { UniqueString.uniqueStringOf("b"),
+				UniqueString.uniqueStringOf("a") }, new Value[] { set, tuple }, false);
+		assertCombines(rcd);
+
+		final FcnRcdValue fcnIntv = new FcnRcdValue(new IntervalValue(1, ints.length), ints);
+		assertCombines(fcnIntv);
+
+		final FcnRcdValue fcn = new FcnRcdValue(new Value[] { rcd, new RecordValue(UniqueString.uniqueStringOf("a"), set) },
+				new Value[] { fcnIntv, tuple }, false);
+		assertCombines(fcn);
+	}
+
+	@Test
+	public void testStringValues() {
+		assertCombines(new StringValue("a"));
+
+		final StringBuffer buf = new StringBuffer();
+		while (buf.length() < StringValue.MIN_CACHED_LENGTH) {
+			buf.append("abcdefgh");
+		}
+		assertCombines(new StringValue(buf.toString()));
+	}
+
+	@Test
+	public void testInvalidatedByInit() {
+		final CachedFingerprint cached = new CachedFingerprint(0L, 1L);
+		FP64.Init(1);
+		try {
+			assertEquals(false, cached.isValid());
+		} finally {
+			FP64.Init();
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import tlc2.tool.EvalControl;
+import tlc2.util.FP64;
+
+public class FcnRcdValueIndexTest {
+
+	static {
+		// Before FcnRcdValue is loaded.
+		System.setProperty("tlc2.value.impl.FcnRcdValue.enabled", "true");
+	}
+
+	@BeforeClass
+	public static void setup() {
+		FP64.Init();
+	}
+
+	private static Value pair(final int n, final int r) {
+		return new TupleValue(IntValue.gen(n), IntValue.gen(r));
+	}
+
+	/**
+	 * [<<n, r>> \in (0..7) \X (0..7) |-> n * r]
+	 */
+	private static FcnRcdValue votes(final boolean isNorm) {
+		final Value[] domain = new Value[64];
+		final Value[] values = new Value[64];
+		for (int i = 0; i < domain.length; i++) {
+			// Reversed unless normalized.
+			final int j = isNorm ? i : domain.length - 1 - i;
+			domain[i] = pair(j / 8, j % 8);
+			values[i] = IntValue.gen((j / 8) * (j % 8));
+		}
+		return new FcnRcdValue(domain, values, isNorm);
+	}
+
+	@Test
+	public void testApply() {
+		final FcnRcdValue[] fcns = { votes(true), votes(false), (FcnRcdValue) votes(false).normalize() };
+		for (final FcnRcdValue fcn : fcns) {
+			for (int n = 0; n < 8; n++) {
+				for (int r = 0; r < 8; r++) {
+					assertEquals(IntValue.gen(n * r), fcn.apply(pair(n, r), EvalControl.Clear));
+					// A tuple represented as a function.
+					assertEquals(IntValue.gen(n * r), fcn.select(pair(n, r).toFcnRcd()));
+				}
+			}
+			assertNull(fcn.select(pair(8, 0)));
+			assertNull(fcn.select(new TupleValue(IntValue.gen(1))));
+		}
+	}
+
+	@Test
+	public void testTakeExcept() {
+		final FcnRcdValue fcn = votes(true);
+		// Builds the index.
+		assertEquals(IntValue.gen(9), fcn.apply(pair(3, 3), EvalControl.Clear));
+
+		final FcnRcdValue res = (FcnRcdValue) fcn
+				.takeExcept(new ValueExcept(new Value[] { pair(3, 3) }, IntValue.gen(42)));
+		assertSame(fcn.domain, res.domain);
+		assertEquals(IntValue.gen(42), res.apply(pair(3, 3), EvalControl.Clear));
+		assertEquals(IntValue.gen(12), res.apply(pair(3, 4), EvalControl.Clear));
+		// The original is unchanged.
+		assertEquals(IntValue.gen(9), fcn.apply(pair(3, 3), EvalControl.Clear));
+		assertEquals(votes(false), fcn);
+
+		// Not in the domain.
+		assertSame(fcn, fcn.takeExcept(new ValueExcept(new Value[] { pair(8, 8) }, IntValue.gen(42))));
+	}
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class FcnRcdValueTest {
+
+	private static Value[] ints(final int... vals) {
+		final Value[] res = new Value[vals.length];
+		for (int i = 0; i < vals.length; i++) {
+			res[i] = IntValue.gen(vals[i]);
+		}
+		return res;
+	}
+
+	private static ValueExcept except(final Value arg, final Value val) {
+		return new ValueExcept(new Value[] { arg }, val);
+	}
+
+	@Test
+	public void testTakeExceptInterval() {
+		// [i \in 3..5 |-> 0]
+		final FcnRcdValue fcn = new FcnRcdValue(new IntervalValue(3, 5), ints(0, 0, 0));
+
+		final Value res = fcn.takeExcept(except(IntValue.gen(5), IntValue.gen(42)));
+		assertEquals(new FcnRcdValue(new IntervalValue(3, 5), ints(0, 0, 42)), res);
+		// The original is unchanged.
+		assertEquals(new FcnRcdValue(new IntervalValue(3, 5), ints(0, 0, 0)), fcn);
+
+		// Not in the domain.
+		assertSame(fcn, fcn.takeExcept(except(IntValue.gen(6), IntValue.gen(42))));
+	}
+
+	@Test
+	public void testTakeExceptBatched() {
+		// [a |-> 1, b |-> 2, c |-> 3] where the domain is not normalized.
+		final Value a = new StringValue("a");
+		final Value b = new StringValue("b");
+		final Value c = new StringValue("c");
+		final FcnRcdValue fcn = new FcnRcdValue(new Value[] { c, a, b }, ints(3, 1, 2), false);
+
+		final ValueExcept[] exs = new ValueExcept[] { except(a, IntValue.gen(10)), except(c, IntValue.gen(30)),
+				except(a, IntValue.gen(11)), except(new StringValue("d"), IntValue.gen(40)) };
+		final Value res = fcn.takeExcept(exs);
+
+		assertEquals(new FcnRcdValue(new Value[] { a, b, c }, ints(11, 2, 30), true), res);
+		// Normalizing the result has not sorted the domain of the original.
+		assertSame(c, fcn.domain[0]);
+		assertEquals(new FcnRcdValue(new Value[] { a, b, c }, ints(1, 2, 3), true), fcn);
+	}
+
+	@Test
+	public void testTakeExceptBatchedNested() {
+		// [i \in 1..2 |-> <<0, 0>>]
+		final Value t = new TupleValue(ints(0, 0));
+		final FcnRcdValue fcn = new FcnRcdValue(new IntervalValue(1, 2), new Value[] { t, t });
+
+		final ValueExcept[] exs = new ValueExcept[] {
+				new ValueExcept(new Value[] { IntValue.gen(1), IntValue.gen(2) }, IntValue.gen(7)),
+				new ValueExcept(new Value[] { IntValue.gen(1), IntValue.gen(1) }, IntValue.gen(8)) };
+		final Value res = fcn.takeExcept(exs);
+
+		assertEquals(new FcnRcdValue(new IntervalValue(1, 2), new Value[] { new TupleValue(ints(8, 7)), t }), res);
+		assertEquals(new TupleValue(ints(0, 0)), t);
+	}
+}
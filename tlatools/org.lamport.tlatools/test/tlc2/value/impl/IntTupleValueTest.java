@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import tlc2.module.Sequences;
+import tlc2.tool.EvalControl;
+import tlc2.util.FP64;
+
+public class IntTupleValueTest {
+
+	static {
+		// Before IntTupleValue is loaded.
+		System.setProperty("tlc2.value.impl.IntTupleValue.enabled", "true");
+	}
+
+	@BeforeClass
+	public static void setup() {
+		FP64.Init();
+	}
+
+	private static Value[] ints(final int... ints) {
+		final Value[] vals = new Value[ints.length];
+		for (int i = 0; i < ints.length; i++) {
+			vals[i] = IntValue.gen(ints[i]);
+		}
+		return vals;
+	}
+
+	private static Value intTuple(final int... ints) {
+		final Value v = IntTupleValue.of(ints(ints), null);
+		assertTrue(v instanceof IntTupleValue);
+		return v;
+	}
+
+	private static void assertEquivalent(final TupleValue expected, final Value actual) {
+		assertEquals(expected.fingerPrint(FP64.New()), actual.fingerPrint(FP64.New()));
+		assertTrue(expected.equals(actual));
+		assertTrue(actual.equals(expected));
+		assertEquals(0, expected.compareTo(actual));
+		assertEquals(0, actual.compareTo(expected));
+		assertEquals(expected.toString(), actual.toString());
+	}
+
+	@Test
+	public void testOf() {
+		assertTrue(IntTupleValue.of(ints(1, 2, 3), null) instanceof IntTupleValue);
+		assertTrue(IntTupleValue.of(new Value[] { IntValue.gen(1), new StringValue("a") }, null) instanceof TupleValue);
+		assertTrue(IntTupleValue.of(new Value[0], null) instanceof TupleValue);
+	}
+
+	@Test
+	public void testEquivalent() {
+		final int[][] tuples = { { 1 }, { 1, 2 }, { 2, 1 }, { 1, 2, 3 }, { -7, 42, 100000 } };
+		for (int i = 0; i < tuples.length; i++) {
+			assertEquivalent(new TupleValue(ints(tuples[i])), intTuple(tuples[i]));
+			for (int j = 0; j < tuples.length; j++) {
+				final TupleValue tv = new TupleValue(ints(tuples[j]));
+				final Value itv = intTuple(tuples[i]);
+				assertEquals(i == j, itv.equals(tv));
+				assertEquals(Integer.signum(new TupleValue(ints(tuples[i])).compareTo(tv)),
+						Integer.signum(itv.compareTo(tv)));
+				assertEquals(Integer.signum(tv.compareTo(new TupleValue(ints(tuples[i])))),
+						Integer.signum(tv.compareTo(itv)));
+				assertEquals(Integer.signum(new TupleValue(ints(tuples[i])).compareTo(tv)),
+						Integer.signum(itv.compareTo(intTuple(tuples[j]))));
+			}
+		}
+		assertFalse(intTuple(1, 2).equals(new TupleValue(new Value[] { IntValue.gen(1), IntValue.gen(2),
+				new StringValue("a") })));
+	}
+
+	@Test
+	public void testApply() {
+		final Applicable t = (Applicable) intTuple(4, 5, 6);
+		assertEquals(IntValue.gen(5), t.apply(IntValue.gen(2), EvalControl.Clear));
+		assertEquals(IntValue.gen(6), t.select(IntValue.gen(3)));
+		assertEquals(null, t.select(IntValue.gen(4)));
+		assertEquals(new IntervalValue(1, 3), t.getDomain());
+	}
+
+	@Test
+	public void testSequences() {
+		final Value t = intTuple(1, 2, 3);
+
+		assertEquals(IntValue.gen(3), Sequences.Len(t));
+		assertEquals(IntValue.gen(1), Sequences.Head(t));
+
+		Value v = Sequences.Tail(t);
+		assertTrue(v instanceof IntTupleValue);
+		assertEquivalent(new TupleValue(ints(2, 3)), v);
+		assertEquivalent(TupleValue.EmptyTuple, Sequences.Tail(intTuple(1)));
+
+		v = Sequences.Append(t, IntValue.gen(4));
+		assertTrue(v instanceof IntTupleValue);
+		assertEquivalent(new TupleValue(ints(1, 2, 3, 4)), v);
+		v = Sequences.Append(TupleValue.EmptyTuple, IntValue.gen(4));
+		assertTrue(v instanceof IntTupleValue);
+		assertEquivalent(new TupleValue(ints(4)), v);
+		// Mixed contents fall back to a TupleValue.
+		v = Sequences.Append(t, new StringValue("a"));
+		assertTrue(v instanceof TupleValue);
+		assertEquivalent(new TupleValue(new Value[] { IntValue.gen(1), IntValue.gen(2), IntValue.gen(3),
+				new StringValue("a") }), v);
+
+		v = Sequences.Cons(IntValue.gen(0), t);
+		assertTrue(v instanceof IntTupleValue);
+		assertEquivalent(new TupleValue(ints(0, 1, 2, 3)), v);
+
+		v = Sequences.Concat(t, intTuple(4, 5));
+		assertTrue(v instanceof IntTupleValue);
+		assertEquivalent(new TupleValue(ints(1, 2, 3, 4, 5)), v);
+
+		v = Sequences.SubSeq(t, IntValue.gen(2), IntValue.gen(3));
+		assertTrue(v instanceof IntTupleValue);
+		assertEquivalent(new TupleValue(ints(2, 3)), v);
+		assertEquivalent(TupleValue.EmptyTuple, Sequences.SubSeq(t, IntValue.gen(3), IntValue.gen(2)));
+	}
+
+	@Test
+	public void testTakeExcept() {
+		final Value t = intTuple(1, 2, 3);
+
+		Value v = t.takeExcept(new ValueExcept(ints(2), IntValue.gen(5)));
+		assertTrue(v instanceof IntTupleValue);
+		assertEquivalent(new TupleValue(ints(1, 5, 3)), v);
+		// Out of domain.
+		assertEquivalent(new TupleValue(ints(1, 2, 3)), t.takeExcept(new ValueExcept(ints(4), IntValue.gen(5))));
+
+		v = t.takeExcept(new ValueExcept[] { new ValueExcept(ints(1), IntValue.gen(7)),
+				new ValueExcept(ints(2), new StringValue("a")), new ValueExcept(ints(3), IntValue.gen(9)) });
+		assertTrue(v instanceof TupleValue);
+		assertEquivalent(new TupleValue(new Value[] { IntValue.gen(7), new StringValue("a"), IntValue.gen(9) }), v);
+		// t is unchanged.
+		assertEquivalent(new TupleValue(ints(1, 2, 3)), t);
+	}
+
+	@Test
+	public void testAssignable() {
+		assertTrue(intTuple(1, 2).assignable(new TupleValue(ints(1, 2))));
+		assertTrue(new TupleValue(ints(1, 2)).assignable(intTuple(1, 2)));
+		assertFalse(intTuple(1, 2).assignable(intTuple(2, 1)));
+		assertFalse(new TupleValue(ints(1, 2)).assignable(intTuple(1, 2, 3)));
+	}
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import tlc2.value.IValue;
+import util.UniqueString;
+
+public class MVPermTest {
+
+	private static ModelValue a, b, c, d;
+
+	@BeforeClass
+	public static void setup() {
+		ModelValue.init();
+		a = (ModelValue) ModelValue.make("a");
+		b = (ModelValue) ModelValue.make("b");
+		c = (ModelValue) ModelValue.make("c");
+		d = (ModelValue) ModelValue.make("d");
+		ModelValue.setValues();
+	}
+
+	@Test
+	public void testModelValueMask() {
+		assertEquals(0L, IntValue.gen(42).getModelValueMask());
+		assertEquals(0L, new StringValue("s").getModelValueMask());
+		assertEquals(0L, BoolValue.ValTrue.getModelValueMask());
+
+		final long ma = a.getModelValueMask();
+		final long mb = b.getModelValueMask();
+		assertEquals(1, Long.bitCount(ma));
+		assertTrue((ma & mb) == 0L);
+
+		final TupleValue tuple = new TupleValue(new Value[] { IntValue.gen(1), a });
+		assertEquals(ma, tuple.getModelValueMask());
+
+		final SetEnumValue set = new SetEnumValue(new Value[] { tuple, b }, false);
+		assertEquals(ma | mb, set.getModelValueMask());
+
+		final RecordValue rcd = new RecordValue(UniqueString.uniqueStringOf("f"), new StringValue("x"));
+		assertEquals(0L, rcd.getModelValueMask());
+
+		final FcnRcdValue fcn = new FcnRcdValue(new Value[] { a, b }, new Value[] { IntValue.gen(1), c }, true);
+		assertEquals(ma | mb | c.getModelValueMask(), fcn.getModelValueMask());
+
+		final FcnRcdValue fcnIntv = new FcnRcdValue(new IntervalValue(1, 2), new Value[] { d, IntValue.gen(2) });
+		assertEquals(d.getModelValueMask(), fcnIntv.getModelValueMask());
+	}
+
+	@Test
+	public void testIdentityAndAgreement() {
+		final MVPerm ab = new MVPerm();
+		ab.put(a, b);
+		ab.put(b, a);
+		final MVPerm cd = new MVPerm();
+		cd.put(c, d);
+		cd.put(d, c);
+		final MVPerm abcd = (MVPerm) ab.compose(cd);
+
+		final long mab = a.getModelValueMask() | b.getModelValueMask();
+		final long mcd = c.getModelValueMask() | d.getModelValueMask();
+
+		assertTrue(ab.isIdentityOn(0L));
+		assertTrue(ab.isIdentityOn(mcd));
+		assertFalse(ab.isIdentityOn(mab));
+		assertFalse(ab.isIdentityOn(IValue.ALL_MODEL_VALUES));
+
+		assertTrue(ab.agreesOn(abcd, mab));
+		assertFalse(ab.agreesOn(abcd, mcd));
+		assertFalse(ab.agreesOn(abcd, IValue.ALL_MODEL_VALUES));
+		assertTrue(abcd.agreesOn(abcd, IValue.ALL_MODEL_VALUES));
+	}
+
+	@Test
+	public void testPermuteSkipsUntouchedValues() {
+		final MVPerm ab = new MVPerm();
+		ab.put(a, b);
+		ab.put(b, a);
+
+		final TupleValue tuple = new TupleValue(new Value[] { IntValue.gen(1), c });
+		assertSame(tuple, tuple.permute(ab));
+
+		final FcnRcdValue fcnIntv = new FcnRcdValue(new IntervalValue(1, 2), new Value[] { c, d });
+		assertSame(fcnIntv, fcnIntv.permute(ab));
+
+		final FcnRcdValue fcnIntv2 = new FcnRcdValue(new IntervalValue(1, 2), new Value[] { a, d });
+		final IValue permuted = fcnIntv2.permute(ab);
+		assertNotSame(fcnIntv2, permuted);
+		assertEquals(new FcnRcdValue(new IntervalValue(1, 2), new Value[] { b, d }), permuted);
+
+		final SetEnumValue set = new SetEnumValue(new Value[] { tuple, a }, false);
+		assertEquals(new SetEnumValue(new Value[] { tuple, b }, false), set.permute(ab));
+	}
+}
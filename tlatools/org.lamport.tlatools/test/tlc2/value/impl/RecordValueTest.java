@@ -26,6 +26,7 @@
 
 package tlc2.value.impl;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
@@ -78,4 +79,27 @@ public class RecordValueTest {
 		assertTrue(deepCopy.values[0].equals(bVal));
 		assertTrue(deepCopy.values[1].equals(aVal));
 	}
+
+	@Test
+	public void testTakeExceptBatched() {
+		final InternTable internTable = new InternTable(2);
+		final UniqueString a = internTable.put("a");
+		final UniqueString b = internTable.put("b");
+
+		final RecordValue orig = new RecordValue(new UniqueString[] { b, a },
+				new Value[] { IntValue.gen(2), IntValue.gen(1) }, false);
+
+		final Value res = orig.takeExcept(new ValueExcept[] {
+				new ValueExcept(new Value[] { new StringValue("a") }, IntValue.gen(10)),
+				new ValueExcept(new Value[] { new StringValue("b") }, IntValue.gen(20)),
+				new ValueExcept(new Value[] { new StringValue("a") }, IntValue.gen(11)) });
+
+		assertEquals(new RecordValue(new UniqueString[] { a, b }, new Value[] { IntValue.gen(11), IntValue.gen(20) },
+				true), res);
+
+		// The original is unchanged, also after normalizing the result.
+		assertTrue(orig.names[0].equals(b));
+		assertTrue(orig.values[0].equals(IntValue.gen(2)));
+		assertTrue(orig.values[1].equals(IntValue.gen(1)));
+	}
 }
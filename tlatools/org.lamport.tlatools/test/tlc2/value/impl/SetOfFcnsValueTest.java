@@ -26,6 +26,7 @@
 package tlc2.value.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -389,4 +390,55 @@ public class SetOfFcnsValueTest {
 			}
 		});
 	}
+
+	@Test
+	public void testMemberTuple() {
+		final SetOfFcnsValue setOfFcnsValue = new SetOfFcnsValue(new IntervalValue(1, 3),
+				new SetEnumValue(getValue("a", "b"), true));
+		assertTrue(setOfFcnsValue.member(new TupleValue(getValue("a", "b", "a"))));
+		assertFalse(setOfFcnsValue.member(new TupleValue(getValue("a", "c", "a"))));
+		assertFalse(setOfFcnsValue.member(new TupleValue(getValue("a", "b"))));
+		assertFalse(setOfFcnsValue.member(TupleValue.EmptyTuple));
+
+		// The domain 2..4 is not the domain of a tuple.
+		assertFalse(new SetOfFcnsValue(new IntervalValue(2, 4), new SetEnumValue(getValue("a", "b"), true))
+				.member(new TupleValue(getValue("a", "b", "a"))));
+
+		// Empty tuple and (any) empty interval.
+		assertTrue(new SetOfFcnsValue(new IntervalValue(1, 0), new SetEnumValue()).member(TupleValue.EmptyTuple));
+		assertTrue(new SetOfFcnsValue(new IntervalValue(5, 4), new SetEnumValue()).member(TupleValue.EmptyTuple));
+	}
+
+	@Test
+	public void testIsSubsetEq() {
+		final SetEnumValue ab = new SetEnumValue(getValue("a", "b"), true);
+		final SetEnumValue abc = new SetEnumValue(getValue("a", "b", "c"), true);
+		// Too large to enumerate.
+		final IntervalValue domain = new IntervalValue(1, 100);
+
+		assertEquals(BoolValue.ValTrue, new SetOfFcnsValue(domain, ab).isSubsetEq(new SetOfFcnsValue(domain, abc)));
+		assertEquals(BoolValue.ValFalse, new SetOfFcnsValue(domain, abc).isSubsetEq(new SetOfFcnsValue(domain, ab)));
+		assertEquals(BoolValue.ValFalse,
+				new SetOfFcnsValue(domain, ab).isSubsetEq(new SetOfFcnsValue(new IntervalValue(1, 99), abc)));
+
+		// The empty set is a subset of every set.
+		assertEquals(BoolValue.ValTrue, new SetOfFcnsValue(domain, new SetEnumValue())
+				.isSubsetEq(new SetOfFcnsValue(new IntervalValue(1, 99), ab)));
+		// [{} -> T] = {<<>>} for every T.
+		assertEquals(BoolValue.ValTrue, new SetOfFcnsValue(new SetEnumValue(), abc)
+				.isSubsetEq(new SetOfFcnsValue(new SetEnumValue(), new SetEnumValue())));
+
+		// Other sets of functions are enumerated.
+		final SetOfFcnsValue setOfFcnsValue = new SetOfFcnsValue(new IntervalValue(1, 2), ab);
+		assertEquals(BoolValue.ValTrue, setOfFcnsValue.isSubsetEq(setOfFcnsValue.toSetEnum()));
+		assertEquals(BoolValue.ValFalse, setOfFcnsValue.isSubsetEq(new SetEnumValue()));
+	}
+
+	@Test
+	public void testIsEmpty() {
+		final SetEnumValue ab = new SetEnumValue(getValue("a", "b"), true);
+		assertFalse(new SetOfFcnsValue(new IntervalValue(1, 100), ab).isEmpty());
+		assertTrue(new SetOfFcnsValue(new IntervalValue(1, 100), new SetEnumValue()).isEmpty());
+		assertFalse(new SetOfFcnsValue(new SetEnumValue(), new SetEnumValue()).isEmpty());
+	}
 }
@@ -193,4 +193,25 @@ public class SetOfRcrdValueTest {
 
 		assertEquals(k, randomsubsetValues.size());
 	}
+
+	@Test
+	public void testIsSubsetEq() {
+		final UniqueString[] names = getNames(2);
+		final Value ab = new SetEnumValue(new Value[] { new StringValue("a"), new StringValue("b") }, true);
+		final Value abc = new SetEnumValue(
+				new Value[] { new StringValue("a"), new StringValue("b"), new StringValue("c") }, true);
+		final Value empty = new SetEnumValue();
+
+		assertEquals(BoolValue.ValTrue, new SetOfRcdsValue(names, new Value[] { ab, new IntervalValue(1, 2) }, true)
+				.isSubsetEq(new SetOfRcdsValue(names, new Value[] { abc, new IntervalValue(0, 2) }, true)));
+		assertEquals(BoolValue.ValFalse, new SetOfRcdsValue(names, new Value[] { abc, new IntervalValue(1, 2) }, true)
+				.isSubsetEq(new SetOfRcdsValue(names, new Value[] { ab, new IntervalValue(0, 2) }, true)));
+		// Different fields.
+		assertEquals(BoolValue.ValFalse, new SetOfRcdsValue(names, new Value[] { ab, ab }, true)
+				.isSubsetEq(new SetOfRcdsValue(getNames(3), new Value[] { ab, ab, ab }, true)));
+		// The empty set is a subset of every set.
+		assertEquals(BoolValue.ValTrue, new SetOfRcdsValue(names, new Value[] { abc, empty }, true)
+				.isSubsetEq(new SetOfRcdsValue(getNames(3), new Value[] { ab, ab, ab }, true)));
+		assertTrue(new SetOfRcdsValue(names, new Value[] { abc, empty }, true).isEmpty());
+	}
 }
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import tlc2.util.FP64;
+
+public class SortedSetAlgebraTest {
+
+	@BeforeClass
+	public static void setup() {
+		FP64.Init();
+	}
+
+	private static SetEnumValue randomSet(final Random random, final int size, final int bound) {
+		final ValueVec vec = new ValueVec(size);
+		for (int i = 0; i < size; i++) {
+			vec.addElement(IntValue.gen(random.nextInt(bound)));
+		}
+		return (SetEnumValue) new SetEnumValue(vec, false).normalize();
+	}
+
+	private static SetEnumValue lookup(final SetEnumValue a, final SetEnumValue b, final boolean in) {
+		final ValueVec vec = new ValueVec();
+		for (int i = 0; i < a.elems.size(); i++) {
+			if (b.member(a.elems.elementAt(i)) == in) {
+				vec.addElement(a.elems.elementAt(i));
+			}
+		}
+		return (SetEnumValue) new SetEnumValue(vec, false).normalize();
+	}
+
+	@Test
+	public void testMerge() {
+		final Random random = new Random(15041980L);
+		for (int i = 0; i < 100; i++) {
+			final SetEnumValue a = randomSet(random, random.nextInt(32), 48);
+			final SetEnumValue b = randomSet(random, random.nextInt(32), 48);
+
+			final ValueVec union = new ValueVec();
+			for (int j = 0; j < a.elems.size(); j++) {
+				union.addElement(a.elems.elementAt(j));
+			}
+			for (int j = 0; j < b.elems.size(); j++) {
+				union.addElement(b.elems.elementAt(j));
+			}
+			assertEquals(new SetEnumValue(union, false).normalize(),
+					new SetEnumValue(SortedSetAlgebra.cup(a.elems, b.elems), true));
+			assertEquals(lookup(a, b, true), new SetEnumValue(SortedSetAlgebra.cap(a.elems, b.elems), true));
+			assertEquals(lookup(a, b, false), new SetEnumValue(SortedSetAlgebra.diff(a.elems, b.elems), true));
+		}
+	}
+
+	@Test
+	public void testMergeIsNormalized() {
+		final Random random = new Random(15041980L);
+		final SetEnumValue a = randomSet(random, 64, 128);
+		final SetEnumValue b = randomSet(random, 64, 128);
+
+		for (final ValueVec vec : new ValueVec[] { SortedSetAlgebra.cup(a.elems, b.elems),
+				SortedSetAlgebra.cap(a.elems, b.elems), SortedSetAlgebra.diff(a.elems, b.elems) }) {
+			for (int i = 1; i < vec.size(); i++) {
+				assertTrue(vec.elementAt(i - 1).compareTo(vec.elementAt(i)) < 0);
+			}
+		}
+	}
+
+	@Test
+	public void testIndex() {
+		final ValueVec vec = new ValueVec();
+		for (int i = 0; i < 4096; i += 2) {
+			vec.addElement(IntValue.gen(i));
+		}
+		final SortedSetAlgebra.Index index = SortedSetAlgebra.Index.create(vec);
+		assertNotSame(SortedSetAlgebra.Index.NONE, index);
+		assertTrue(index.isValid());
+
+		for (int i = -1; i <= 4096; i++) {
+			assertEquals(i % 2 == 0 && i >= 0 && i < 4096, index.member(vec, IntValue.gen(i)));
+		}
+	}
+
+	@Test
+	public void testSearchesBeforeIndex() {
+		assertEquals(10, SortedSetAlgebra.searchesBeforeIndex(1024));
+		assertEquals(10, SortedSetAlgebra.searchesBeforeIndex(2047));
+		assertEquals(11, SortedSetAlgebra.searchesBeforeIndex(2048));
+
+		// Same answers before and after the set is indexed.
+		final ValueVec vec = new ValueVec();
+		for (int i = 0; i < 2048; i += 2) {
+			vec.addElement(IntValue.gen(i));
+		}
+		final SetEnumValue set = new SetEnumValue(vec, true);
+		for (int i = -1; i <= 2048; i++) {
+			assertEquals(i % 2 == 0 && i >= 0 && i < 2048, set.memberIndexed(IntValue.gen(i)));
+		}
+	}
+
+	@Test
+	public void testIndexOfNestedSets() {
+		// Elements that are equal to but represented differently than the
+		// elements of the set.
+		final ValueVec vec = new ValueVec();
+		for (int i = 0; i < 64; i++) {
+			vec.addElement(new IntervalValue(i, i + 2));
+		}
+		vec.sort(true);
+		final SortedSetAlgebra.Index index = SortedSetAlgebra.Index.create(vec);
+
+		assertTrue(index.member(vec, new SetEnumValue(
+				new Value[] { IntValue.gen(5), IntValue.gen(3), IntValue.gen(4) }, false)));
+		assertFalse(index.member(vec, new SetEnumValue(
+				new Value[] { IntValue.gen(5), IntValue.gen(3) }, false)));
+	}
+}
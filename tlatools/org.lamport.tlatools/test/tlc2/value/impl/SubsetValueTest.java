@@ -549,4 +549,68 @@ public class SubsetValueTest {
         
         assertEquals(normalized, unnormalized);
 	}
+
+	@Test
+	public void testStreaming() {
+		// [1..3 -> {a,b}] has 8 elements and is not enumerated up front.
+		final SubsetValue subset = new SubsetValue(
+				new SetOfFcnsValue(new IntervalValue(1, 3), new SetEnumValue(getValue("a", "b"), false)));
+
+		final ValueVec vec = new ValueVec(subset.size());
+		final ValueEnumeration elements = subset.elementsStreaming();
+		elements.forEach(e -> vec.addElement(e));
+		assertEquals(256, vec.size());
+
+		final SetEnumValue streamed = new SetEnumValue(vec, false);
+		streamed.normalize();
+		assertEquals(256, streamed.size());
+		assertEquals(subset.toSetEnum().normalize(), streamed);
+
+		// Same subsets after a reset.
+		elements.reset();
+		final ValueVec again = new ValueVec(subset.size());
+		elements.forEach(e -> again.addElement(e));
+		assertEquals(streamed, new SetEnumValue(again, false).normalize());
+	}
+
+	@Test
+	public void testStreamingDuplicates() {
+		// S \cup T enumerates 2 twice.
+		final SubsetValue subset = new SubsetValue(new SetCupValue(new SetEnumValue(
+				new Value[] { IntValue.gen(1), IntValue.gen(2) }, false),
+				new SetEnumValue(new Value[] { IntValue.gen(2), IntValue.gen(3) }, false)));
+
+		final ValueVec vec = new ValueVec();
+		subset.elementsStreaming().forEach(e -> vec.addElement(e));
+		assertEquals(8, vec.size());
+		assertEquals(8, new SetEnumValue(vec, false).normalize().size());
+	}
+
+	@Test
+	public void testStreamingHuge() {
+		// SUBSET SUBSET 1..40 cannot be normalized.
+		final SubsetValue subset = new SubsetValue(new SubsetValue(new IntervalValue(1, 40)));
+
+		final ValueEnumeration elements = subset.elementsStreaming();
+		final Set<Value> seen = new HashSet<>();
+		for (int i = 0; i < (1 << 12); i++) {
+			final Value elem = elements.nextElement();
+			assertTrue(elem instanceof SetEnumValue);
+			assertTrue(seen.add(elem.normalize()));
+		}
+	}
+
+	@Test
+	public void testIsSubsetEqOfSmallerSet() {
+		// 2^25 subsets do not fit into a set of 25 elements, which is decided
+		// without enumerating SUBSET S.
+		final SetEnumValue s = (SetEnumValue) new IntervalValue(1, 25).toSetEnum();
+		final SubsetValue subset = new SubsetValue(s);
+		assertEquals(BoolValue.ValFalse, subset.isSubsetEq(s));
+
+		final SubsetValue small = new SubsetValue(new SetEnumValue(getValue("a", "b"), false));
+		assertEquals(BoolValue.ValTrue, small.isSubsetEq(small.toSetEnum()));
+		assertEquals(BoolValue.ValFalse, small.isSubsetEq(new SetEnumValue(new Value[] { new SetEnumValue(),
+				new SetEnumValue(getValue("a"), true), new SetEnumValue(getValue("b"), true) }, false)));
+	}
 }
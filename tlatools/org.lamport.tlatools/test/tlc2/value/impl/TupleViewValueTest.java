@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import tlc2.module.Sequences;
+import tlc2.tool.EvalControl;
+import tlc2.util.FP64;
+
+public class TupleViewValueTest {
+
+	static {
+		// Before TupleViewValue is loaded.
+		System.setProperty("tlc2.value.impl.TupleViewValue.enabled", "true");
+	}
+
+	@BeforeClass
+	public static void setup() {
+		FP64.Init();
+	}
+
+	private static TupleValue strs(final String... strs) {
+		final Value[] vals = new Value[strs.length];
+		for (int i = 0; i < strs.length; i++) {
+			vals[i] = new StringValue(strs[i]);
+		}
+		return new TupleValue(vals);
+	}
+
+	private static void assertEquivalent(final TupleValue expected, final Value actual) {
+		assertEquals(expected.fingerPrint(FP64.New()), actual.fingerPrint(FP64.New()));
+		assertTrue(expected.equals(actual));
+		assertTrue(actual.equals(expected));
+		assertEquals(0, expected.compareTo(actual));
+		assertEquals(0, actual.compareTo(expected));
+		assertEquals(expected.toString(), actual.toString());
+	}
+
+	@Test
+	public void testSequences() {
+		final TupleValue t = strs("a", "b", "c");
+
+		Value v = Sequences.Tail(t);
+		assertTrue(v instanceof TupleViewValue);
+		assertEquivalent(strs("b", "c"), v);
+		assertEquals(IntValue.gen(2), Sequences.Len(v));
+		assertEquals(new StringValue("b"), Sequences.Head(v));
+		assertEquivalent(strs("c"), Sequences.Tail(v));
+		assertEquivalent(TupleValue.EmptyTuple, Sequences.Tail(Sequences.Tail(v)));
+
+		v = Sequences.Append(t, new StringValue("d"));
+		assertTrue(v instanceof TupleViewValue);
+		assertEquivalent(strs("a", "b", "c", "d"), v);
+		assertEquivalent(strs("a", "b", "c"), t);
+
+		v = Sequences.SubSeq(v, IntValue.gen(2), IntValue.gen(3));
+		assertTrue(v instanceof TupleViewValue);
+		assertEquivalent(strs("b", "c"), v);
+		assertEquivalent(TupleValue.EmptyTuple, Sequences.SubSeq(v, IntValue.gen(2), IntValue.gen(1)));
+
+		v = Sequences.Concat(v, strs("x", "y"));
+		assertTrue(v instanceof TupleViewValue);
+		assertEquivalent(strs("b", "c", "x", "y"), v);
+		assertEquivalent(strs("b", "c", "x", "y"), Sequences.Concat(v, TupleValue.EmptyTuple));
+		assertEquivalent(strs("b", "c", "x", "y"), Sequences.Concat(TupleValue.EmptyTuple, v));
+
+		assertEquivalent(strs("z", "b", "c", "x", "y"), Sequences.Cons(new StringValue("z"), v));
+	}
+
+	@Test
+	public void testSharedStore() {
+		// A queue that is repeatedly appended to and dequeued from.
+		Value q = Sequences.Append(strs("a"), new StringValue("b"));
+		for (int i = 0; i < 100; i++) {
+			q = Sequences.Tail(Sequences.Append(q, new StringValue(Integer.toString(i))));
+		}
+		assertEquivalent(strs("98", "99"), q);
+
+		// Two appends to the same view must not see each other's element.
+		final Value t = Sequences.Tail(Sequences.Append(strs("a", "b"), new StringValue("c")));
+		final Value u = Sequences.Append(t, new StringValue("x"));
+		final Value w = Sequences.Append(t, new StringValue("y"));
+		assertEquivalent(strs("b", "c"), t);
+		assertEquivalent(strs("b", "c", "x"), u);
+		assertEquivalent(strs("b", "c", "y"), w);
+		assertFalse(u.equals(w));
+		assertTrue(u.compareTo(w) < 0);
+		assertTrue(w.compareTo(u) > 0);
+
+		// Appending to a prefix of a view copies too.
+		final Value p = Sequences.Append(Sequences.SubSeq(u, IntValue.gen(1), IntValue.gen(1)), new StringValue("z"));
+		assertEquivalent(strs("b", "z"), p);
+		assertEquivalent(strs("b", "c", "x"), u);
+	}
+
+	@Test
+	public void testApply() {
+		final Applicable t = (Applicable) Sequences.Tail(strs("a", "b", "c"));
+		assertEquals(new StringValue("c"), t.apply(IntValue.gen(2), EvalControl.Clear));
+		assertEquals(new StringValue("b"), t.select(IntValue.gen(1)));
+		assertEquals(null, t.select(IntValue.gen(3)));
+		assertEquals(new IntervalValue(1, 2), t.getDomain());
+	}
+
+	@Test
+	public void testTakeExcept() {
+		final Value t = Sequences.Tail(strs("a", "b", "c"));
+		final Value v = t.takeExcept(new ValueExcept(new Value[] { IntValue.gen(2) }, new StringValue("d")));
+		assertEquivalent(strs("b", "d"), v);
+		// t is unchanged.
+		assertEquivalent(strs("b", "c"), t);
+	}
+
+	@Test
+	public void testAssignable() {
+		assertTrue(Sequences.Tail(strs("a", "b")).assignable(strs("b")));
+		assertTrue(strs("b").assignable(Sequences.Tail(strs("a", "b"))));
+		assertFalse(strs("a").assignable(Sequences.Tail(strs("a", "b"))));
+	}
+}
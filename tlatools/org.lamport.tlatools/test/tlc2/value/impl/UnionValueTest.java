@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved.
+ *
+ * The MIT License (MIT)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import tlc2.util.FP64;
+
+public class UnionValueTest {
+
+	static {
+		// Before SortedSetAlgebra is loaded.
+		System.setProperty("tlc2.value.impl.SortedSetAlgebra.enabled", "true");
+	}
+
+	@BeforeClass
+	public static void setup() {
+		FP64.Init();
+	}
+
+	private static SetEnumValue set(final int... ints) {
+		final Value[] vals = new Value[ints.length];
+		for (int i = 0; i < ints.length; i++) {
+			vals[i] = IntValue.gen(ints[i]);
+		}
+		return new SetEnumValue(vals, false);
+	}
+
+	private static SetEnumValue sets(final Value... sets) {
+		return new SetEnumValue(sets, false);
+	}
+
+	@Test
+	public void testUnion() {
+		Value union = UnionValue.union(sets(set(5, 3, 1), set(2, 3), set(), set(1, 6, 4), set(6)));
+		assertTrue(union instanceof SetEnumValue);
+		assertTrue(union.isNormalized());
+		assertEquals(set(1, 2, 3, 4, 5, 6), union);
+		assertEquals(6, union.size());
+
+		union = UnionValue.union(sets(set(2, 1)));
+		assertEquals(set(1, 2), union);
+		assertTrue(union.isNormalized());
+
+		assertEquals(new SetEnumValue(), UnionValue.union(sets()));
+		assertEquals(new SetEnumValue(), UnionValue.union(sets(set(), set())));
+	}
+
+	@Test
+	public void testUnionSubset() {
+		// UNION SUBSET (1..30)
+		final Value union = UnionValue.union(new SubsetValue(new IntervalValue(1, 30)));
+		assertTrue(union instanceof UnionValue);
+		assertTrue(union.member(IntValue.gen(30)));
+		assertFalse(union.member(IntValue.gen(31)));
+		assertEquals(BoolValue.ValTrue, ((Enumerable) union).isSubsetEq(new IntervalValue(0, 30)));
+		assertEquals(BoolValue.ValFalse, ((Enumerable) union).isSubsetEq(new IntervalValue(2, 30)));
+	}
+
+	@Test
+	public void testIsSubsetEq() {
+		// UNION {SUBSET {1,2}, {{3}}}
+		final UnionValue union = new UnionValue(sets(new SubsetValue(set(1, 2)), sets(set(3))));
+		assertEquals(BoolValue.ValTrue, union.isSubsetEq(new SubsetValue(set(1, 2, 3))));
+		assertEquals(BoolValue.ValFalse, union.isSubsetEq(new SubsetValue(set(1, 2))));
+		assertEquals(BoolValue.ValTrue, union.isSubsetEq(sets(set(), set(1), set(2), set(1, 2), set(3))));
+		assertEquals(BoolValue.ValFalse, union.isSubsetEq(sets(set(), set(1), set(2), set(3))));
+		assertEquals(BoolValue.ValTrue, new UnionValue(sets()).isSubsetEq(set()));
+	}
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package tlc2.value.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import tlc2.util.FP64;
+import tlc2.value.IValue;
+import util.UniqueString;
+
+public class ValueInternerTest {
+
+	@BeforeClass
+	public static void setup() {
+		FP64.Init();
+	}
+
+	@Test
+	public void testEqualValuesAreUnified() {
+		final ValueInterner interner = new ValueInterner();
+
+		final Value t1 = new TupleValue(new Value[] { IntValue.gen(1), IntValue.gen(42) });
+		final Value t2 = new TupleValue(new Value[] { IntValue.gen(1), IntValue.gen(42) });
+		assertNotSame(t1, t2);
+
+		assertSame(t1, interner.intern(t1));
+		assertSame(t1, interner.intern(t2));
+		assertSame(t1, interner.intern(t1));
+
+		assertEquals(1, interner.getHits());
+		assertEquals(1, interner.getMisses());
+		assertEquals(1, interner.size());
+		assertTrue(interner.getBytesSaved() > 0L);
+	}
+
+	@Test
+	public void testDistinctValuesAreKept() {
+		final ValueInterner interner = new ValueInterner();
+
+		final UniqueString f = UniqueString.uniqueStringOf("f");
+		final Value r1 = new RecordValue(f, IntValue.gen(1));
+		final Value r2 = new RecordValue(f, IntValue.gen(2));
+
+		assertSame(r1, interner.intern(r1));
+		assertSame(r2, interner.intern(r2));
+		assertEquals(0, interner.getHits());
+		assertEquals(2, interner.size());
+	}
+
+	@Test
+	public void testNormalizesBeforeLookup() {
+		final ValueInterner interner = new ValueInterner();
+
+		final Value s1 = new SetEnumValue(new Value[] { IntValue.gen(2), IntValue.gen(1) }, false);
+		final Value s2 = new SetEnumValue(new Value[] { IntValue.gen(1), IntValue.gen(2) }, false);
+
+		assertSame(s1, interner.intern(s1));
+		assertSame(s1, interner.intern(s2));
+	}
+
+	@Test
+	public void testAtomsAreNotInterned() {
+		final ValueInterner interner = new ValueInterner();
+
+		final IValue i = IntValue.gen(4711);
+		assertSame(i, interner.intern(i));
+		assertSame(BoolValue.ValTrue, interner.intern(BoolValue.ValTrue));
+		assertEquals(0, interner.getHits() + interner.getMisses());
+		assertEquals(0, interner.size());
+	}
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Microsoft Research. All rights reserved. 
+ *
+ * The MIT License (MIT)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software. 
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Contributors:
+ *   Markus Alexander Kuppe - initial API and implementation
+ ******************************************************************************/
+package util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class InternTableTest {
+
+	@Test
+	public void testPut() {
+		final InternTable tbl = new InternTable(4);
+		final UniqueString a = tbl.put("a");
+		assertSame(a, tbl.put("a"));
+		// Grow the table a couple of times.
+		for (int i = 0; i < 100; i++) {
+			tbl.put(Integer.toString(i));
+		}
+		assertSame(a, tbl.put("a"));
+		assertSame(a, tbl.get(a.getTok()));
+		assertSame(a, tbl.find("a"));
+		assertEquals(101, tbl.toMap().size());
+	}
+
+	@Test
+	public void testPutConcurrently() throws Exception {
+		final InternTable tbl = new InternTable(4);
+		final int n = 10000;
+		final ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			final Set<Future<UniqueString[]>> futures = new HashSet<>();
+			for (int t = 0; t < 4; t++) {
+				futures.add(pool.submit(() -> {
+					final UniqueString[] res = new UniqueString[n];
+					for (int i = 0; i < n; i++) {
+						res[i] = tbl.put(Integer.toString(i));
+					}
+					return res;
+				}));
+			}
+			UniqueString[] first = null;
+			for (Future<UniqueString[]> future : futures) {
+				final UniqueString[] strs = future.get();
+				if (first == null) {
+					first = strs;
+				}
+				for (int i = 0; i < n; i++) {
+					// All threads see the same instance of a string.
+					assertSame(first[i], strs[i]);
+				}
+			}
+			final Set<Integer> toks = new HashSet<>();
+			for (UniqueString str : first) {
+				assertTrue(toks.add(str.getTok()));
+			}
+			assertEquals(n, tbl.toMap().size());
+		} finally {
+			pool.shutdown();
+		}
+	}
+}